@@ -41,6 +41,21 @@ fi
 
 echo ""
 
+# Full reconciliation by the in-service auditor, covering every SKU
+echo "Running in-service conservation audit..."
+AUDIT=$(curl -s -X POST "$BASE_URL/actuator/conservation")
+VIOLATIONS=$(echo "$AUDIT" | jq '.violations | length')
+
+if [ "$VIOLATIONS" == "0" ]; then
+    echo "[OK] $(echo "$AUDIT" | jq '.lastFullPassSkus') SKUs balance against their baselines"
+else
+    echo "[FAIL] $VIOLATIONS SKUs violate conservation:"
+    echo "$AUDIT" | jq '.violations'
+    ERRORS=$((ERRORS + 1))
+fi
+
+echo ""
+
 # Check connection pool
 echo "Connection pool status:"
 curl -s "$BASE_URL/api/health" | jq '.connectionPool'
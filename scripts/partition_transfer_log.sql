@@ -0,0 +1,49 @@
+-- Converts transfer_log into a table range-partitioned by day on created_at.
+-- Run once against PostgreSQL while the service is stopped:
+--   psql -U inventory -d inventory -f scripts/partition_transfer_log.sql
+--
+-- Daily partitions are named transfer_log_pYYYYMMDD. The retention job
+-- (inventory.transfer-log.retention.*) creates the coming days' partitions and
+-- detaches or drops expired ones. Rows outside every daily partition go to
+-- transfer_log_default.
+--
+-- PostgreSQL requires unique indexes on a partitioned table to include the
+-- partition key, so the primary key becomes (id, created_at) and the
+-- idempotency key is unique per created_at rather than table-wide. Repeated
+-- keys are still caught by the service's key cache and lookup.
+
+BEGIN;
+
+LOCK TABLE transfer_log IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE transfer_log RENAME TO transfer_log_unpartitioned;
+
+CREATE TABLE transfer_log (LIKE transfer_log_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (created_at);
+
+CREATE TABLE transfer_log_default PARTITION OF transfer_log DEFAULT;
+
+DO $$
+DECLARE
+    first_day date := COALESCE((SELECT min(created_at)::date FROM transfer_log_unpartitioned), current_date);
+    day date;
+BEGIN
+    FOR day IN SELECT generate_series(first_day, current_date + 7, interval '1 day')::date LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF transfer_log FOR VALUES FROM (%L) TO (%L)',
+                       'transfer_log_p' || to_char(day, 'YYYYMMDD'), day, day + 1);
+    END LOOP;
+END $$;
+
+INSERT INTO transfer_log SELECT * FROM transfer_log_unpartitioned;
+
+DROP TABLE transfer_log_unpartitioned;
+
+-- Created after the old table is gone so the names match the ones in
+-- db/migration/V1__baseline.sql, which later migrations refer to.
+ALTER TABLE transfer_log ADD CONSTRAINT transfer_log_pkey PRIMARY KEY (id, created_at);
+CREATE INDEX idx_transfer_log_created ON transfer_log (created_at, id);
+CREATE INDEX idx_transfer_log_sku_created ON transfer_log (sku, created_at, id);
+CREATE INDEX idx_transfer_log_status_created ON transfer_log (status, created_at, id);
+CREATE UNIQUE INDEX uk_transfer_log_idempotency_key ON transfer_log (idempotency_key, created_at);
+
+COMMIT;
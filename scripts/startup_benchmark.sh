@@ -0,0 +1,108 @@
+#!/bin/bash
+#
+# Cold start benchmark: launches the service RUNS times and records how long
+# each start takes to answer GET /api/health and to complete its first
+# POST /api/transfer. The transfer moves 1 x SKU-001 from WAREHOUSE-A to
+# WAREHOUSE-B and is reversed afterwards, so totals are unchanged.
+#
+# Usage: ./scripts/startup_benchmark.sh [runs] [command...]
+#   ./scripts/startup_benchmark.sh 5
+#   ./scripts/startup_benchmark.sh 5 java -jar target/inventory-service-1.0.0.jar
+#   ./scripts/startup_benchmark.sh 5 docker run --rm --network host inventory-service
+#
+# The command defaults to the packaged jar. Results are appended to
+# $RESULTS (target/startup-benchmark.csv) tagged with $LABEL, so builds can be
+# compared across runs.
+
+RUNS=${1:-5}
+shift
+if [ $# -eq 0 ]; then
+    set -- java -jar target/inventory-service-1.0.0.jar
+fi
+BASE_URL=${BASE_URL:-"http://localhost:8080"}
+LABEL=${LABEL:-"$*"}
+RESULTS=${RESULTS:-"target/startup-benchmark.csv"}
+TIMEOUT_SECONDS=${TIMEOUT_SECONDS:-120}
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+health_ok() {
+    [ "$(curl -s -o /dev/null -w '%{http_code}' "$BASE_URL/api/health")" = "200" ]
+}
+
+transfer_ok() {
+    curl -s -X POST "$BASE_URL/api/transfer" \
+        -H "Content-Type: application/json" \
+        -d "{\"sku\":\"SKU-001\",\"fromLocation\":\"$1\",\"toLocation\":\"$2\",\"quantity\":1}" \
+        | grep -q '"status":"COMPLETED"'
+}
+
+if health_ok; then
+    echo "Something is already answering on $BASE_URL; stop it first." >&2
+    exit 1
+fi
+
+mkdir -p "$(dirname "$RESULTS")"
+[ -f "$RESULTS" ] || echo "timestamp,label,run,health_ms,transfer_ms" > "$RESULTS"
+
+echo "=== Startup Benchmark ==="
+echo "Command: $*"
+echo "Runs: $RUNS"
+echo ""
+printf "%-5s %12s %14s\n" "run" "health (ms)" "transfer (ms)"
+
+HEALTH_TIMES=()
+TRANSFER_TIMES=()
+for run in $(seq 1 "$RUNS"); do
+    START=$(now_ms)
+    "$@" > "target/startup-benchmark-$run.log" 2>&1 &
+    PID=$!
+    DEADLINE=$((START + TIMEOUT_SECONDS * 1000))
+
+    HEALTH_MS=""
+    until health_ok; do
+        if ! kill -0 "$PID" 2>/dev/null || [ "$(now_ms)" -gt "$DEADLINE" ]; then
+            break
+        fi
+        sleep 0.02
+    done
+    health_ok && HEALTH_MS=$(( $(now_ms) - START ))
+
+    TRANSFER_MS=""
+    if [ -n "$HEALTH_MS" ]; then
+        # The seeder may still be running when health first answers.
+        until transfer_ok WAREHOUSE-A WAREHOUSE-B; do
+            [ "$(now_ms)" -gt "$DEADLINE" ] && break
+            sleep 0.02
+        done
+        if [ "$(now_ms)" -le "$DEADLINE" ]; then
+            TRANSFER_MS=$(( $(now_ms) - START ))
+            transfer_ok WAREHOUSE-B WAREHOUSE-A
+        fi
+    fi
+
+    kill "$PID" 2>/dev/null
+    wait "$PID" 2>/dev/null
+    while health_ok; do
+        sleep 0.1
+    done
+
+    if [ -z "$TRANSFER_MS" ]; then
+        echo "Run $run did not complete a transfer within ${TIMEOUT_SECONDS}s; see target/startup-benchmark-$run.log" >&2
+        exit 1
+    fi
+    printf "%-5s %12s %14s\n" "$run" "$HEALTH_MS" "$TRANSFER_MS"
+    echo "$(date -u +%Y-%m-%dT%H:%M:%SZ),\"$LABEL\",$run,$HEALTH_MS,$TRANSFER_MS" >> "$RESULTS"
+    HEALTH_TIMES+=("$HEALTH_MS")
+    TRANSFER_TIMES+=("$TRANSFER_MS")
+done
+
+median() {
+    printf "%s\n" "$@" | sort -n | awk '{a[NR] = $1} END {print (NR % 2) ? a[(NR + 1) / 2] : int((a[NR / 2] + a[NR / 2 + 1]) / 2)}'
+}
+
+echo ""
+echo "Median: health $(median "${HEALTH_TIMES[@]}") ms, first transfer $(median "${TRANSFER_TIMES[@]}") ms"
+echo "Results appended to $RESULTS"
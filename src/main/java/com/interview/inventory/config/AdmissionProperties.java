@@ -0,0 +1,36 @@
+package com.interview.inventory.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "inventory.admission")
+public class AdmissionProperties {
+
+    /** Put the transfer and inventory endpoints behind per-endpoint concurrency limits. */
+    private boolean enabled = false;
+
+    /** Concurrency limit each endpoint starts with. */
+    private int initialLimit = 5;
+
+    private int minLimit = 1;
+
+    private int maxLimit = 50;
+
+    /** Requests allowed to wait for a permit per endpoint; beyond this they are rejected at once. */
+    private int queueSize = 20;
+
+    /** How long a queued request waits for a permit before it is rejected. */
+    private Duration maxWait = Duration.ofMillis(500);
+
+    /** Requests slower than this count as congestion and shrink the limit. */
+    private Duration latencyThreshold = Duration.ofMillis(250);
+
+    /** Factor the limit is multiplied by on congestion. */
+    private double backoffRatio = 0.75;
+
+    /** Value of the Retry-After header sent with 429 responses. */
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
@@ -0,0 +1,20 @@
+package com.interview.inventory.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "inventory.bulk-load")
+public class BulkLoadProperties {
+
+    /** Rows written per transaction. */
+    private int chunkSize = 10_000;
+
+    /** Rows per multi-row MERGE on databases without COPY, and SKUs per totals refresh statement. */
+    private int statementRows = 1000;
+
+    /** How often a running load logs its progress. */
+    private Duration progressInterval = Duration.ofSeconds(10);
+}
@@ -0,0 +1,32 @@
+package com.interview.inventory.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "inventory.changes")
+public class ChangeFeedProperties {
+
+    /** Publish committed stock changes on {@code GET /api/inventory/changes}. */
+    private boolean enabled = false;
+
+    /** Most recent events kept in memory for subscribers that reconnect with a cursor. */
+    private int retainedEvents = 10_000;
+
+    /** Events queued per subscriber. A subscriber that falls this far behind is disconnected. */
+    private int subscriberBuffer = 1000;
+
+    /** Most open subscriptions; further ones are refused with 503. */
+    private int maxSubscribers = 200;
+
+    /** Most locations waiting to be published. Changes beyond that make the feed send a reset. */
+    private int maxPendingLocations = 100_000;
+
+    /** Locations whose stock is read per statement when publishing. */
+    private int publishBatchSize = 500;
+
+    /** How often an idle SSE subscription gets a comment line, so proxies keep it open. */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+}
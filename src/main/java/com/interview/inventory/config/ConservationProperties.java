@@ -0,0 +1,32 @@
+package com.interview.inventory.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "inventory.conservation")
+public class ConservationProperties {
+
+    /** Check stock conservation and negative quantities in the background. */
+    private boolean enabled = false;
+
+    /** How often SKUs touched by committed transfers are re-checked. */
+    private Duration checkInterval = Duration.ofSeconds(1);
+
+    /** Most SKUs re-checked per check; the rest wait for the next one. */
+    private int maxSkusPerCheck = 500;
+
+    /** Most SKUs waiting for a check. Changes beyond that are left to the full reconciliation. */
+    private int maxPendingSkus = 100_000;
+
+    /** Time between the end of one full reconciliation and the start of the next. */
+    private Duration reconcileInterval = Duration.ofMinutes(10);
+
+    /** SKUs read per statement during a full reconciliation. */
+    private int chunkSize = 500;
+
+    /** Pause between chunks of a full reconciliation, to keep its load on the database low. */
+    private Duration chunkPause = Duration.ofMillis(100);
+}
@@ -1,41 +1,78 @@
 package com.interview.inventory.config;
 
-import com.interview.inventory.model.Inventory;
+import com.interview.inventory.dto.BulkLoadReport;
 import com.interview.inventory.repository.InventoryRepository;
+import com.interview.inventory.repository.SkuTotalRepository;
+import com.interview.inventory.service.BulkInventoryLoader;
+import com.interview.inventory.service.SyntheticCatalogGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
+/**
+ * Loads an empty database according to {@code inventory.seed.mode}, through
+ * {@link BulkInventoryLoader} so that {@code sku_totals} is written with the
+ * rows.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class DataSeeder implements CommandLineRunner {
 
+    private static final List<BulkInventoryLoader.Row> DEMO_ROWS = List.of(
+        new BulkInventoryLoader.Row("SKU-001", "WAREHOUSE-A", 1000),
+        new BulkInventoryLoader.Row("SKU-001", "WAREHOUSE-B", 500),
+        new BulkInventoryLoader.Row("SKU-001", "WAREHOUSE-C", 300),
+        new BulkInventoryLoader.Row("SKU-002", "WAREHOUSE-A", 2000),
+        new BulkInventoryLoader.Row("SKU-002", "WAREHOUSE-B", 1500),
+        new BulkInventoryLoader.Row("SKU-003", "WAREHOUSE-A", 500),
+        new BulkInventoryLoader.Row("SKU-003", "WAREHOUSE-C", 200)
+    );
+
     private final InventoryRepository inventoryRepository;
+    private final SkuTotalRepository skuTotalRepository;
+    private final BulkInventoryLoader bulkInventoryLoader;
+    private final SeedProperties seedProperties;
 
     @Override
     public void run(String... args) {
         if (inventoryRepository.count() > 0) {
+            if (skuTotalRepository.count() == 0) {
+                log.info("Backfilling sku_totals for an existing inventory...");
+                skuTotalRepository.insertFromInventory();
+            }
             log.info("Database already seeded, skipping...");
             return;
         }
 
-        log.info("Seeding initial inventory data...");
-
-        List<Inventory> seedData = List.of(
-            Inventory.builder().sku("SKU-001").location("WAREHOUSE-A").quantity(1000).build(),
-            Inventory.builder().sku("SKU-001").location("WAREHOUSE-B").quantity(500).build(),
-            Inventory.builder().sku("SKU-001").location("WAREHOUSE-C").quantity(300).build(),
-            Inventory.builder().sku("SKU-002").location("WAREHOUSE-A").quantity(2000).build(),
-            Inventory.builder().sku("SKU-002").location("WAREHOUSE-B").quantity(1500).build(),
-            Inventory.builder().sku("SKU-003").location("WAREHOUSE-A").quantity(500).build(),
-            Inventory.builder().sku("SKU-003").location("WAREHOUSE-C").quantity(200).build()
-        );
+        log.info("Seeding initial inventory data ({})...", seedProperties.getMode().name().toLowerCase());
+        BulkLoadReport report = switch (seedProperties.getMode()) {
+            case DEMO -> bulkInventoryLoader.load(DEMO_ROWS.iterator());
+            case SYNTHETIC -> bulkInventoryLoader.load(new SyntheticCatalogGenerator(seedProperties.getSynthetic()));
+            case CSV -> loadCsv(seedProperties.getCsvPath());
+            case NONE -> null;
+        };
+        if (report != null) {
+            log.info("Seeded {} inventory records", report.getRowsLoaded());
+        }
+    }
 
-        inventoryRepository.saveAll(seedData);
-        log.info("Seeded {} inventory records", seedData.size());
+    private BulkLoadReport loadCsv(String csvPath) {
+        if (csvPath == null) {
+            throw new IllegalStateException("inventory.seed.csv-path is required with inventory.seed.mode=csv");
+        }
+        try (Reader csv = Files.newBufferedReader(Path.of(csvPath))) {
+            return bulkInventoryLoader.load(csv);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -0,0 +1,48 @@
+package com.interview.inventory.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Wraps the connection pool in a {@link GatedDataSource} when
+ * {@code inventory.db-gate.enabled} is set, which the {@code virtual-threads}
+ * profile does. With one virtual thread per request, the number of callers is
+ * no longer bounded by the Tomcat pool, so the queue in front of Hikari needs
+ * its own bound.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "inventory.db-gate", name = "enabled", havingValue = "true")
+@Slf4j
+public class DatabaseGateConfig {
+
+    @Bean
+    static BeanPostProcessor databaseGatePostProcessor(ObjectProvider<DatabaseGateProperties> properties,
+                                                       ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource hikariDataSource)) {
+                    return bean;
+                }
+                DatabaseGateProperties settings = properties.getObject();
+                int permits = settings.getPermits() > 0
+                        ? settings.getPermits()
+                        : hikariDataSource.getMaximumPoolSize();
+                GatedDataSource gated = new GatedDataSource(hikariDataSource, permits, settings.getAcquireTimeout());
+                meterRegistry.ifAvailable(registry -> Gauge.builder("inventory.db.gate.waiting", gated,
+                                GatedDataSource::getQueueLength)
+                        .description("Threads waiting for a database permit")
+                        .register(registry));
+                log.info("Gating '{}' at {} concurrent connections", beanName, permits);
+                return gated;
+            }
+        };
+    }
+}
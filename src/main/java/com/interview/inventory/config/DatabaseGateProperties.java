@@ -0,0 +1,20 @@
+package com.interview.inventory.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "inventory.db-gate")
+public class DatabaseGateProperties {
+
+    /** Make callers take a permit before they may borrow a pooled connection. */
+    private boolean enabled = false;
+
+    /** Number of permits; 0 uses the pool's maximum size. */
+    private int permits = 0;
+
+    /** How long a caller waits for a permit before the borrow fails. */
+    private Duration acquireTimeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,37 @@
+package com.interview.inventory.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "inventory.hot-rows")
+public class HotRowProperties {
+
+    /** Split and merge locations automatically based on observed statement waits. */
+    private boolean enabled = false;
+
+    /** Number of sub-bucket rows a location is split into. */
+    private int buckets = 8;
+
+    /** Smoothed statement time above which a location is split. */
+    private Duration splitThreshold = Duration.ofMillis(20);
+
+    /** Smoothed statement time below which a split location is merged back. */
+    private Duration mergeThreshold = Duration.ofMillis(2);
+
+    /** How often split and merge decisions are made. */
+    private Duration checkInterval = Duration.ofSeconds(5);
+
+    /** Weight of the newest sample in the moving average, between 0 and 1. */
+    private double smoothing = 0.2;
+
+    /** Upper bound on locations split at the same time. */
+    private int maxSplitKeys = 1000;
+
+    /** Locations without traffic for this long are forgotten, and merged if split. */
+    private Duration idleExpiry = Duration.ofMinutes(5);
+
+    private long maximumTrackedKeys = 100_000;
+}
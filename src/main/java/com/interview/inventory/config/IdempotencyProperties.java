@@ -0,0 +1,26 @@
+package com.interview.inventory.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "inventory.idempotency")
+public class IdempotencyProperties {
+
+    /** Honour the Idempotency-Key header on POST /api/transfer. */
+    private boolean enabled = true;
+
+    /** Recent keys whose responses are kept in memory. */
+    private long cacheSize = 100_000;
+
+    /** How long a recent response stays in memory. */
+    private Duration cacheTtl = Duration.ofMinutes(10);
+
+    /** Keys the Bloom filter is sized for; past this its false-positive rate climbs. */
+    private long expectedKeys = 1_000_000;
+
+    /** Share of never-seen keys that still cost a database lookup, at {@code expected-keys}. */
+    private double falsePositiveRate = 0.01;
+}
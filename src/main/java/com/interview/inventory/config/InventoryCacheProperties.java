@@ -0,0 +1,20 @@
+package com.interview.inventory.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "inventory.cache")
+public class InventoryCacheProperties {
+
+    /** Serve GET /api/inventory/{sku} from memory until a transfer on that SKU commits. */
+    private boolean enabled = true;
+
+    /** Maximum number of SKUs kept. */
+    private long maximumSize = 10_000;
+
+    /** Upper bound on how long an entry lives, even if it was never invalidated. */
+    private Duration ttl = Duration.ofSeconds(30);
+}
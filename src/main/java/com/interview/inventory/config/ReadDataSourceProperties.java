@@ -0,0 +1,41 @@
+package com.interview.inventory.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * The read pool used for read-only transactions. Its Hikari settings are
+ * bound from {@code inventory.datasource.read.hikari.*}, just as the primary
+ * pool's are from {@code spring.datasource.hikari.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "inventory.datasource.read")
+public class ReadDataSourceProperties {
+
+    /** Route read-only transactions to a separate pool. */
+    private boolean enabled = false;
+
+    /** JDBC URL of the replica. Defaults to {@code spring.datasource.url}, giving reads their own pool on the primary. */
+    private String url;
+
+    /** Defaults to {@code spring.datasource.username}. */
+    private String username;
+
+    /** Defaults to {@code spring.datasource.password}. */
+    private String password;
+
+    /** Replication lag above which reads go to the primary until the replica catches up. */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    /** How often the replica's lag is measured. */
+    private Duration lagCheckInterval = Duration.ofSeconds(1);
+
+    /**
+     * Query returning the replica's lag in seconds. When unset, PostgreSQL
+     * replicas are asked for their WAL replay delay and any other database is
+     * taken to have no lag. Read on every check, so it can be changed at runtime.
+     */
+    private String lagQuery;
+}
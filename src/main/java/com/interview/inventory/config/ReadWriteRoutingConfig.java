@@ -0,0 +1,68 @@
+package com.interview.inventory.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Replaces the auto-configured pool with two: the primary pool from
+ * {@code spring.datasource.*} for everything that writes, and a read pool
+ * from {@code inventory.datasource.read.*} for read-only transactions, such
+ * as the inventory queries, exports and the repositories' read methods.
+ * Transfers run in read-write transactions and never leave the primary.
+ * <p>
+ * Each pool has its own Hikari sizing, so a burst of reads waits on the read
+ * pool instead of taking connections transfers need.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "inventory.datasource.read", name = "enabled", havingValue = "true")
+public class ReadWriteRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource writeDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "inventory.datasource.read.hikari")
+    public HikariDataSource readDataSource(DataSourceProperties primary, ReadDataSourceProperties read) {
+        HikariDataSource dataSource = primary.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(read.getUrl() != null ? read.getUrl() : primary.determineUrl())
+                .username(read.getUsername() != null ? read.getUsername() : primary.determineUsername())
+                .password(read.getPassword() != null ? read.getPassword() : primary.determinePassword())
+                .build();
+        dataSource.setPoolName("InventoryReadPool");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("readDataSource") DataSource readDataSource,
+                                               ReadDataSourceProperties settings,
+                                               MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(readDataSource, settings, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("writeDataSource") DataSource writeDataSource,
+                                 @Qualifier("readDataSource") DataSource readDataSource,
+                                 ReplicaLagMonitor replicaLagMonitor,
+                                 MeterRegistry meterRegistry) {
+        ReadWriteRoutingDataSource routing =
+                new ReadWriteRoutingDataSource(writeDataSource, readDataSource, replicaLagMonitor, meterRegistry);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
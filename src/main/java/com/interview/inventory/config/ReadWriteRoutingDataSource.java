@@ -0,0 +1,56 @@
+package com.interview.inventory.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Hands out read pool connections inside read-only transactions while the
+ * replica is within its lag limit, and primary connections otherwise.
+ * <p>
+ * The read-only flag is only bound once the transaction has begun, so this
+ * must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * which defers the borrow to the first statement.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        READ,
+        WRITE
+    }
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final Counter routedToRead;
+    private final Counter routedToWrite;
+
+    public ReadWriteRoutingDataSource(DataSource writeDataSource, DataSource readDataSource,
+                                      ReplicaLagMonitor lagMonitor, MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        setTargetDataSources(Map.of(Route.READ, readDataSource, Route.WRITE, writeDataSource));
+        setDefaultTargetDataSource(writeDataSource);
+        setLenientFallback(false);
+        this.routedToRead = routed(meterRegistry, "read");
+        this.routedToWrite = routed(meterRegistry, "write");
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && lagMonitor.isReplicaUsable()) {
+            routedToRead.increment();
+            return Route.READ;
+        }
+        routedToWrite.increment();
+        return Route.WRITE;
+    }
+
+    private static Counter routed(MeterRegistry meterRegistry, String pool) {
+        return Counter.builder("inventory.datasource.routed")
+                .description("Connections borrowed through the routing DataSource, by pool")
+                .tag("pool", pool)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,95 @@
+package com.interview.inventory.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+/**
+ * Measures the read pool's replication lag every {@code lag-check-interval}.
+ * While the lag is above {@code max-lag}, or the replica cannot be reached,
+ * read-only transactions are sent to the primary instead.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements SchedulingConfigurer {
+
+    /** Zero when the replica has replayed everything it received, or is not a replica at all. */
+    static final String POSTGRES_LAG = """
+            SELECT CASE
+                     WHEN NOT pg_is_in_recovery() THEN 0
+                     WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                     ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+                   END
+            """;
+
+    private final JdbcTemplate replica;
+    private final ReadDataSourceProperties settings;
+    private final String defaultLagQuery;
+
+    private volatile boolean replicaUsable = true;
+    private volatile double lagSeconds;
+
+    public ReplicaLagMonitor(DataSource readDataSource, ReadDataSourceProperties settings, MeterRegistry meterRegistry) {
+        this.replica = new JdbcTemplate(readDataSource);
+        this.settings = settings;
+        this.defaultLagQuery = isPostgres(readDataSource) ? POSTGRES_LAG : null;
+
+        Gauge.builder("inventory.datasource.read.lag", this, monitor -> monitor.lagSeconds)
+                .description("Replication lag of the read pool's database; -1 when it cannot be reached")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("inventory.datasource.read.usable", this, monitor -> monitor.replicaUsable ? 1 : 0)
+                .description("1 while read-only transactions use the read pool, 0 while they fall back to the primary")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(new FixedDelayTask(this::check,
+                settings.getLagCheckInterval(), settings.getLagCheckInterval()));
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    public void check() {
+        String lagQuery = settings.getLagQuery() != null ? settings.getLagQuery() : defaultLagQuery;
+        boolean usable;
+        try {
+            Number lag = lagQuery == null ? 0 : replica.queryForObject(lagQuery, Number.class);
+            lagSeconds = lag == null ? 0 : lag.doubleValue();
+            usable = lagSeconds <= settings.getMaxLag().toMillis() / 1000.0;
+        } catch (DataAccessException e) {
+            lagSeconds = -1;
+            usable = false;
+        }
+        if (usable != replicaUsable) {
+            if (usable) {
+                log.info("Replica caught up ({}s behind); read-only transactions use the read pool again", lagSeconds);
+            } else {
+                log.warn("Replica is {}; read-only transactions fall back to the primary",
+                        lagSeconds < 0 ? "unreachable" : lagSeconds + "s behind");
+            }
+            replicaUsable = usable;
+        }
+    }
+
+    private static boolean isPostgres(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return "PostgreSQL".equals(product);
+        } catch (Exception e) {
+            log.warn("Could not identify the read pool's database, assuming it never lags: {}", e.getMessage());
+            return false;
+        }
+    }
+}
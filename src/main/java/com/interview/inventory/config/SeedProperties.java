@@ -0,0 +1,55 @@
+package com.interview.inventory.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "inventory.seed")
+public class SeedProperties {
+
+    /** What an empty database is loaded with at startup. */
+    private Mode mode = Mode.DEMO;
+
+    /** CSV file with {@code sku}, {@code location} and {@code quantity} columns, for the {@code csv} mode. */
+    private String csvPath;
+
+    private final Synthetic synthetic = new Synthetic();
+
+    public enum Mode {
+        /** The seven rows documented in the README. */
+        DEMO,
+        /** A generated catalogue; see {@link Synthetic}. */
+        SYNTHETIC,
+        /** The file at {@code csv-path}. */
+        CSV,
+        /** Nothing. */
+        NONE
+    }
+
+    /**
+     * A deterministic catalogue: the same settings always produce the same
+     * rows. {@code skew} is the Zipf exponent for both stock and location
+     * popularity; 0 gives every SKU the same stock range and every location
+     * the same chance of holding it.
+     */
+    @Data
+    public static class Synthetic {
+
+        private int skus = 10_000;
+
+        private int locations = 20;
+
+        /** Locations stocking each SKU, at most {@code locations}. */
+        private int locationsPerSku = 5;
+
+        private double skew = 1.0;
+
+        /** Stock per location of the most popular SKU, give or take half. */
+        private int maxQuantity = 10_000;
+
+        /** Least stock per location, however unpopular the SKU. */
+        private int minQuantity = 10;
+
+        private long seed = 42;
+    }
+}
@@ -0,0 +1,36 @@
+package com.interview.inventory.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "inventory.transfer-log.retention")
+public class TransferLogRetentionProperties {
+
+    /** Periodically retire {@code transfer_log} rows older than {@code retain}. */
+    private boolean enabled = false;
+
+    /** How long rows stay in {@code transfer_log}. */
+    private Duration retain = Duration.ofDays(30);
+
+    /** What happens to expired daily partitions. Unpartitioned tables can only be pruned with DROP. */
+    private Action action = Action.DETACH;
+
+    /** How often expired rows are retired and upcoming partitions created. */
+    private Duration checkInterval = Duration.ofHours(1);
+
+    /** Rows removed per DELETE when the table is not partitioned. */
+    private int batchSize = 10_000;
+
+    /** Daily partitions created ahead of today, so inserts never land in the default partition. */
+    private int partitionsAhead = 7;
+
+    public enum Action {
+        /** Detach the partition and keep it as a standalone {@code transfer_log_archive_*} table. */
+        DETACH,
+        /** Drop the partition, or delete the rows when the table is not partitioned. */
+        DROP
+    }
+}
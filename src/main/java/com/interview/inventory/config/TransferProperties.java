@@ -0,0 +1,230 @@
+package com.interview.inventory.config;
+
+import com.interview.inventory.model.TransferLog;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "inventory.transfer")
+public class TransferProperties {
+
+    /**
+     * How stock is moved between locations. Kept mutable so benchmarks can
+     * switch engines without restarting the context.
+     */
+    private Engine engine = Engine.JPA;
+
+    private final Batch batch = new Batch();
+
+    private final Sequencer sequencer = new Sequencer();
+
+    private final Async async = new Async();
+
+    private final Audit audit = new Audit();
+
+    private final Retry retry = new Retry();
+
+    private final Contention contention = new Contention();
+
+    private final Journal journal = new Journal();
+
+    private final Tracing tracing = new Tracing();
+
+    public enum Engine {
+        /** Load both rows as entities, adjust them in Java and let Hibernate flush. */
+        JPA,
+        /** Guarded decrement plus upsert, one statement per side of the move. */
+        ATOMIC,
+        /**
+         * Apply in memory and append to a local journal; the database is updated
+         * afterwards. Must be chosen at startup, unlike the other engines.
+         */
+        JOURNAL
+    }
+
+    @Data
+    public static class Batch {
+
+        /** Transfers committed per transaction; 0 applies the whole batch in one transaction. */
+        private int chunkSize = 100;
+    }
+
+    @Data
+    public static class Sequencer {
+
+        /** Route single transfers through per-SKU lanes that group-commit queued moves. */
+        private boolean enabled = false;
+
+        /** Number of single-writer lanes; each holds at most one connection while draining. */
+        private int lanes = 4;
+
+        /** Pending transfers per lane before new submissions are rejected. */
+        private int queueCapacity = 1000;
+
+        /** Maximum transfers drained into one transaction. */
+        private int maxGroupSize = 100;
+
+        /** How long a submission waits for space in a full lane. */
+        private Duration submitTimeout = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Async {
+
+        /** Accept queued transfers on {@code POST /api/transfers/async}. */
+        private boolean enabled = false;
+
+        /** Threads running queued transfers; each holds one connection while a transfer runs. */
+        private int workers = 3;
+
+        /**
+         * Per-priority limits. Keep the lower classes' concurrency summed below
+         * {@code workers} so that an urgent transfer always finds a free worker.
+         */
+        private final PriorityClass urgent = new PriorityClass(3, 1_000);
+
+        private final PriorityClass normal = new PriorityClass(1, 10_000);
+
+        private final PriorityClass bulk = new PriorityClass(1, 100_000);
+
+        /**
+         * A queued transfer still PENDING this long after submission, and not
+         * held by this instance, is queued here again: its instance stopped
+         * before running it.
+         */
+        private Duration staleAfter = Duration.ofMinutes(5);
+
+        /** How often the database is checked for such transfers. */
+        private Duration sweepInterval = Duration.ofMinutes(1);
+
+        public PriorityClass forPriority(TransferLog.Priority priority) {
+            return switch (priority) {
+                case URGENT -> urgent;
+                case NORMAL -> normal;
+                case BULK -> bulk;
+            };
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriorityClass {
+
+        /** Most transfers of this priority running at once. */
+        private int maxConcurrency;
+
+        /** Queued transfers of this priority held before new submissions are refused. */
+        private int queueCapacity;
+    }
+
+    @Data
+    public static class Audit {
+
+        /** How a single transfer writes its transfer_log row. */
+        private AuditMode mode = AuditMode.TWO_PHASE;
+
+        /** Rows the asynchronous appender buffers before callers start waiting. */
+        private int bufferSize = 10_000;
+
+        /** Rows per multi-row INSERT issued by the appender. */
+        private int maxBatchSize = 500;
+
+        /** Longest a buffered row waits for its batch to fill before it is flushed anyway. */
+        private Duration flushInterval = Duration.ofMillis(50);
+
+        /** How long a caller waits for buffer space before handing its row to the overflow queue. */
+        private Duration appendTimeout = Duration.ofMillis(100);
+    }
+
+    @Data
+    public static class Retry {
+
+        /** Attempts per transfer, the first included, when it conflicts with a concurrent transaction. */
+        private int maxAttempts = 5;
+
+        /** Upper bound of the first retry's random backoff; doubled for each further retry. */
+        private Duration initialBackoff = Duration.ofMillis(5);
+
+        private Duration maxBackoff = Duration.ofMillis(200);
+
+        /** Retries earned per first attempt, shared by all transfers, so retries cannot multiply load. */
+        private double budgetRatio = 0.2;
+
+        /** Retries that can be spent at once when the budget is full. */
+        private int budgetBurst = 50;
+    }
+
+    @Data
+    public static class Contention {
+
+        /** Move SKUs between optimistic and pessimistic locking as their conflict rate changes (JPA engine). */
+        private boolean adaptive = true;
+
+        /** Weight of each attempt in the per-SKU conflict rate, an exponentially weighted average. */
+        private double smoothing = 0.1;
+
+        /** Conflict rate above which a SKU locks its rows before reading them. */
+        private double lockThreshold = 0.2;
+
+        /** Conflict rate below which a locking SKU goes back to optimistic reads. */
+        private double unlockThreshold = 0.05;
+
+        /** While locking, a lock wait longer than this counts as contention. */
+        private Duration lockWaitThreshold = Duration.ofMillis(2);
+
+        /** SKUs with no transfers for this long are forgotten and start optimistic again. */
+        private Duration idleExpiry = Duration.ofMinutes(5);
+
+        private long maximumTrackedSkus = 100_000;
+    }
+
+    @Data
+    public static class Journal {
+
+        /** Directory holding the journal segments and the checkpoint file. */
+        private String directory = "data/journal";
+
+        /** Size of each memory-mapped segment file. */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /** Longest time a transfer waits for its journal record to reach disk. */
+        private Duration ackTimeout = Duration.ofSeconds(5);
+
+        /** How often the in-memory state is written to the checkpoint file. */
+        private Duration checkpointInterval = Duration.ofMinutes(1);
+
+        /** Most journal records applied to the database per transaction. */
+        private int projectionBatchSize = 500;
+
+        /** How long the projector sleeps when it has caught up with the journal. */
+        private Duration projectionIdleDelay = Duration.ofMillis(20);
+    }
+
+    @Data
+    public static class Tracing {
+
+        /** Transfers slower than this, end to end, are candidates for a logged trace. */
+        private Duration slowThreshold = Duration.ofMillis(250);
+
+        /** Share of slow transfers whose phase breakdown is logged, between 0 and 1. */
+        private double sampleRate = 0.1;
+    }
+
+    public enum AuditMode {
+        /** Insert as PENDING before moving stock, then update to the outcome. */
+        TWO_PHASE,
+        /** Insert once, with the outcome, in the transfer transaction. */
+        SINGLE,
+        /**
+         * Hand the row to an in-memory buffer after commit; a background writer
+         * inserts it in batches. Rows still buffered when the process dies are lost.
+         */
+        ASYNC
+    }
+}
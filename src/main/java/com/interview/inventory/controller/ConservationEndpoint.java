@@ -0,0 +1,32 @@
+package com.interview.inventory.controller;
+
+import com.interview.inventory.dto.ConservationReport;
+import com.interview.inventory.service.ConservationAuditor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code GET /actuator/conservation} reports the SKUs currently failing a
+ * conservation check; {@code POST /actuator/conservation} runs a full
+ * reconciliation at once and reports the result.
+ */
+@Component
+@Endpoint(id = "conservation")
+@RequiredArgsConstructor
+public class ConservationEndpoint {
+
+    private final ConservationAuditor conservationAuditor;
+
+    @ReadOperation
+    public ConservationReport report() {
+        return conservationAuditor.report();
+    }
+
+    @WriteOperation
+    public ConservationReport reconcile() {
+        return conservationAuditor.reconcile();
+    }
+}
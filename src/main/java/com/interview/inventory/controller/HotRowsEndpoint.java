@@ -0,0 +1,44 @@
+package com.interview.inventory.controller;
+
+import com.interview.inventory.config.HotRowProperties;
+import com.interview.inventory.dto.HotRowReport;
+import com.interview.inventory.service.HotRowService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/hotrows} lists split locations and the locations with
+ * the longest waits. {@code POST /actuator/hotrows} with
+ * {@code {"sku", "location", "action": "split"|"merge", "buckets"}} splits or
+ * merges one location by hand.
+ */
+@Component
+@Endpoint(id = "hotrows")
+@RequiredArgsConstructor
+public class HotRowsEndpoint {
+
+    private final HotRowService hotRowService;
+    private final HotRowProperties hotRowProperties;
+
+    @ReadOperation
+    public HotRowReport report() {
+        return hotRowService.report();
+    }
+
+    @WriteOperation
+    public Map<String, Object> change(String sku, String location, String action, @Nullable Integer buckets) {
+        boolean changed = switch (action) {
+            case "split" -> hotRowService.split(sku, location,
+                    buckets == null ? hotRowProperties.getBuckets() : buckets);
+            case "merge" -> hotRowService.merge(sku, location);
+            default -> throw new IllegalArgumentException("Unknown action: " + action);
+        };
+        return Map.of("sku", sku, "location", location, "action", action, "changed", changed);
+    }
+}
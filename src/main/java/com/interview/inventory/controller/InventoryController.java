@@ -1,71 +1,215 @@
 package com.interview.inventory.controller;
 
+import com.interview.inventory.dto.BatchTransferRequest;
+import com.interview.inventory.dto.BatchTransferResponse;
 import com.interview.inventory.dto.InventoryResponse;
 import com.interview.inventory.dto.TransferRequest;
 import com.interview.inventory.dto.TransferResponse;
 import com.interview.inventory.model.Inventory;
-import com.interview.inventory.repository.InventoryRepository;
+import com.interview.inventory.model.TransferLog;
+import com.interview.inventory.repository.SkuTotalRepository;
 import com.interview.inventory.repository.TransferLogRepository;
+import com.interview.inventory.service.AsyncTransferScheduler;
+import com.interview.inventory.service.BulkInventoryLoader;
+import com.interview.inventory.service.ChangeFeedService;
+import com.interview.inventory.service.IdempotencyKeyReusedException;
+import com.interview.inventory.service.IdempotencyService;
+import com.interview.inventory.service.InventoryExportService;
+import com.interview.inventory.service.InventoryQueryService;
+import com.interview.inventory.service.TransferHistoryService;
+import com.interview.inventory.service.TransferMetrics;
+import com.interview.inventory.service.TransferSequencer;
 import com.interview.inventory.service.TransferService;
 import com.zaxxer.hikari.HikariDataSource;
 import com.zaxxer.hikari.HikariPoolMXBean;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.sql.DataSource;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api")
 @RequiredArgsConstructor
 public class InventoryController {
 
-    private final InventoryRepository inventoryRepository;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 100;
+
     private final TransferLogRepository transferLogRepository;
+    private final SkuTotalRepository skuTotalRepository;
     private final TransferService transferService;
+    private final InventoryQueryService inventoryQueryService;
+    private final InventoryExportService inventoryExportService;
+    private final TransferHistoryService transferHistoryService;
+    private final TransferMetrics transferMetrics;
+    private final IdempotencyService idempotencyService;
+    private final ChangeFeedService changeFeedService;
+    private final BulkInventoryLoader bulkInventoryLoader;
+    private final AsyncTransferScheduler asyncTransferScheduler;
+    private final Optional<TransferSequencer> transferSequencer;
     private final DataSource dataSource;
 
     @GetMapping("/inventory/{sku}")
     public ResponseEntity<InventoryResponse> getInventory(@PathVariable String sku) {
-        List<Inventory> inventories = inventoryRepository.findBySku(sku);
+        return inventoryQueryService.getInventory(sku)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 
-        if (inventories.isEmpty()) {
-            return ResponseEntity.notFound().build();
+    /**
+     * A request carrying an {@code Idempotency-Key} header runs at most once;
+     * repeating it returns the original response, and reusing the key for a
+     * different transfer is refused with 422.
+     * <p>
+     * Runs on the request thread. With the sequencer enabled the thread waits
+     * for the lane to commit the group holding this transfer.
+     * <p>
+     * A journal-engine transfer that could not be confirmed durable is answered
+     * with 202 and status {@code UNKNOWN}; poll the {@code Location} to learn
+     * whether it took effect.
+     */
+    @PostMapping("/transfer")
+    public ResponseEntity<?> transfer(
+            @Valid @RequestBody TransferRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey != null) {
+            if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+                return invalidIdempotencyKey();
+            }
+            request.setIdempotencyKey(idempotencyKey);
+        }
+        TransferResponse response;
+        try {
+            response = idempotencyService.execute(request, this::submit).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        if (TransferResponse.OUTCOME_UNKNOWN.equals(response.getStatus())) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header(HttpHeaders.LOCATION, "/api/transfers/" + response.getTransferId())
+                    .body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Queues the transfer and answers 202 with its id straight away; poll
+     * {@code GET /api/transfers/{id}} (the {@code Location} header) for the
+     * outcome. {@code priority} is {@code URGENT}, {@code NORMAL} or
+     * {@code BULK}. A full queue is answered with 503. Idempotency keys work
+     * as for {@code POST /api/transfer}.
+     */
+    @PostMapping("/transfers/async")
+    public CompletableFuture<ResponseEntity<?>> transferAsync(
+            @Valid @RequestBody TransferRequest request,
+            @RequestParam(defaultValue = "NORMAL") TransferLog.Priority priority,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (!asyncTransferScheduler.isEnabled()) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
         }
+        if (idempotencyKey != null) {
+            if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+                return CompletableFuture.completedFuture(invalidIdempotencyKey());
+            }
+            request.setIdempotencyKey(idempotencyKey);
+        }
+        return idempotencyService.execute(request,
+                        queued -> CompletableFuture.completedFuture(asyncTransferScheduler.submit(queued, priority)))
+                .thenApply(response -> ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .header(HttpHeaders.LOCATION, "/api/transfers/" + response.getTransferId())
+                        .body(response));
+    }
 
-        Integer total = inventoryRepository.getTotalQuantityBySku(sku);
+    private static ResponseEntity<?> invalidIdempotencyKey() {
+        return ResponseEntity.badRequest().body(Map.of("error",
+                "Idempotency-Key must be 1 to " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters"));
+    }
+
+    private CompletableFuture<TransferResponse> submit(TransferRequest request) {
+        if (transferSequencer.isPresent()) {
+            return transferSequencer.get().submit(request);
+        }
+        return CompletableFuture.completedFuture(transferService.executeTransfer(request));
+    }
 
-        List<InventoryResponse.LocationStock> locations = inventories.stream()
-                .map(inv -> InventoryResponse.LocationStock.builder()
-                        .location(inv.getLocation())
-                        .quantity(inv.getQuantity())
-                        .build())
-                .collect(Collectors.toList());
+    @PostMapping("/transfers/batch")
+    public ResponseEntity<BatchTransferResponse> transferBatch(@Valid @RequestBody BatchTransferRequest request) {
+        List<TransferResponse> results = transferService.executeBatch(request.getTransfers());
+        int completed = (int) results.stream().filter(r -> "COMPLETED".equals(r.getStatus())).count();
 
-        return ResponseEntity.ok(InventoryResponse.builder()
-                .sku(sku)
-                .totalQuantity(total)
-                .locations(locations)
+        return ResponseEntity.ok(BatchTransferResponse.builder()
+                .completed(completed)
+                .failed(results.size() - completed)
+                .results(results)
                 .build());
     }
 
-    @PostMapping("/transfer")
-    public ResponseEntity<TransferResponse> transfer(@Valid @RequestBody TransferRequest request) {
-        TransferResponse response = transferService.executeTransfer(request);
-        return ResponseEntity.ok(response);
+    /**
+     * Transfer history, newest first, optionally filtered by SKU and status.
+     * Pages continue from the {@code X-Next-Cursor} header, passed back as
+     * {@code before}; the header is absent on the last page.
+     */
+    @GetMapping("/transfers")
+    public ResponseEntity<?> getTransfers(@RequestParam(required = false) String sku,
+                                          @RequestParam(required = false) TransferLog.TransferStatus status,
+                                          @RequestParam(required = false) String before,
+                                          @RequestParam(defaultValue = "100") int limit) {
+        List<TransferLog> page;
+        try {
+            page = transferHistoryService.page(sku, status, before, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == Math.min(Math.max(limit, 1), TransferHistoryService.MAX_PAGE_SIZE)) {
+            response.header("X-Next-Cursor", TransferHistoryService.cursorAfter(page.get(page.size() - 1)));
+        }
+        return response.body(page);
+    }
+
+    /**
+     * One transfer by id. A transfer queued with {@code POST /api/transfers/async}
+     * is PENDING until a worker has run it.
+     */
+    @GetMapping("/transfers/{id}")
+    public ResponseEntity<TransferLog> getTransfer(@PathVariable long id) {
+        return asyncTransferScheduler.status(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    /**
+     * Answers from memory by default so load-balancer probes cost no database
+     * round trip. {@code ?deep=true} adds the figures that need queries.
+     */
     @GetMapping("/health")
-    public ResponseEntity<Map<String, Object>> health() {
+    public ResponseEntity<Map<String, Object>> health(@RequestParam(defaultValue = "false") boolean deep) {
         Map<String, Object> health = new HashMap<>();
         health.put("status", "UP");
 
-        if (dataSource instanceof HikariDataSource hikariDataSource) {
+        HikariDataSource hikariDataSource = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+        if (hikariDataSource != null) {
             HikariPoolMXBean poolMXBean = hikariDataSource.getHikariPoolMXBean();
             Map<String, Object> pool = new HashMap<>();
             pool.put("activeConnections", poolMXBean.getActiveConnections());
@@ -75,15 +219,104 @@ public class InventoryController {
             health.put("connectionPool", pool);
         }
 
-        health.put("totalInventory", inventoryRepository.getTotalInventoryCount());
-        health.put("completedTransfers", transferLogRepository.countCompletedTransfers());
-        health.put("failedTransfers", transferLogRepository.countFailedTransfers());
+        health.put("completedTransfers", transferMetrics.getCompleted());
+        health.put("failedTransfers", transferMetrics.getFailed());
+
+        if (deep) {
+            health.put("totalInventory", skuTotalRepository.getGrandTotal());
+            health.put("completedTransfers", transferLogRepository.countCompletedTransfers());
+            health.put("failedTransfers", transferLogRepository.countFailedTransfers());
+        }
 
         return ResponseEntity.ok(health);
     }
 
+    /**
+     * Streams every inventory row as it is read, so memory use does not depend
+     * on the table size. {@code format} selects {@code json} (a single array, the
+     * default), {@code ndjson} or {@code csv}.
+     */
     @GetMapping("/inventory")
-    public ResponseEntity<List<Inventory>> getAllInventory() {
-        return ResponseEntity.ok(inventoryRepository.findAll());
+    public ResponseEntity<StreamingResponseBody> getAllInventory(@RequestParam(defaultValue = "json") String format) {
+        return switch (format) {
+            case "ndjson" -> ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                    .body(inventoryExportService::writeNdjson);
+            case "csv" -> ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("text/csv"))
+                    .body(inventoryExportService::writeCsv);
+            default -> ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(inventoryExportService::writeJsonArray);
+        };
+    }
+
+    /**
+     * Keyset page of inventory rows ordered by id. The {@code X-Next-Cursor}
+     * header carries the {@code after} value for the next page and is absent
+     * on the last one.
+     */
+    @GetMapping(value = "/inventory", params = "limit")
+    public ResponseEntity<List<Inventory>> getInventoryPage(@RequestParam(required = false) Long after,
+                                                            @RequestParam int limit) {
+        List<Inventory> page = inventoryExportService.page(after, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == Math.min(Math.max(limit, 1), InventoryExportService.MAX_PAGE_SIZE)) {
+            response.header("X-Next-Cursor", String.valueOf(page.get(page.size() - 1).getId()));
+        }
+        return response.body(page);
+    }
+
+    /**
+     * Sets stock from CSV with {@code sku}, {@code location} and
+     * {@code quantity} columns, streamed into the database in chunks: existing
+     * locations are updated and new ones created. Invalid rows are skipped and
+     * listed in the report.
+     */
+    @PostMapping(value = "/inventory/import", consumes = "text/csv")
+    public ResponseEntity<?> importInventory(InputStream body) {
+        try {
+            return ResponseEntity.ok(bulkInventoryLoader.load(new InputStreamReader(body, StandardCharsets.UTF_8)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Committed stock changes as server-sent events, or as NDJSON with
+     * {@code format=ndjson}, optionally filtered by SKU and location. Every
+     * event carries its sequence number; a client that reconnects with it in
+     * {@code Last-Event-ID} (or {@code after}) resumes where it left off, or
+     * gets a {@code reset} event if that point is no longer retained.
+     */
+    @GetMapping("/inventory/changes")
+    public ResponseEntity<ResponseBodyEmitter> inventoryChanges(
+            @RequestParam(required = false) String sku,
+            @RequestParam(required = false) String location,
+            @RequestParam(required = false) Long after,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            @RequestParam(defaultValue = "sse") String format) {
+        if (!changeFeedService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        boolean ndjson = "ndjson".equals(format);
+        return changeFeedService.subscribe(sku, location, lastEventId != null ? lastEventId : after, ndjson)
+                .map(emitter -> ndjson
+                        ? ResponseEntity.ok().contentType(ChangeFeedService.NDJSON).body(emitter)
+                        : ResponseEntity.ok(emitter))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .build());
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<Map<String, Object>> handleKeyReused(IdempotencyKeyReusedException e) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, Object>> handleRejected(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
     }
 }
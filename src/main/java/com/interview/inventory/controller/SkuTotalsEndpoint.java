@@ -0,0 +1,33 @@
+package com.interview.inventory.controller;
+
+import com.interview.inventory.dto.SkuTotalsReport;
+import com.interview.inventory.service.SkuTotalsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/skutotals} verifies the projection against the
+ * inventory table; {@code POST /actuator/skutotals} rebuilds it.
+ */
+@Component
+@Endpoint(id = "skutotals")
+@RequiredArgsConstructor
+public class SkuTotalsEndpoint {
+
+    private final SkuTotalsService skuTotalsService;
+
+    @ReadOperation
+    public SkuTotalsReport verify() {
+        return skuTotalsService.verify();
+    }
+
+    @WriteOperation
+    public Map<String, Object> rebuild() {
+        return Map.of("skus", skuTotalsService.rebuild());
+    }
+}
@@ -0,0 +1,19 @@
+package com.interview.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferResponse {
+
+    private Integer completed;
+    private Integer failed;
+    private List<TransferResponse> results;
+}
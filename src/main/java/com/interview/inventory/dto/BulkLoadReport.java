@@ -0,0 +1,24 @@
+package com.interview.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkLoadReport {
+
+    private Long rowsRead;
+    private Long rowsLoaded;
+    private Long rowsRejected;
+    /** The first rejected rows, with their line numbers. */
+    private List<String> errors;
+    private Integer chunks;
+    private Long elapsedMillis;
+    private Long rowsPerSecond;
+}
@@ -0,0 +1,38 @@
+package com.interview.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConservationReport {
+
+    private Boolean enabled;
+    private List<Violation> violations;
+    private Integer pendingSkus;
+    private Boolean fullPassRunning;
+    private LocalDateTime lastFullPassStartedAt;
+    private LocalDateTime lastFullPassCompletedAt;
+    private Integer lastFullPassSkus;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Violation {
+        private String sku;
+        /** {@code drift}, {@code negative} and/or {@code unrecorded}. */
+        private List<String> kinds;
+        private Long baselineTotal;
+        private Long actualTotal;
+        private Integer lowestQuantity;
+        private LocalDateTime detectedAt;
+    }
+}
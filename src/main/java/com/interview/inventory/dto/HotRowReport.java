@@ -0,0 +1,31 @@
+package com.interview.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotRowReport {
+
+    private Boolean enabled;
+    private List<Location> splitLocations;
+    private List<Location> hottestLocations;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Location {
+        private String sku;
+        private String location;
+        private Integer buckets;
+        private Long quantity;
+        private Double averageWaitMillis;
+    }
+}
@@ -0,0 +1,30 @@
+package com.interview.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryChange {
+
+    public enum Type {
+        /** A location's stock after a committed transfer. */
+        CHANGE,
+        /** Events were missed; reload the inventory and continue from this sequence. */
+        RESET
+    }
+
+    private Long sequence;
+    private Type type;
+    private String sku;
+    private String location;
+    private Integer newQuantity;
+    private Long transferId;
+    private LocalDateTime publishedAt;
+}
@@ -0,0 +1,28 @@
+package com.interview.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SkuTotalsReport {
+
+    private Integer skusChecked;
+    private List<Mismatch> mismatches;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Mismatch {
+        private String sku;
+        private Long projectedTotal;
+        private Long actualTotal;
+    }
+}
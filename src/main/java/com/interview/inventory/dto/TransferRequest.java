@@ -1,5 +1,6 @@
 package com.interview.inventory.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -26,4 +27,8 @@ public class TransferRequest {
     @NotNull(message = "Quantity is required")
     @Min(value = 1, message = "Quantity must be at least 1")
     private Integer quantity;
+
+    /** Taken from the {@code Idempotency-Key} header, never from the body. */
+    @JsonIgnore
+    private String idempotencyKey;
 }
@@ -11,6 +11,13 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class TransferResponse {
 
+    /**
+     * Status of a transfer that was applied but could not be confirmed durable.
+     * It may or may not have happened; {@code GET /api/transfers/{id}} settles it
+     * once the transfer reaches {@code transfer_log}.
+     */
+    public static final String OUTCOME_UNKNOWN = "UNKNOWN";
+
     private Long transferId;
     private String sku;
     private String fromLocation;
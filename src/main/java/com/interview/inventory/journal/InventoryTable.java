@@ -0,0 +1,179 @@
+package com.interview.inventory.journal;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory stock: SKU and location names are mapped to dense int ids, and
+ * each SKU keeps its quantities in a {@code long[]} indexed by location id,
+ * with -1 marking a location the SKU has no row for. Each SKU has its own
+ * lock; ids are only ever added.
+ */
+class InventoryTable {
+
+    private static final long ABSENT = -1;
+
+    private final Map<String, Integer> skuIds = new ConcurrentHashMap<>();
+    private final Map<String, Integer> locationIds = new ConcurrentHashMap<>();
+    private volatile String[] skuNames = new String[64];
+    private volatile String[] locationNames = new String[64];
+    private volatile SkuStock[] stocks = new SkuStock[64];
+    private int skuCount;
+    private int locationCount;
+
+    Integer skuId(String sku) {
+        return skuIds.get(sku);
+    }
+
+    Integer locationId(String location) {
+        return locationIds.get(location);
+    }
+
+    String skuName(int id) {
+        return skuNames[id];
+    }
+
+    String locationName(int id) {
+        return locationNames[id];
+    }
+
+    synchronized int nextSkuId() {
+        return skuCount;
+    }
+
+    synchronized int nextLocationId() {
+        return locationCount;
+    }
+
+    /** Publishes a name under its id. Ids must be defined in order, starting at 0. */
+    synchronized void define(JournalEntry.Define define) {
+        if (define.sku()) {
+            if (define.id() != skuCount) {
+                throw new IllegalStateException("SKU id " + define.id() + " defined out of order");
+            }
+            if (skuCount == skuNames.length) {
+                skuNames = Arrays.copyOf(skuNames, skuCount * 2);
+                stocks = Arrays.copyOf(stocks, skuCount * 2);
+            }
+            skuNames[skuCount] = define.name();
+            stocks[skuCount] = new SkuStock();
+            skuCount++;
+            // The id becomes visible only after its slot exists.
+            skuIds.put(define.name(), define.id());
+        } else {
+            if (define.id() != locationCount) {
+                throw new IllegalStateException("Location id " + define.id() + " defined out of order");
+            }
+            if (locationCount == locationNames.length) {
+                locationNames = Arrays.copyOf(locationNames, locationCount * 2);
+            }
+            locationNames[locationCount++] = define.name();
+            locationIds.put(define.name(), define.id());
+        }
+    }
+
+    SkuStock stock(int skuId) {
+        return stocks[skuId];
+    }
+
+    /** Replays a transfer; used at startup only, when no other thread touches the table. */
+    void apply(JournalEntry.Transfer transfer) {
+        SkuStock stock = stocks[transfer.sku()];
+        stock.set(transfer.from(), stock.get(transfer.from()) - transfer.quantity());
+        stock.set(transfer.to(), Math.max(stock.get(transfer.to()), 0) + transfer.quantity());
+    }
+
+    /**
+     * Writes the dictionary and every quantity. The caller must keep the table
+     * from changing while this runs.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        int skus;
+        int locations;
+        synchronized (this) {
+            skus = skuCount;
+            locations = locationCount;
+        }
+        out.writeInt(skus);
+        for (int i = 0; i < skus; i++) {
+            out.writeUTF(skuNames[i]);
+        }
+        out.writeInt(locations);
+        for (int i = 0; i < locations; i++) {
+            out.writeUTF(locationNames[i]);
+        }
+        for (int sku = 0; sku < skus; sku++) {
+            long[] quantities = stocks[sku].quantities;
+            int present = 0;
+            for (long quantity : quantities) {
+                present += quantity == ABSENT ? 0 : 1;
+            }
+            out.writeInt(present);
+            for (int location = 0; location < quantities.length; location++) {
+                if (quantities[location] != ABSENT) {
+                    out.writeInt(location);
+                    out.writeLong(quantities[location]);
+                }
+            }
+        }
+    }
+
+    static InventoryTable readFrom(DataInputStream in) throws IOException {
+        InventoryTable table = new InventoryTable();
+        int skus = in.readInt();
+        for (int i = 0; i < skus; i++) {
+            table.define(new JournalEntry.Define(true, i, in.readUTF()));
+        }
+        int locations = in.readInt();
+        for (int i = 0; i < locations; i++) {
+            table.define(new JournalEntry.Define(false, i, in.readUTF()));
+        }
+        for (int sku = 0; sku < skus; sku++) {
+            int present = in.readInt();
+            for (int i = 0; i < present; i++) {
+                table.stocks[sku].set(in.readInt(), in.readLong());
+            }
+        }
+        return table;
+    }
+
+    /** Quantities of one SKU. All access must hold {@link #lock}. */
+    static final class SkuStock {
+
+        final ReentrantLock lock = new ReentrantLock();
+        private long[] quantities = new long[0];
+
+        /** Quantity at the location, or -1 if the SKU has no row there. */
+        long get(int location) {
+            return location < quantities.length ? quantities[location] : ABSENT;
+        }
+
+        void set(int location, long quantity) {
+            if (location >= quantities.length) {
+                int size = Math.max(location + 1, quantities.length * 2);
+                long[] grown = Arrays.copyOf(quantities, size);
+                Arrays.fill(grown, quantities.length, size, ABSENT);
+                quantities = grown;
+            }
+            quantities[location] = quantity;
+        }
+
+        /** Location ids that have a row, in id order. */
+        List<Integer> locations() {
+            List<Integer> present = new ArrayList<>();
+            for (int location = 0; location < quantities.length; location++) {
+                if (quantities[location] != ABSENT) {
+                    present.add(location);
+                }
+            }
+            return present;
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package com.interview.inventory.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of numbered records, stored in fixed-size memory-mapped
+ * segment files named after their first sequence number.
+ * <p>
+ * Appends only copy bytes into the mapping. One flusher thread forces
+ * everything appended since its last pass to disk, so every record written
+ * while an fsync is running shares the next one. Readers only ever see
+ * records that have been forced. If forcing fails, the journal is marked
+ * failed: the flusher stops, and waiting for durability fails at once, since
+ * it is no longer known which records reached the disk.
+ * <p>
+ * Each record is {@code [int length][int crc32c][long seq][body]}. On open,
+ * the last segment is scanned up to the first record whose length, checksum
+ * or sequence number does not follow, and appending resumes there, which
+ * discards a record torn by a crash.
+ */
+@Slf4j
+public class Journal implements AutoCloseable {
+
+    private static final int HEADER_BYTES = 16;
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private Segment active;
+    /** Written only with the append lock held. */
+    private volatile long lastSeq;
+
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durableAdvanced = durableLock.newCondition();
+    private volatile long durableSeq;
+
+    private final Thread flusher;
+    private volatile boolean running = true;
+    /** Why forcing to disk failed, or null while the journal is healthy. */
+    private volatile Throwable failure;
+
+    /**
+     * Opens the journal in {@code directory}. When it holds no records yet,
+     * numbering starts after {@code startAfterSeq}.
+     */
+    public Journal(Path directory, long segmentBytes, long startAfterSeq) {
+        if (segmentBytes < 1024 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be between 1 KB and 2 GB");
+        }
+        this.directory = directory;
+        this.segmentBytes = (int) segmentBytes;
+        try {
+            Files.createDirectories(directory);
+            recover(startAfterSeq);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open journal in " + directory, e);
+        }
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /** Appends one record and returns its sequence number. It is not durable until {@link #awaitDurable}. */
+    public long append(byte[] body) {
+        int length = HEADER_BYTES + body.length;
+        if (length > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + body.length + " bytes exceeds the segment size");
+        }
+        long seq;
+        appendLock.lock();
+        try {
+            if (active.writePosition + length > segmentBytes) {
+                roll();
+            }
+            seq = lastSeq + 1;
+            int position = active.writePosition;
+            active.buffer.putInt(position + 4, checksum(seq, body));
+            active.buffer.putLong(position + 8, seq);
+            active.buffer.put(position + HEADER_BYTES, body);
+            // Length last: a record is only recognised once it is complete.
+            active.buffer.putInt(position, body.length);
+            active.writePosition = position + length;
+            lastSeq = seq;
+        } finally {
+            appendLock.unlock();
+        }
+        LockSupport.unpark(flusher);
+        return seq;
+    }
+
+    /**
+     * Blocks until the record with sequence {@code seq} and all before it are on disk.
+     *
+     * @throws IOException if the journal failed before the record was forced
+     */
+    public void awaitDurable(long seq, Duration timeout) throws InterruptedException, TimeoutException, IOException {
+        if (durableSeq >= seq) {
+            return;
+        }
+        long remaining = timeout.toNanos();
+        durableLock.lock();
+        try {
+            while (durableSeq < seq) {
+                if (failure != null) {
+                    throw new IOException("Journal record " + seq + " may not be on disk: the journal failed", failure);
+                }
+                if (remaining <= 0) {
+                    throw new TimeoutException("Journal record " + seq + " not durable after " + timeout);
+                }
+                remaining = durableAdvanced.awaitNanos(remaining);
+            }
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    public long lastSeq() {
+        return lastSeq;
+    }
+
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    public long durableSeq() {
+        return durableSeq;
+    }
+
+    /** Oldest sequence number still held, or {@code lastSeq() + 1} when no records are held. */
+    public long firstSeq() {
+        return segments.get(0).firstSeq;
+    }
+
+    /** A reader positioned after {@code afterSeq}. It returns durable records only. */
+    public Cursor cursor(long afterSeq) {
+        return new Cursor(afterSeq);
+    }
+
+    /** Deletes whole segments whose records are all numbered {@code seq} or lower. */
+    public void truncateThrough(long seq) {
+        List<Segment> removable = new ArrayList<>();
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (segments.get(i + 1).firstSeq - 1 <= seq) {
+                removable.add(segments.get(i));
+            }
+        }
+        for (Segment segment : removable) {
+            segments.remove(segment);
+            try {
+                segment.channel.close();
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                log.warn("Could not delete journal segment {}: {}", segment.path, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure == null) {
+            flush();
+        }
+        for (Segment segment : segments) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                log.warn("Could not close journal segment {}: {}", segment.path, e.getMessage());
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                if (durableSeq < lastSeq) {
+                    flush();
+                } else {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+                }
+            } catch (RuntimeException | Error e) {
+                log.error("Journal in {} failed to force records to disk; no more records will be made durable",
+                        directory, e);
+                fail(e);
+                return;
+            }
+        }
+    }
+
+    private void fail(Throwable cause) {
+        durableLock.lock();
+        try {
+            failure = cause;
+            durableAdvanced.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    private void flush() {
+        Segment segment;
+        int end;
+        long seq;
+        appendLock.lock();
+        try {
+            segment = active;
+            end = active.writePosition;
+            seq = lastSeq;
+        } finally {
+            appendLock.unlock();
+        }
+        int start = segment.durableEnd;
+        if (end > start) {
+            segment.buffer.force(start, end - start);
+            appendLock.lock();
+            try {
+                // A roll may have sealed the segment further along meanwhile.
+                segment.durableEnd = Math.max(segment.durableEnd, end);
+            } finally {
+                appendLock.unlock();
+            }
+        }
+        publishDurable(seq);
+    }
+
+    private void publishDurable(long seq) {
+        if (seq <= durableSeq) {
+            return;
+        }
+        durableLock.lock();
+        try {
+            if (seq > durableSeq) {
+                durableSeq = seq;
+                durableAdvanced.signalAll();
+            }
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    /** Called with the append lock held: seals the active segment and starts the next one. */
+    private void roll() {
+        Segment sealed = active;
+        sealed.buffer.force();
+        sealed.durableEnd = sealed.writePosition;
+        try {
+            active = openSegment(lastSeq + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal segment", e);
+        }
+        segments.add(active);
+        sealed.sealed = true;
+        publishDurable(lastSeq);
+    }
+
+    private void recover(long startAfterSeq) throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+        long expected = -1;
+        for (Path file : files) {
+            Segment segment = openSegment(file);
+            if (expected < 0) {
+                expected = segment.firstSeq;
+            } else if (segment.firstSeq != expected) {
+                throw new IllegalStateException("Journal segment " + file + " starts at " + segment.firstSeq
+                        + " but " + expected + " was expected");
+            }
+            expected = scan(segment, expected);
+            segment.durableEnd = segment.writePosition;
+            segment.sealed = true;
+            segments.add(segment);
+        }
+
+        if (segments.isEmpty()) {
+            lastSeq = startAfterSeq;
+            active = openSegment(startAfterSeq + 1);
+            segments.add(active);
+        } else {
+            lastSeq = expected - 1;
+            active = segments.get(segments.size() - 1);
+            active.sealed = false;
+            // Clear whatever a torn write left behind the last good record.
+            for (int i = active.writePosition; i < Math.min(segmentBytes, active.writePosition + HEADER_BYTES); i++) {
+                active.buffer.put(i, (byte) 0);
+            }
+        }
+        durableSeq = lastSeq;
+        log.info("Opened journal in {} at sequence {} ({} segments)", directory, lastSeq, segments.size());
+    }
+
+    /** Walks a segment's valid records; returns the sequence number expected next. */
+    private long scan(Segment segment, long expected) {
+        int position = 0;
+        while (position + HEADER_BYTES <= segmentBytes) {
+            int length = segment.buffer.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > segmentBytes) {
+                break;
+            }
+            long seq = segment.buffer.getLong(position + 8);
+            byte[] body = new byte[length];
+            segment.buffer.get(position + HEADER_BYTES, body);
+            if (seq != expected || segment.buffer.getInt(position + 4) != checksum(seq, body)) {
+                break;
+            }
+            expected++;
+            position += HEADER_BYTES + length;
+        }
+        segment.writePosition = position;
+        return expected;
+    }
+
+    private Segment openSegment(long firstSeq) throws IOException {
+        Segment segment = openSegment(directory.resolve(String.format("%020d%s", firstSeq, SUFFIX)));
+        segment.channel.force(true);
+        return segment;
+    }
+
+    private Segment openSegment(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        long firstSeq = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        return new Segment(path, firstSeq, channel, buffer);
+    }
+
+    private static int checksum(long seq, byte[] body) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, seq));
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private static final class Segment {
+
+        private final Path path;
+        private final long firstSeq;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+        private volatile int durableEnd;
+        private volatile boolean sealed;
+
+        Segment(Path path, long firstSeq, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.firstSeq = firstSeq;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    /** Single-threaded reader over durable records. */
+    public final class Cursor {
+
+        private long nextSeq;
+        private Segment segment;
+        private int position;
+
+        private Cursor(long afterSeq) {
+            this.nextSeq = afterSeq + 1;
+        }
+
+        /**
+         * Hands up to {@code max} durable records after the cursor's position to
+         * {@code sink}, as sequence number and body, and returns how many it handed over.
+         */
+        public int poll(int max, BiConsumer<Long, ByteBuffer> sink) {
+            int delivered = 0;
+            while (delivered < max) {
+                if (segment == null && !seek()) {
+                    return delivered;
+                }
+                if (position >= segment.durableEnd) {
+                    if (segment.sealed && next()) {
+                        continue;
+                    }
+                    return delivered;
+                }
+                int length = segment.buffer.getInt(position);
+                long seq = segment.buffer.getLong(position + 8);
+                if (seq >= nextSeq) {
+                    sink.accept(seq, segment.buffer.slice(position + HEADER_BYTES, length).asReadOnlyBuffer());
+                    nextSeq = seq + 1;
+                    delivered++;
+                }
+                position += HEADER_BYTES + length;
+            }
+            return delivered;
+        }
+
+        /** Positions on the last segment that starts at or before the next wanted record. */
+        private boolean seek() {
+            Segment found = null;
+            for (Segment candidate : segments) {
+                if (candidate.firstSeq <= nextSeq) {
+                    found = candidate;
+                }
+            }
+            if (found == null) {
+                return false;
+            }
+            segment = found;
+            position = 0;
+            return true;
+        }
+
+        private boolean next() {
+            int index = segments.indexOf(segment);
+            if (index < 0) {
+                segment = null;
+                return seek();
+            }
+            if (index + 1 >= segments.size()) {
+                return false;
+            }
+            segment = segments.get(index + 1);
+            position = 0;
+            return true;
+        }
+    }
+}
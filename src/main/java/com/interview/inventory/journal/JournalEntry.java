@@ -0,0 +1,80 @@
+package com.interview.inventory.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Records written to the inventory journal. SKUs and locations are journaled
+ * once as a {@link Define} that assigns them a dense int id; transfers then
+ * refer to them by id only.
+ */
+public sealed interface JournalEntry permits JournalEntry.Define, JournalEntry.Transfer {
+
+    byte DEFINE_SKU = 1;
+    byte DEFINE_LOCATION = 2;
+    byte TRANSFER = 3;
+
+    byte[] encode();
+
+    static JournalEntry decode(ByteBuffer body) {
+        byte type = body.get(0);
+        return switch (type) {
+            case DEFINE_SKU, DEFINE_LOCATION -> {
+                byte[] name = new byte[body.remaining() - 5];
+                body.get(5, name);
+                yield new Define(type == DEFINE_SKU, body.getInt(1), new String(name, StandardCharsets.UTF_8));
+            }
+            case TRANSFER -> {
+                String idempotencyKey = null;
+                if (body.remaining() > Transfer.FIXED_BYTES) {
+                    byte[] key = new byte[body.getShort(Transfer.FIXED_BYTES)];
+                    body.get(Transfer.FIXED_BYTES + 2, key);
+                    idempotencyKey = new String(key, StandardCharsets.UTF_8);
+                }
+                yield new Transfer(body.getLong(1), body.getInt(9), body.getInt(13), body.getInt(17),
+                        body.getInt(21), body.getLong(25), idempotencyKey);
+            }
+            default -> throw new IllegalStateException("Unknown journal record type " + type);
+        };
+    }
+
+    record Define(boolean sku, int id, String name) implements JournalEntry {
+
+        @Override
+        public byte[] encode() {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            return ByteBuffer.allocate(5 + bytes.length)
+                    .put(sku ? DEFINE_SKU : DEFINE_LOCATION)
+                    .putInt(id)
+                    .put(bytes)
+                    .array();
+        }
+    }
+
+    /**
+     * A completed transfer. {@code createdAt} is epoch milliseconds of the local
+     * time it was applied. The idempotency key, if any, follows the fixed fields.
+     */
+    record Transfer(long transferId, int sku, int from, int to, int quantity, long createdAt,
+                    String idempotencyKey) implements JournalEntry {
+
+        static final int FIXED_BYTES = 33;
+
+        @Override
+        public byte[] encode() {
+            byte[] key = idempotencyKey == null ? null : idempotencyKey.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocate(FIXED_BYTES + (key == null ? 0 : 2 + key.length))
+                    .put(TRANSFER)
+                    .putLong(transferId)
+                    .putInt(sku)
+                    .putInt(from)
+                    .putInt(to)
+                    .putInt(quantity)
+                    .putLong(createdAt);
+            if (key != null) {
+                buffer.putShort((short) key.length).put(key);
+            }
+            return buffer.array();
+        }
+    }
+}
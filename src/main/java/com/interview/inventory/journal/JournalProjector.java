@@ -0,0 +1,164 @@
+package com.interview.inventory.journal;
+
+import com.interview.inventory.model.TransferLog;
+import com.interview.inventory.repository.JournalCheckpointRepository;
+import com.interview.inventory.service.HotRowService;
+import com.interview.inventory.service.InventoryChangedEvent;
+import com.interview.inventory.service.TransferLogAppender;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies durable journal records to the {@code inventory} and
+ * {@code transfer_log} tables. Each batch nets its transfers per location,
+ * writes one statement per changed location plus one multi-row INSERT for the
+ * log rows, and advances {@code journal_checkpoint} in the same transaction.
+ * A log row whose idempotency key is already stored keeps the row but drops
+ * the key, so a duplicate cannot hold the batch back. A batch that fails is
+ * retried from the checkpoint. Once a batch commits,
+ * an {@link InventoryChangedEvent} names the locations it changed.
+ */
+@Slf4j
+class JournalProjector {
+
+    private final Journal journal;
+    private final InventoryTable table;
+    private final HotRowService hotRows;
+    private final TransferLogAppender transferLogAppender;
+    private final JournalCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final Duration idleDelay;
+    private final Thread worker;
+
+    private volatile long appliedSeq;
+    private volatile boolean running = true;
+    private Journal.Cursor cursor;
+
+    JournalProjector(Journal journal, InventoryTable table, long appliedSeq, HotRowService hotRows,
+                     TransferLogAppender transferLogAppender, JournalCheckpointRepository checkpointRepository,
+                     TransactionTemplate transactionTemplate, ApplicationEventPublisher eventPublisher,
+                     int batchSize, Duration idleDelay) {
+        this.journal = journal;
+        this.table = table;
+        this.appliedSeq = appliedSeq;
+        this.hotRows = hotRows;
+        this.transferLogAppender = transferLogAppender;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.idleDelay = idleDelay;
+        this.cursor = journal.cursor(appliedSeq);
+        this.worker = new Thread(this::run, "journal-projector");
+    }
+
+    void start() {
+        worker.start();
+    }
+
+    long appliedSeq() {
+        return appliedSeq;
+    }
+
+    /** Stops once everything durable at the time of the call has been applied, or the timeout passes. */
+    void stop(Duration timeout) throws InterruptedException {
+        long target = journal.durableSeq();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (appliedSeq < target && System.nanoTime() < deadline && worker.isAlive()) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        running = false;
+        worker.join(timeout.toMillis());
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (!applyNextBatch()) {
+                    TimeUnit.NANOSECONDS.sleep(idleDelay.toNanos());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Journal projection failed after sequence {}, retrying", appliedSeq, e);
+                cursor = journal.cursor(appliedSeq);
+                try {
+                    TimeUnit.SECONDS.sleep(1);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean applyNextBatch() {
+        Map<Long, Long> deltas = new LinkedHashMap<>();
+        List<TransferLog> transferLogs = new ArrayList<>();
+        long[] lastSeq = {appliedSeq};
+        int records = cursor.poll(batchSize, (seq, body) -> {
+            lastSeq[0] = seq;
+            if (JournalEntry.decode(body) instanceof JournalEntry.Transfer transfer) {
+                deltas.merge(key(transfer.sku(), transfer.from()), (long) -transfer.quantity(), Long::sum);
+                deltas.merge(key(transfer.sku(), transfer.to()), (long) transfer.quantity(), Long::sum);
+                transferLogs.add(toTransferLog(transfer));
+            }
+        });
+        if (records == 0) {
+            return false;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            deltas.forEach((key, delta) -> applyDelta(table.skuName((int) (key >>> 32)), table.locationName((int) (long) key), delta));
+            if (!transferLogs.isEmpty()) {
+                transferLogAppender.writeWithoutKeyConflicts(transferLogs);
+            }
+            checkpointRepository.advance(lastSeq[0]);
+        });
+        appliedSeq = lastSeq[0];
+        if (!transferLogs.isEmpty()) {
+            eventPublisher.publishEvent(InventoryChangedEvent.of(transferLogs));
+        }
+        return true;
+    }
+
+    private void applyDelta(String sku, String location, long delta) {
+        if (delta > 0) {
+            hotRows.credit(sku, location, Math.toIntExact(delta));
+        } else if (delta < 0 && !hotRows.debit(sku, location, Math.toIntExact(-delta))) {
+            throw new IllegalStateException("Database holds less " + sku + " at " + location
+                    + " than the journal moved out; was it changed outside the journal engine?");
+        }
+    }
+
+    private TransferLog toTransferLog(JournalEntry.Transfer transfer) {
+        return TransferLog.builder()
+                .id(transfer.transferId())
+                .sku(table.skuName(transfer.sku()))
+                .fromLocation(table.locationName(transfer.from()))
+                .toLocation(table.locationName(transfer.to()))
+                .quantity(transfer.quantity())
+                .status(TransferLog.TransferStatus.COMPLETED)
+                .idempotencyKey(transfer.idempotencyKey())
+                .createdAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(transfer.createdAt()), ZoneOffset.UTC))
+                .build();
+    }
+
+    private static long key(int sku, int location) {
+        return ((long) sku << 32) | (location & 0xFFFFFFFFL);
+    }
+}
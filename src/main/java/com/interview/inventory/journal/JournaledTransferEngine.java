@@ -0,0 +1,526 @@
+package com.interview.inventory.journal;
+
+import com.interview.inventory.config.TransferProperties;
+import com.interview.inventory.dto.InventoryResponse;
+import com.interview.inventory.dto.TransferRequest;
+import com.interview.inventory.dto.TransferResponse;
+import com.interview.inventory.model.JournalCheckpoint;
+import com.interview.inventory.model.TransferLog;
+import com.interview.inventory.repository.InventoryRepository;
+import com.interview.inventory.repository.JournalCheckpointRepository;
+import com.interview.inventory.service.HotRowService;
+import com.interview.inventory.service.InventoryChangedEvent;
+import com.interview.inventory.service.TransferLogAppender;
+import com.interview.inventory.service.TransferMetrics;
+import com.interview.inventory.service.TransferRejectedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Transfer engine that keeps the authoritative stock in memory
+ * ({@link InventoryTable}) and makes each transfer durable by appending it to
+ * a local {@link Journal}. The {@code inventory} and {@code transfer_log}
+ * tables become a projection that {@link JournalProjector} keeps up to date
+ * in the background, so a transfer never waits for the database.
+ * <p>
+ * A transfer is applied under its SKU's lock, appended to the journal before
+ * the lock is released, and acknowledged once the journal has forced it to
+ * disk. Rejected transfers change nothing, so they are not journaled; their
+ * FAILED rows go through {@link TransferLogAppender}. A transfer that cannot
+ * be confirmed in time is answered as {@link TransferResponse#OUTCOME_UNKNOWN}
+ * rather than undone: its record is already in the mapped segment and may
+ * still reach the disk. If the journal fails outright, the engine stops
+ * taking transfers.
+ * <p>
+ * Until the projector has written a transfer's log row, its idempotency key
+ * is only in the journal, so the engine remembers the keys it journaled and
+ * answers a repeat with the original transfer instead of applying it again.
+ * <p>
+ * On startup the state is read from the checkpoint file and the journal is
+ * replayed from there. With no journal yet, the state is loaded from the
+ * database and checkpointed at once. Every {@code checkpoint-interval} a new
+ * checkpoint is written and journal segments that both the checkpoint and the
+ * projection have passed are deleted.
+ */
+@Component
+@ConditionalOnProperty(prefix = "inventory.transfer", name = "engine", havingValue = "journal")
+@Slf4j
+public class JournaledTransferEngine {
+
+    private static final String CHECKPOINT_FILE = "checkpoint.bin";
+    private static final int CHECKPOINT_MAGIC = 0x494E5643;
+
+    private final TransferProperties.Journal settings;
+    private final InventoryRepository inventoryRepository;
+    private final JournalCheckpointRepository checkpointRepository;
+    private final HotRowService hotRows;
+    private final TransferLogAppender transferLogAppender;
+    private final TransferMetrics transferMetrics;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Path directory;
+
+    /** Transfers share it; a checkpoint takes it exclusively to copy a consistent state. */
+    private final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    /** Idempotency keys of journaled transfers whose log rows may not be projected yet. */
+    private final Map<String, Journaled> unprojectedKeys = new ConcurrentHashMap<>();
+
+    private volatile InventoryTable table;
+    private volatile Journal journal;
+    private volatile JournalProjector projector;
+    private volatile boolean ready;
+    private ScheduledExecutorService checkpoints;
+
+    public JournaledTransferEngine(TransferProperties transferProperties,
+                                   InventoryRepository inventoryRepository,
+                                   JournalCheckpointRepository checkpointRepository,
+                                   HotRowService hotRows,
+                                   TransferLogAppender transferLogAppender,
+                                   TransferMetrics transferMetrics,
+                                   ApplicationEventPublisher eventPublisher,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry) {
+        this.settings = transferProperties.getJournal();
+        this.inventoryRepository = inventoryRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.hotRows = hotRows;
+        this.transferLogAppender = transferLogAppender;
+        this.transferMetrics = transferMetrics;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.directory = Paths.get(settings.getDirectory());
+
+        Gauge.builder("inventory.journal.projection.lag", this, JournaledTransferEngine::projectionLag)
+                .description("Durable journal records not yet applied to the database")
+                .register(meterRegistry);
+    }
+
+    /** Runs after the seeders, so a first start loads the seeded rows. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long appliedSeq = checkpointRepository.findById(JournalCheckpoint.ID)
+                .orElseGet(() -> checkpointRepository.save(
+                        JournalCheckpoint.builder().id(JournalCheckpoint.ID).appliedSeq(0L).build()))
+                .getAppliedSeq();
+        Path checkpointFile = directory.resolve(CHECKPOINT_FILE);
+
+        journal = new Journal(directory, settings.getSegmentSize().toBytes(), appliedSeq);
+        if (journal.firstSeq() > appliedSeq + 1) {
+            throw new IllegalStateException("Database has applied the journal up to " + appliedSeq
+                    + " but the journal in " + directory + " starts at " + journal.firstSeq());
+        }
+        if (journal.lastSeq() == appliedSeq && journal.firstSeq() > appliedSeq) {
+            // Nothing journaled beyond what the database holds: start from the database.
+            table = loadFromDatabase();
+            writeCheckpoint(appliedSeq);
+        } else {
+            if (!Files.exists(checkpointFile)) {
+                throw new IllegalStateException("Journal in " + directory + " has records but no checkpoint");
+            }
+            long checkpointSeq = readCheckpoint(checkpointFile);
+            if (journal.firstSeq() > checkpointSeq + 1) {
+                throw new IllegalStateException("Journal starts at " + journal.firstSeq()
+                        + " but the checkpoint needs records after " + checkpointSeq);
+            }
+            int replayed = replay(checkpointSeq);
+            log.info("Recovered journal state: checkpoint at {}, replayed {} records", checkpointSeq, replayed);
+        }
+        rememberUnprojectedKeys(appliedSeq);
+
+        projector = new JournalProjector(journal, table, appliedSeq, hotRows, transferLogAppender,
+                checkpointRepository, transactionTemplate, eventPublisher, settings.getProjectionBatchSize(),
+                settings.getProjectionIdleDelay());
+        projector.start();
+
+        checkpoints = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "journal-checkpoint"));
+        long interval = settings.getCheckpointInterval().toMillis();
+        checkpoints.scheduleWithFixedDelay(this::checkpoint, interval, interval, TimeUnit.MILLISECONDS);
+        ready = true;
+        log.info("Journal engine ready at sequence {}", journal.lastSeq());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!ready) {
+            return;
+        }
+        ready = false;
+        checkpoints.shutdown();
+        checkpoints.awaitTermination(30, TimeUnit.SECONDS);
+        projector.stop(settings.getAckTimeout());
+        checkpoint();
+        journal.close();
+    }
+
+    public TransferResponse transfer(TransferRequest request) {
+        if (ready && journal.isFailed()) {
+            ready = false;
+        }
+        if (!ready) {
+            throw new RejectedExecutionException("Journal engine is not running");
+        }
+        Journaled earlier = request.getIdempotencyKey() == null ? null : unprojectedKeys.get(request.getIdempotencyKey());
+        if (earlier != null) {
+            return earlier.seq() <= journal.durableSeq()
+                    ? earlier.response()
+                    : outcomeUnknown(request, earlier.response().getTransferId(), "Journal record " + earlier.seq()
+                            + " is not confirmed on disk yet");
+        }
+        long transferId = transferLogAppender.nextId();
+        LocalDateTime createdAt = LocalDateTime.now();
+
+        long seq;
+        checkpointLock.readLock().lock();
+        try {
+            seq = apply(request, transferId, createdAt);
+        } catch (TransferRejectedException e) {
+            return recordFailed(request, transferId, createdAt, e);
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+
+        try {
+            journal.awaitDurable(seq, settings.getAckTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return outcomeUnknown(request, transferId, "Interrupted while waiting for journal record " + seq);
+        } catch (TimeoutException e) {
+            return outcomeUnknown(request, transferId, e.getMessage());
+        } catch (IOException e) {
+            ready = false;
+            log.error("Journal engine stopped taking transfers: {}", e.getMessage());
+            return outcomeUnknown(request, transferId, e.getMessage());
+        }
+
+        eventPublisher.publishEvent(new InventoryChangedEvent(Set.of(request.getSku())));
+        transferMetrics.recordCompleted(1);
+        return completed(request, transferId);
+    }
+
+    /** The SKU's stock as held in memory, which may be ahead of the database. */
+    public Optional<InventoryResponse> inventory(String sku) {
+        InventoryTable current = table;
+        Integer skuId = current == null ? null : current.skuId(sku);
+        if (skuId == null) {
+            return Optional.empty();
+        }
+        InventoryTable.SkuStock stock = current.stock(skuId);
+        List<InventoryResponse.LocationStock> locations = new ArrayList<>();
+        stock.lock.lock();
+        try {
+            for (int location : stock.locations()) {
+                locations.add(InventoryResponse.LocationStock.builder()
+                        .location(current.locationName(location))
+                        .quantity((int) stock.get(location))
+                        .build());
+            }
+        } finally {
+            stock.lock.unlock();
+        }
+        if (locations.isEmpty()) {
+            return Optional.empty();
+        }
+        locations.sort(Comparator.comparing(InventoryResponse.LocationStock::getLocation));
+        return Optional.of(InventoryResponse.builder()
+                .sku(sku)
+                .totalQuantity(locations.stream().mapToInt(InventoryResponse.LocationStock::getQuantity).sum())
+                .locations(locations)
+                .build());
+    }
+
+    public long appliedSeq() {
+        return projector == null ? 0 : projector.appliedSeq();
+    }
+
+    public long durableSeq() {
+        return journal == null ? 0 : journal.durableSeq();
+    }
+
+    private long apply(TransferRequest request, long transferId, LocalDateTime createdAt) {
+        if (request.getQuantity() <= 0) {
+            throw TransferRejectedException.invalidQuantity();
+        }
+        Integer skuId = table.skuId(request.getSku());
+        Integer fromId = table.locationId(request.getFromLocation());
+        if (skuId == null || fromId == null) {
+            throw TransferRejectedException.sourceNotFound(request.getSku(), request.getFromLocation());
+        }
+
+        InventoryTable.SkuStock stock = table.stock(skuId);
+        stock.lock.lock();
+        try {
+            long available = stock.get(fromId);
+            if (available < 0) {
+                throw TransferRejectedException.sourceNotFound(request.getSku(), request.getFromLocation());
+            }
+            if (available < request.getQuantity()) {
+                throw TransferRejectedException.insufficientStock((int) available, request.getQuantity());
+            }
+            int toId = locationId(request.getToLocation());
+
+            // Appended while the SKU is locked, so its records are in the order they were applied.
+            long seq = journal.append(new JournalEntry.Transfer(transferId, skuId, fromId, toId,
+                    request.getQuantity(), createdAt.toInstant(ZoneOffset.UTC).toEpochMilli(),
+                    request.getIdempotencyKey()).encode());
+            stock.set(fromId, available - request.getQuantity());
+            stock.set(toId, Math.max(stock.get(toId), 0) + request.getQuantity());
+            if (request.getIdempotencyKey() != null) {
+                unprojectedKeys.put(request.getIdempotencyKey(), new Journaled(seq, completed(request, transferId)));
+            }
+            return seq;
+        } finally {
+            stock.lock.unlock();
+        }
+    }
+
+    /** Id of a location, journaling it first if it is new. */
+    private int locationId(String location) {
+        Integer id = table.locationId(location);
+        if (id != null) {
+            return id;
+        }
+        synchronized (table) {
+            id = table.locationId(location);
+            if (id == null) {
+                JournalEntry.Define define = new JournalEntry.Define(false, table.nextLocationId(), location);
+                journal.append(define.encode());
+                table.define(define);
+                id = define.id();
+            }
+            return id;
+        }
+    }
+
+    private static TransferResponse completed(TransferRequest request, long transferId) {
+        return TransferResponse.builder()
+                .transferId(transferId)
+                .sku(request.getSku())
+                .fromLocation(request.getFromLocation())
+                .toLocation(request.getToLocation())
+                .quantity(request.getQuantity())
+                .status("COMPLETED")
+                .message("Transfer completed successfully")
+                .build();
+    }
+
+    /** Applied in memory and handed to the journal, but not confirmed on disk. */
+    private static TransferResponse outcomeUnknown(TransferRequest request, long transferId, String reason) {
+        return TransferResponse.builder()
+                .transferId(transferId)
+                .sku(request.getSku())
+                .fromLocation(request.getFromLocation())
+                .toLocation(request.getToLocation())
+                .quantity(request.getQuantity())
+                .status(TransferResponse.OUTCOME_UNKNOWN)
+                .message(reason)
+                .build();
+    }
+
+    private TransferResponse recordFailed(TransferRequest request, long transferId, LocalDateTime createdAt,
+                                          TransferRejectedException rejected) {
+        transferLogAppender.append(TransferLog.builder()
+                .id(transferId)
+                .sku(request.getSku())
+                .fromLocation(request.getFromLocation())
+                .toLocation(request.getToLocation())
+                .quantity(request.getQuantity())
+                .status(TransferLog.TransferStatus.FAILED)
+                .errorMessage(rejected.getMessage())
+                .idempotencyKey(request.getIdempotencyKey())
+                .createdAt(createdAt)
+                .build());
+        transferMetrics.recordFailed(rejected);
+        return TransferResponse.builder()
+                .transferId(transferId)
+                .sku(request.getSku())
+                .fromLocation(request.getFromLocation())
+                .toLocation(request.getToLocation())
+                .quantity(request.getQuantity())
+                .status("FAILED")
+                .message(rejected.getMessage())
+                .build();
+    }
+
+    private InventoryTable loadFromDatabase() {
+        InventoryTable loaded = new InventoryTable();
+        Map<String, Integer> locations = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<HotRowService.Key, Long> inBuckets = hotRows.bucketTotals();
+            inventoryRepository.streamAllOrderById().forEach(inventory -> {
+                Integer skuId = loaded.skuId(inventory.getSku());
+                if (skuId == null) {
+                    skuId = loaded.nextSkuId();
+                    loaded.define(new JournalEntry.Define(true, skuId, inventory.getSku()));
+                }
+                int locationId = locations.computeIfAbsent(inventory.getLocation(), name -> {
+                    int id = loaded.nextLocationId();
+                    loaded.define(new JournalEntry.Define(false, id, name));
+                    return id;
+                });
+                long quantity = inventory.getQuantity()
+                        + inBuckets.getOrDefault(new HotRowService.Key(inventory.getSku(), inventory.getLocation()), 0L);
+                loaded.stock(skuId).set(locationId, quantity);
+            });
+        });
+        log.info("Loaded journal engine state from the database");
+        return loaded;
+    }
+
+    private int replay(long afterSeq) {
+        int[] replayed = {0};
+        Journal.Cursor cursor = journal.cursor(afterSeq);
+        while (cursor.poll(10_000, (seq, body) -> {
+            JournalEntry entry = JournalEntry.decode(body);
+            if (entry instanceof JournalEntry.Define define) {
+                table.define(define);
+            } else if (entry instanceof JournalEntry.Transfer transfer) {
+                table.apply(transfer);
+            }
+            replayed[0]++;
+        }) > 0) {
+            // keep reading
+        }
+        return replayed[0];
+    }
+
+    /** Collects the idempotency keys of journaled transfers the database has not applied yet. */
+    private void rememberUnprojectedKeys(long appliedSeq) {
+        Journal.Cursor cursor = journal.cursor(appliedSeq);
+        while (cursor.poll(10_000, (seq, body) -> {
+            if (JournalEntry.decode(body) instanceof JournalEntry.Transfer transfer && transfer.idempotencyKey() != null) {
+                unprojectedKeys.put(transfer.idempotencyKey(), new Journaled(seq, completed(TransferRequest.builder()
+                        .sku(table.skuName(transfer.sku()))
+                        .fromLocation(table.locationName(transfer.from()))
+                        .toLocation(table.locationName(transfer.to()))
+                        .quantity(transfer.quantity())
+                        .build(), transfer.transferId())));
+            }
+        }) > 0) {
+            // keep reading
+        }
+    }
+
+    /**
+     * Writes the state to the checkpoint file. Transfers pause only while the
+     * table is serialized to memory; the file is written after they resume.
+     */
+    private void checkpoint() {
+        try {
+            long seq;
+            byte[] state;
+            checkpointLock.writeLock().lock();
+            try {
+                seq = journal.lastSeq();
+                state = serialize(seq);
+            } finally {
+                checkpointLock.writeLock().unlock();
+            }
+            // The checkpoint must not hold anything the journal could still lose.
+            journal.awaitDurable(seq, settings.getAckTimeout());
+            writeFile(state);
+            long projected = projector.appliedSeq();
+            journal.truncateThrough(Math.min(seq, projected));
+            // Their log rows are in the database now, where the idempotency lookup finds them.
+            unprojectedKeys.values().removeIf(journaled -> journaled.seq() <= projected);
+            log.debug("Wrote journal checkpoint at sequence {}", seq);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | TimeoutException | RuntimeException e) {
+            log.error("Journal checkpoint failed", e);
+        }
+    }
+
+    private void writeCheckpoint(long seq) {
+        try {
+            writeFile(serialize(seq));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write journal checkpoint", e);
+        }
+    }
+
+    private byte[] serialize(long seq) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeLong(seq);
+            table.writeTo(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Written beside the old checkpoint, forced, then renamed over it. */
+    private void writeFile(byte[] state) throws IOException {
+        Path temporary = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel))) {
+            out.write(state);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private long readCheckpoint(Path file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != CHECKPOINT_MAGIC) {
+                throw new IllegalStateException(file + " is not a journal checkpoint");
+            }
+            long seq = in.readLong();
+            table = InventoryTable.readFrom(in);
+            return seq;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read journal checkpoint " + file, e);
+        }
+    }
+
+    private double projectionLag() {
+        return ready ? journal.durableSeq() - projector.appliedSeq() : 0;
+    }
+
+    /** A journaled transfer and the response its idempotency key replays. */
+    private record Journaled(long seq, TransferResponse response) {
+    }
+}
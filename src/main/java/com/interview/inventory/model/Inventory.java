@@ -5,12 +5,13 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "inventory", uniqueConstraints = {
-    @UniqueConstraint(columnNames = {"sku", "location"})
+    @UniqueConstraint(name = "uk_inventory_sku_location", columnNames = {"sku", "location"})
 })
 @Data
 @Builder
@@ -19,7 +20,8 @@ import java.time.LocalDateTime;
 public class Inventory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_seq")
+    @SequenceGenerator(name = "inventory_seq", sequenceName = "inventory_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 50)
@@ -31,6 +33,16 @@ public class Inventory {
     @Column(nullable = false)
     private Integer quantity;
 
+    /**
+     * How many {@code inventory_bucket} rows the location is split into, 0 if
+     * it is not split. Only changed while the row is locked, and with a version
+     * bump, so whoever holds or reads the row sees whether to use the buckets.
+     */
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private int buckets = 0;
+
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
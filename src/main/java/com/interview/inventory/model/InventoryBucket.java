@@ -0,0 +1,55 @@
+package com.interview.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One shard of a hot {@code (sku, location)}. While a key is split, its stock
+ * lives in {@code buckets} rows here and its {@link Inventory} row normally
+ * holds zero. The quantity at the location is always the inventory row plus
+ * all of its buckets.
+ */
+@Entity
+@Table(name = "inventory_bucket", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"sku", "location", "bucket"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_bucket_seq")
+    @SequenceGenerator(name = "inventory_bucket_seq", sequenceName = "inventory_bucket_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, length = 50)
+    private String sku;
+
+    @Column(nullable = false, length = 50)
+    private String location;
+
+    @Column(nullable = false)
+    private Integer bucket;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Version
+    private Long version;
+
+    @PrePersist
+    @PreUpdate
+    public void updateTimestamp() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
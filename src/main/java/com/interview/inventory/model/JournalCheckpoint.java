@@ -0,0 +1,40 @@
+package com.interview.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The last journal record applied to the database by the journal engine's
+ * projector. It is updated in the same transaction as the rows it applied,
+ * so every record is applied exactly once. The table holds a single row.
+ */
+@Entity
+@Table(name = "journal_checkpoint")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalCheckpoint {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "applied_seq", nullable = false)
+    private Long appliedSeq;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    public void updateTimestamp() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,41 @@
+package com.interview.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of the total stock held for a SKU across all locations.
+ * <p>
+ * Transfers only move stock between locations, so they never change a row
+ * here. Only code that adds or removes stock (seeding, imports) writes this
+ * table, and it does so in the same transaction as the inventory change.
+ */
+@Entity
+@Table(name = "sku_totals")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SkuTotal {
+
+    @Id
+    @Column(length = 50)
+    private String sku;
+
+    @Column(name = "total_quantity", nullable = false)
+    private Long totalQuantity;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    public void updateTimestamp() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -9,7 +9,13 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transfer_log")
+@Table(name = "transfer_log", indexes = {
+    @Index(name = "idx_transfer_log_created", columnList = "created_at, id"),
+    @Index(name = "idx_transfer_log_sku_created", columnList = "sku, created_at, id"),
+    @Index(name = "idx_transfer_log_status_created", columnList = "status, created_at, id"),
+    @Index(name = "idx_transfer_log_queued", columnList = "status, priority, id"),
+    @Index(name = "uk_transfer_log_idempotency_key", columnList = "idempotency_key", unique = true)
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -17,7 +23,8 @@ import java.time.LocalDateTime;
 public class TransferLog {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transfer_log_seq")
+    @SequenceGenerator(name = "transfer_log_seq", sequenceName = "transfer_log_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 50)
@@ -39,6 +46,15 @@ public class TransferLog {
     @Column(name = "error_message")
     private String errorMessage;
 
+    /** Client-supplied key from the {@code Idempotency-Key} header; unique when present. */
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
+    /** Scheduling class of a transfer queued through {@code POST /api/transfers/async}; null for the rest. */
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private Priority priority;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
@@ -52,4 +68,11 @@ public class TransferLog {
         COMPLETED,
         FAILED
     }
+
+    /** Highest first: queued transfers are started in this order. */
+    public enum Priority {
+        URGENT,
+        NORMAL,
+        BULK
+    }
 }
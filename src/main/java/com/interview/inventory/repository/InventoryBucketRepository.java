@@ -0,0 +1,83 @@
+package com.interview.inventory.repository;
+
+import com.interview.inventory.model.InventoryBucket;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InventoryBucketRepository extends JpaRepository<InventoryBucket, Long> {
+
+    /** Locks all buckets of a key in bucket order. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM InventoryBucket b WHERE b.sku = :sku AND b.location = :location ORDER BY b.bucket")
+    List<InventoryBucket> findAllForUpdate(@Param("sku") String sku, @Param("location") String location);
+
+    /** Takes stock from one bucket if it holds enough; returns the number of rows changed. */
+    @Modifying
+    @Query("""
+            UPDATE InventoryBucket b
+               SET b.quantity = b.quantity - :qty, b.version = b.version + 1, b.updatedAt = LOCAL DATETIME
+             WHERE b.sku = :sku AND b.location = :location AND b.bucket = :bucket AND b.quantity >= :qty
+            """)
+    int debit(@Param("sku") String sku, @Param("location") String location,
+              @Param("bucket") int bucket, @Param("qty") int quantity);
+
+    @Modifying
+    @Query("""
+            UPDATE InventoryBucket b
+               SET b.quantity = b.quantity + :qty, b.version = b.version + 1, b.updatedAt = LOCAL DATETIME
+             WHERE b.sku = :sku AND b.location = :location AND b.bucket = :bucket
+            """)
+    int credit(@Param("sku") String sku, @Param("location") String location,
+               @Param("bucket") int bucket, @Param("qty") int quantity);
+
+    /** Current bucket quantities, fullest first, read from the database rather than from loaded entities. */
+    @Query("""
+            SELECT b.bucket AS bucket, b.quantity AS quantity
+              FROM InventoryBucket b
+             WHERE b.sku = :sku AND b.location = :location
+             ORDER BY b.quantity DESC
+            """)
+    List<BucketQuantity> findQuantities(@Param("sku") String sku, @Param("location") String location);
+
+    @Query("""
+            SELECT b.sku AS sku, b.location AS location, COUNT(b) AS buckets, SUM(b.quantity) AS total
+              FROM InventoryBucket b
+             GROUP BY b.sku, b.location
+            """)
+    List<SplitKey> summarizeSplitKeys();
+
+    @Query("""
+            SELECT b.sku AS sku, b.location AS location, COUNT(b) AS buckets, SUM(b.quantity) AS total
+              FROM InventoryBucket b
+             WHERE b.sku = :sku
+             GROUP BY b.sku, b.location
+            """)
+    List<SplitKey> summarizeSplitKeys(@Param("sku") String sku);
+
+    @Query("SELECT b.sku AS sku, SUM(b.quantity) AS total FROM InventoryBucket b GROUP BY b.sku")
+    List<InventoryRepository.SkuQuantity> sumQuantityBySku();
+
+    interface BucketQuantity {
+        Integer getBucket();
+
+        Integer getQuantity();
+    }
+
+    interface SplitKey {
+        String getSku();
+
+        String getLocation();
+
+        Long getBuckets();
+
+        Long getTotal();
+    }
+}
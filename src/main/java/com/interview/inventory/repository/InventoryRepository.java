@@ -1,24 +1,91 @@
 package com.interview.inventory.repository;
 
 import com.interview.inventory.model.Inventory;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface InventoryRepository extends JpaRepository<Inventory, Long> {
+public interface InventoryRepository extends JpaRepository<Inventory, Long>, InventoryRepositoryCustom {
 
     Optional<Inventory> findBySkuAndLocation(String sku, String location);
 
     List<Inventory> findBySku(String sku);
 
-    @Query("SELECT SUM(i.quantity) FROM Inventory i WHERE i.sku = :sku")
+    /** Reads the current quantity from the database, bypassing any entity already loaded. */
+    @Query("SELECT i.quantity FROM Inventory i WHERE i.sku = :sku AND i.location = :location")
+    Optional<Integer> findQuantity(@Param("sku") String sku, @Param("location") String location);
+
+    /** Like {@link #findQuantity}, plus the row's bucket count. */
+    @Query("SELECT i.quantity AS quantity, i.buckets AS buckets FROM Inventory i WHERE i.sku = :sku AND i.location = :location")
+    Optional<RowState> findRowState(@Param("sku") String sku, @Param("location") String location);
+
+    /**
+     * Locks every row in the given SKU x location grid. Rows come back, and are
+     * therefore locked, in {@code (sku, location)} order, which gives concurrent
+     * callers a single global lock order. Callers that need some pairs but not
+     * the whole grid use {@link #lockAll} instead.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.sku IN :skus AND i.location IN :locations ORDER BY i.sku, i.location")
+    List<Inventory> findAllForUpdate(@Param("skus") Collection<String> skus,
+                                     @Param("locations") Collection<String> locations);
+
+    /** Keyset page: rows after the given id, in id order. */
+    List<Inventory> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Forward-only scan over the whole table, fetched from the driver in
+     * blocks. Must be consumed inside a transaction and closed afterwards.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT i FROM Inventory i ORDER BY i.id")
+    Stream<Inventory> streamAllOrderById();
+
+    /** Includes stock held in {@code inventory_bucket} for split locations. */
+    @Query("""
+            SELECT SUM(i.quantity)
+                   + (SELECT COALESCE(SUM(b.quantity), 0) FROM InventoryBucket b WHERE b.sku = :sku)
+              FROM Inventory i
+             WHERE i.sku = :sku
+            """)
     Integer getTotalQuantityBySku(@Param("sku") String sku);
 
-    @Query("SELECT COALESCE(SUM(i.quantity), 0) FROM Inventory i")
+    @Query("""
+            SELECT COALESCE(SUM(i.quantity), 0)
+                   + (SELECT COALESCE(SUM(b.quantity), 0) FROM InventoryBucket b)
+              FROM Inventory i
+            """)
     Long getTotalInventoryCount();
+
+    /** Inventory rows only; add {@link InventoryBucketRepository#sumQuantityBySku()} for split locations. */
+    @Query("SELECT i.sku AS sku, SUM(i.quantity) AS total FROM Inventory i GROUP BY i.sku")
+    List<SkuQuantity> sumQuantityBySku();
+
+    interface SkuQuantity {
+        String getSku();
+
+        Long getTotal();
+    }
+
+    interface RowState {
+        Integer getQuantity();
+
+        Integer getBuckets();
+    }
 }
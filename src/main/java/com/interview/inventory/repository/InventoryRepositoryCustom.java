@@ -0,0 +1,54 @@
+package com.interview.inventory.repository;
+
+import com.interview.inventory.model.Inventory;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Single-statement stock adjustments that bypass the persistence context.
+ * Each call is one round trip and returns the row's quantity after the change.
+ */
+public interface InventoryRepositoryCustom {
+
+    /**
+     * Decrements the row only if it holds at least {@code quantity} units.
+     * An empty result means no row was updated: either the row does not exist
+     * or the stock was insufficient.
+     */
+    Optional<Integer> debit(String sku, String location, int quantity);
+
+    /**
+     * Adds {@code quantity} units to the row, inserting it if the
+     * {@code (sku, location)} pair does not exist yet.
+     */
+    int credit(String sku, String location, int quantity);
+
+    /**
+     * Locks exactly the given rows with one {@code SELECT ... FOR UPDATE}, in
+     * {@code (sku, location)} order, which gives concurrent callers a single
+     * global lock order. Pairs without a row are left out of the result.
+     */
+    List<Inventory> lockAll(Collection<RowKey> rows);
+
+    /**
+     * Inserts an empty row for every pair that has none and leaves existing
+     * rows alone, so callers creating the same row at the same time do not
+     * collide on the unique key. The new rows are not loaded.
+     */
+    void createMissing(Collection<RowKey> rows);
+
+    /** One {@code inventory} row's natural key. */
+    record RowKey(String sku, String location) implements Comparable<RowKey> {
+
+        private static final Comparator<RowKey> ORDER =
+                Comparator.comparing(RowKey::sku).thenComparing(RowKey::location);
+
+        @Override
+        public int compareTo(RowKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
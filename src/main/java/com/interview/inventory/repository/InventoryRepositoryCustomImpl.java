@@ -0,0 +1,161 @@
+package com.interview.inventory.repository;
+
+import com.interview.inventory.model.Inventory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Inserts draw ids straight from {@code inventory_seq}. That is safe next to
+ * Hibernate's pooled optimizer, which only ever hands out the block that ends
+ * at a value it fetched itself.
+ */
+class InventoryRepositoryCustomImpl implements InventoryRepositoryCustom {
+
+    private static final String PG_DEBIT = """
+            UPDATE inventory
+               SET quantity = quantity - :qty, updated_at = LOCALTIMESTAMP, version = version + 1
+             WHERE sku = :sku AND location = :location AND quantity >= :qty
+            RETURNING quantity
+            """;
+
+    private static final String PG_CREDIT = """
+            INSERT INTO inventory (id, sku, location, quantity, updated_at, version)
+            VALUES (nextval('inventory_seq'), :sku, :location, :qty, LOCALTIMESTAMP, 0)
+            ON CONFLICT (sku, location) DO UPDATE
+               SET quantity = inventory.quantity + EXCLUDED.quantity,
+                   updated_at = EXCLUDED.updated_at,
+                   version = inventory.version + 1
+            RETURNING quantity
+            """;
+
+    private static final String H2_DEBIT = """
+            SELECT quantity FROM FINAL TABLE (
+                UPDATE inventory
+                   SET quantity = quantity - :qty, updated_at = LOCALTIMESTAMP, version = version + 1
+                 WHERE sku = :sku AND location = :location AND quantity >= :qty)
+            """;
+
+    private static final String H2_CREDIT = """
+            SELECT quantity FROM FINAL TABLE (
+                MERGE INTO inventory t
+                USING (VALUES (CAST(:sku AS VARCHAR(50)), CAST(:location AS VARCHAR(50)), CAST(:qty AS INTEGER)))
+                      s (sku, location, qty)
+                   ON t.sku = s.sku AND t.location = s.location
+                 WHEN MATCHED THEN UPDATE
+                      SET quantity = t.quantity + s.qty, updated_at = LOCALTIMESTAMP, version = t.version + 1
+                 WHEN NOT MATCHED THEN INSERT (id, sku, location, quantity, updated_at, version)
+                      VALUES (NEXT VALUE FOR inventory_seq, s.sku, s.location, s.qty, LOCALTIMESTAMP, 0))
+            """;
+
+    private static final String PG_CREATE_MISSING_PREFIX =
+            "INSERT INTO inventory (id, sku, location, quantity, updated_at, version) VALUES ";
+    private static final String PG_CREATE_MISSING_ROW = "(nextval('inventory_seq'), :s%1$d, :l%1$d, 0, LOCALTIMESTAMP, 0)";
+    private static final String PG_CREATE_MISSING_SUFFIX = " ON CONFLICT (sku, location) DO NOTHING";
+
+    private static final String H2_CREATE_MISSING_PREFIX = "MERGE INTO inventory t USING (VALUES ";
+    private static final String H2_CREATE_MISSING_ROW = "(CAST(:s%1$d AS VARCHAR(50)), CAST(:l%1$d AS VARCHAR(50)))";
+    private static final String H2_CREATE_MISSING_SUFFIX = """
+            ) s (sku, location)
+               ON t.sku = s.sku AND t.location = s.location
+             WHEN NOT MATCHED THEN INSERT (id, sku, location, quantity, updated_at, version)
+                  VALUES (NEXT VALUE FOR inventory_seq, s.sku, s.location, 0, LOCALTIMESTAMP, 0)
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile Boolean postgres;
+
+    @Override
+    public Optional<Integer> debit(String sku, String location, int quantity) {
+        List<?> rows = entityManager.createNativeQuery(isPostgres() ? PG_DEBIT : H2_DEBIT)
+                .setParameter("sku", sku)
+                .setParameter("location", location)
+                .setParameter("qty", quantity)
+                .getResultList();
+        return rows.stream().findFirst().map(row -> ((Number) row).intValue());
+    }
+
+    @Override
+    public int credit(String sku, String location, int quantity) {
+        Number updated = (Number) entityManager.createNativeQuery(isPostgres() ? PG_CREDIT : H2_CREDIT)
+                .setParameter("sku", sku)
+                .setParameter("location", location)
+                .setParameter("qty", quantity)
+                .getSingleResult();
+        return updated.intValue();
+    }
+
+    @Override
+    public List<Inventory> lockAll(Collection<RowKey> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        StringBuilder jpql = new StringBuilder("SELECT i FROM Inventory i WHERE ");
+        int index = 0;
+        for (RowKey ignored : rows) {
+            if (index > 0) {
+                jpql.append(" OR ");
+            }
+            jpql.append("(i.sku = :s").append(index).append(" AND i.location = :l").append(index).append(')');
+            index++;
+        }
+        jpql.append(" ORDER BY i.sku, i.location");
+
+        TypedQuery<Inventory> query = entityManager.createQuery(jpql.toString(), Inventory.class)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE);
+        bind(query, rows);
+        return query.getResultList();
+    }
+
+    @Override
+    public void createMissing(Collection<RowKey> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        boolean postgres = isPostgres();
+        // Sorted, so that two callers inserting overlapping rows wait on each other in one order.
+        Collection<RowKey> sorted = new TreeSet<>(rows);
+        StringBuilder sql = new StringBuilder(postgres ? PG_CREATE_MISSING_PREFIX : H2_CREATE_MISSING_PREFIX);
+        for (int index = 0; index < sorted.size(); index++) {
+            if (index > 0) {
+                sql.append(", ");
+            }
+            sql.append(String.format(postgres ? PG_CREATE_MISSING_ROW : H2_CREATE_MISSING_ROW, index));
+        }
+        sql.append(postgres ? PG_CREATE_MISSING_SUFFIX : H2_CREATE_MISSING_SUFFIX);
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        bind(query, sorted);
+        query.executeUpdate();
+    }
+
+    private static void bind(Query query, Collection<RowKey> rows) {
+        int index = 0;
+        for (RowKey row : rows) {
+            query.setParameter("s" + index, row.sku());
+            query.setParameter("l" + index, row.location());
+            index++;
+        }
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = entityManager.getEntityManagerFactory()
+                    .unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices()
+                    .getDialect() instanceof PostgreSQLDialect;
+        }
+        return postgres;
+    }
+}
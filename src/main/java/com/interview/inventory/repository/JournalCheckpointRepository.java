@@ -0,0 +1,16 @@
+package com.interview.inventory.repository;
+
+import com.interview.inventory.model.JournalCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JournalCheckpointRepository extends JpaRepository<JournalCheckpoint, Integer> {
+
+    @Modifying
+    @Query("UPDATE JournalCheckpoint c SET c.appliedSeq = :seq, c.updatedAt = LOCAL DATETIME WHERE c.id = 1")
+    int advance(@Param("seq") long seq);
+}
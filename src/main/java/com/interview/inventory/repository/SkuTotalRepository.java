@@ -0,0 +1,27 @@
+package com.interview.inventory.repository;
+
+import com.interview.inventory.model.SkuTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface SkuTotalRepository extends JpaRepository<SkuTotal, String> {
+
+    @Query("SELECT COALESCE(SUM(t.totalQuantity), 0) FROM SkuTotal t")
+    Long getGrandTotal();
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO sku_totals (sku, total_quantity, updated_at)
+            SELECT sku, SUM(quantity), LOCALTIMESTAMP
+              FROM (SELECT sku, quantity FROM inventory
+                    UNION ALL
+                    SELECT sku, quantity FROM inventory_bucket) stock
+             GROUP BY sku
+            """, nativeQuery = true)
+    int insertFromInventory();
+}
@@ -1,19 +1,55 @@
 package com.interview.inventory.repository;
 
 import com.interview.inventory.model.TransferLog;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface TransferLogRepository extends JpaRepository<TransferLog, Long> {
+public interface TransferLogRepository extends JpaRepository<TransferLog, Long>, TransferLogRepositoryCustom {
 
     List<TransferLog> findBySkuOrderByCreatedAtDesc(String sku);
 
     List<TransferLog> findByStatus(TransferLog.TransferStatus status);
 
+    Optional<TransferLog> findByIdempotencyKey(String idempotencyKey);
+
+    /** Every stored key. Must be consumed inside a transaction and closed afterwards. */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.idempotencyKey FROM TransferLog t WHERE t.idempotencyKey IS NOT NULL")
+    Stream<String> streamIdempotencyKeys();
+
+    /** Queued transfers of one priority, oldest first. */
+    @Query("SELECT t FROM TransferLog t WHERE t.status = 'PENDING' AND t.priority = :priority ORDER BY t.id")
+    List<TransferLog> findQueued(@Param("priority") TransferLog.Priority priority, Pageable page);
+
+    /** Queued transfers of one priority submitted before {@code cutoff}, oldest first. */
+    @Query("SELECT t FROM TransferLog t WHERE t.status = 'PENDING' AND t.priority = :priority"
+            + " AND t.createdAt < :cutoff ORDER BY t.id")
+    List<TransferLog> findQueuedBefore(@Param("priority") TransferLog.Priority priority,
+                                       @Param("cutoff") LocalDateTime cutoff, Pageable page);
+
+    /**
+     * Locks a queued row for the transaction that runs it. Empty once the
+     * transfer has been run, so a second runner waits on the lock and then
+     * finds nothing to do.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM TransferLog t WHERE t.id = :id AND t.status = 'PENDING'")
+    Optional<TransferLog> findPendingForUpdate(@Param("id") long id);
+
     @Query("SELECT COUNT(t) FROM TransferLog t WHERE t.status = 'COMPLETED'")
     Long countCompletedTransfers();
 
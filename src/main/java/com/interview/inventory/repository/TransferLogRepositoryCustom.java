@@ -0,0 +1,27 @@
+package com.interview.inventory.repository;
+
+import com.interview.inventory.model.TransferLog;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keyset reads of {@code transfer_log}, newest first. Each filter combination
+ * is served by one of the {@code (…, created_at, id)} indexes, so a page costs
+ * the same however deep into the history it starts.
+ */
+public interface TransferLogRepositoryCustom {
+
+    /**
+     * Up to {@code limit} rows ordered by {@code (created_at, id)} descending.
+     * Null filters are left out of the query rather than compared to null, so
+     * the planner always sees the index's leading columns.
+     *
+     * @param before exclusive upper bound, or null to start at the newest row
+     */
+    List<TransferLog> findHistory(String sku, TransferLog.TransferStatus status, Position before, int limit);
+
+    /** A row's place in the {@code (created_at, id)} order. */
+    record Position(LocalDateTime createdAt, long id) {
+    }
+}
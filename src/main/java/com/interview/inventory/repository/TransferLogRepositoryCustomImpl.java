@@ -0,0 +1,50 @@
+package com.interview.inventory.repository;
+
+import com.interview.inventory.model.TransferLog;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class TransferLogRepositoryCustomImpl implements TransferLogRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TransferLog> findHistory(String sku, TransferLog.TransferStatus status, Position before, int limit) {
+        List<String> conditions = new ArrayList<>(3);
+        if (sku != null) {
+            conditions.add("t.sku = :sku");
+        }
+        if (status != null) {
+            conditions.add("t.status = :status");
+        }
+        if (before != null) {
+            // Spelled out because HQL cannot type a tuple comparison against parameters.
+            conditions.add("(t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id))");
+        }
+
+        StringBuilder jpql = new StringBuilder("SELECT t FROM TransferLog t");
+        if (!conditions.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        jpql.append(" ORDER BY t.createdAt DESC, t.id DESC");
+
+        TypedQuery<TransferLog> query = entityManager.createQuery(jpql.toString(), TransferLog.class)
+                .setMaxResults(limit);
+        if (sku != null) {
+            query.setParameter("sku", sku);
+        }
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        if (before != null) {
+            query.setParameter("createdAt", before.createdAt());
+            query.setParameter("id", before.id());
+        }
+        return query.getResultList();
+    }
+}
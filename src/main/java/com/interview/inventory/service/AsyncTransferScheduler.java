@@ -0,0 +1,454 @@
+package com.interview.inventory.service;
+
+import com.interview.inventory.config.TransferProperties;
+import com.interview.inventory.dto.TransferRequest;
+import com.interview.inventory.dto.TransferResponse;
+import com.interview.inventory.model.TransferLog;
+import com.interview.inventory.repository.TransferLogRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs transfers submitted through {@code POST /api/transfers/async}.
+ * <p>
+ * A submission is stored as a PENDING {@code transfer_log} row with a
+ * priority, and its caller gets the id back straight away. The rows are the
+ * queue: whatever is still PENDING when the service stops is loaded again at
+ * the next start. In memory each priority has a bounded queue, and a fixed
+ * set of workers always starts the oldest transfer of the highest priority
+ * that is below its concurrency limit. Urgent transfers therefore only wait
+ * for a free worker, while bulk ones use whatever the others leave idle.
+ * <p>
+ * Each transfer runs through {@link TransferService#executeQueued}, which
+ * locks its row, so a transfer queued in memory twice, or by two instances,
+ * is still applied once. That makes it safe to sweep for rows left PENDING
+ * by an instance that stopped: every {@code sweep-interval}, rows older than
+ * {@code stale-after} that this instance does not hold are queued here. A
+ * transfer that throws instead of returning an outcome is marked FAILED.
+ */
+@Service
+@Slf4j
+public class AsyncTransferScheduler implements SchedulingConfigurer {
+
+    private static final TransferLog.Priority[] PRIORITIES = TransferLog.Priority.values();
+    /** Length of {@code transfer_log.error_message}. */
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final TransferService transferService;
+    private final TransferLogRepository transferLogRepository;
+    private final TransferProperties transferProperties;
+    private final TransferProperties.Async settings;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition runnable = lock.newCondition();
+    private final Map<TransferLog.Priority, ArrayDeque<TransferLog>> queues = new EnumMap<>(TransferLog.Priority.class);
+    /** Slots held by submissions whose row is being inserted. */
+    private final int[] reserved = new int[PRIORITIES.length];
+    private final int[] running = new int[PRIORITIES.length];
+    /** Priorities with PENDING rows that did not fit in memory when last loaded. */
+    private final boolean[] spilled = new boolean[PRIORITIES.length];
+    /** Priorities whose queue a worker is loading from the database. */
+    private final boolean[] refilling = new boolean[PRIORITIES.length];
+    /** Ids of the transfers queued or running here. */
+    private final Set<Long> held = new HashSet<>();
+    private int runningTotal;
+
+    private final Map<TransferLog.Priority, Timer> waits = new EnumMap<>(TransferLog.Priority.class);
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean stopping;
+
+    public AsyncTransferScheduler(TransferService transferService,
+                                  TransferLogRepository transferLogRepository,
+                                  TransferProperties transferProperties,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry) {
+        this.transferService = transferService;
+        this.transferLogRepository = transferLogRepository;
+        this.transferProperties = transferProperties;
+        this.settings = transferProperties.getAsync();
+        // Read-write, so that these reads go to the primary even when a read pool is configured.
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        for (TransferLog.Priority priority : PRIORITIES) {
+            queues.put(priority, new ArrayDeque<>());
+            String tag = priority.name().toLowerCase();
+            Gauge.builder("inventory.transfer.async.queued", this, scheduler -> scheduler.queued(priority))
+                    .description("Queued transfers held in memory")
+                    .tag("priority", tag)
+                    .register(meterRegistry);
+            Gauge.builder("inventory.transfer.async.running", this, scheduler -> scheduler.running(priority))
+                    .description("Queued transfers being run")
+                    .tag("priority", tag)
+                    .register(meterRegistry);
+            waits.put(priority, Timer.builder("inventory.transfer.async.wait")
+                    .description("Time from submission to the start of a queued transfer")
+                    .tag("priority", tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        int recovered = 0;
+        for (TransferLog.Priority priority : PRIORITIES) {
+            recovered += refill(priority);
+        }
+        if (recovered > 0) {
+            log.info("Recovered {} queued transfers", recovered);
+        }
+        for (int i = 0; i < settings.getWorkers(); i++) {
+            Thread worker = new Thread(this::runLoop, "transfer-async-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(new FixedDelayTask(this::sweep,
+                settings.getSweepInterval(), settings.getSweepInterval()));
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    /**
+     * Stores the transfer as PENDING and queues it. The response carries the
+     * new row's id; the outcome is read back with {@link #status}.
+     *
+     * @throws RejectedExecutionException if the priority's queue is full, or
+     *                                    the service is stopping
+     */
+    public TransferResponse submit(TransferRequest request, TransferLog.Priority priority) {
+        if (transferProperties.getEngine() == TransferProperties.Engine.JOURNAL) {
+            throw new RejectedExecutionException("Queued transfers are not available with the journal engine");
+        }
+        int index = priority.ordinal();
+        lock.lock();
+        try {
+            if (stopping) {
+                throw new RejectedExecutionException("Transfer queue is shutting down");
+            }
+            if (queues.get(priority).size() + reserved[index] >= settings.forPriority(priority).getQueueCapacity()) {
+                throw new RejectedExecutionException("The " + priority.name().toLowerCase() + " transfer queue is full");
+            }
+            reserved[index]++;
+        } finally {
+            lock.unlock();
+        }
+
+        TransferLog queued = null;
+        try {
+            queued = transferLogRepository.save(TransferLog.builder()
+                    .sku(request.getSku())
+                    .fromLocation(request.getFromLocation())
+                    .toLocation(request.getToLocation())
+                    .quantity(request.getQuantity())
+                    .idempotencyKey(request.getIdempotencyKey())
+                    .status(TransferLog.TransferStatus.PENDING)
+                    .priority(priority)
+                    .build());
+        } finally {
+            lock.lock();
+            try {
+                reserved[index]--;
+                if (queued != null) {
+                    queues.get(priority).add(queued);
+                    held.add(queued.getId());
+                    runnable.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return TransferResponse.builder()
+                .transferId(queued.getId())
+                .sku(queued.getSku())
+                .fromLocation(queued.getFromLocation())
+                .toLocation(queued.getToLocation())
+                .quantity(queued.getQuantity())
+                .status(queued.getStatus().name())
+                .message("Queued as " + priority.name().toLowerCase())
+                .build();
+    }
+
+    /**
+     * The stored row, read from the primary: a replica may not have it yet
+     * right after submission.
+     */
+    public Optional<TransferLog> status(long transferId) {
+        return transactionTemplate.execute(status -> transferLogRepository.findById(transferId));
+    }
+
+    /**
+     * Queues rows that have been PENDING for longer than {@code stale-after}
+     * and are not held here. The query runs without the lock; rows that no
+     * longer fit are left for the next refill.
+     */
+    public void sweep() {
+        if (!settings.isEnabled() || stopping) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(settings.getStaleAfter());
+        int requeued = 0;
+        for (TransferLog.Priority priority : PRIORITIES) {
+            int index = priority.ordinal();
+            int free;
+            int limit;
+            lock.lock();
+            try {
+                free = settings.forPriority(priority).getQueueCapacity() - queues.get(priority).size() - reserved[index];
+                // Running rows are still PENDING and come back too. Queued ones may as well;
+                // what they crowd out is found once the queue has drained.
+                limit = free + running[index];
+            } finally {
+                lock.unlock();
+            }
+            if (free <= 0) {
+                continue;
+            }
+            List<TransferLog> stale;
+            try {
+                stale = transactionTemplate.execute(status ->
+                        transferLogRepository.findQueuedBefore(priority, cutoff, PageRequest.of(0, limit)));
+            } catch (DataAccessException e) {
+                log.warn("Sweep for stale queued transfers failed: {}", e.getMessage());
+                return;
+            }
+            lock.lock();
+            try {
+                requeued += enqueue(priority, stale);
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (requeued > 0) {
+            log.warn("Queued {} transfers again that were PENDING for over {}", requeued, settings.getStaleAfter());
+        }
+    }
+
+    /** Stops starting transfers. Running ones finish; queued ones stay PENDING for the next start. */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        lock.lock();
+        try {
+            stopping = true;
+            runnable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    private void runLoop() {
+        while (true) {
+            TransferLog next;
+            try {
+                next = take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (next == null) {
+                return;
+            }
+            try {
+                waits.get(next.getPriority()).record(Duration.between(next.getCreatedAt(), LocalDateTime.now()));
+                TransferResponse response = transferService.executeQueued(next);
+                log.debug("Queued transfer {} finished as {}", next.getId(), response.getStatus());
+            } catch (RuntimeException e) {
+                log.error("Queued transfer {} could not be run", next.getId(), e);
+                markFailed(next, e);
+            } finally {
+                finished(next);
+            }
+        }
+    }
+
+    /** Blocks until a transfer may start. Returns null once the scheduler is stopping. */
+    private TransferLog take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!stopping) {
+                TransferLog.Priority toRefill = null;
+                if (runningTotal < settings.getWorkers()) {
+                    for (TransferLog.Priority priority : PRIORITIES) {
+                        int index = priority.ordinal();
+                        if (running[index] >= settings.forPriority(priority).getMaxConcurrency()) {
+                            continue;
+                        }
+                        ArrayDeque<TransferLog> queue = queues.get(priority);
+                        if (queue.isEmpty() && spilled[index]) {
+                            if (!refilling[index]) {
+                                toRefill = priority;
+                                break;
+                            }
+                            continue;
+                        }
+                        TransferLog next = queue.poll();
+                        if (next != null) {
+                            running[index]++;
+                            runningTotal++;
+                            return next;
+                        }
+                    }
+                }
+                if (toRefill == null || !refillUnlocked(toRefill)) {
+                    runnable.await(1, TimeUnit.SECONDS);
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called under the lock: releases it while the priority's rows are read,
+     * so other workers and submissions are not held up by the query. Returns
+     * false if the read failed.
+     */
+    private boolean refillUnlocked(TransferLog.Priority priority) {
+        refilling[priority.ordinal()] = true;
+        lock.unlock();
+        try {
+            refill(priority);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Could not load queued {} transfers: {}", priority.name().toLowerCase(), e.getMessage());
+            return false;
+        } finally {
+            lock.lock();
+            refilling[priority.ordinal()] = false;
+        }
+    }
+
+    private void finished(TransferLog transfer) {
+        lock.lock();
+        try {
+            running[transfer.getPriority().ordinal()]--;
+            runningTotal--;
+            held.remove(transfer.getId());
+            runnable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Loads PENDING rows of one priority, up to its capacity, and notes
+     * whether more were left in the database. Only needed after a restart
+     * with a long backlog. Must be called without the lock.
+     */
+    private int refill(TransferLog.Priority priority) {
+        int capacity = settings.forPriority(priority).getQueueCapacity();
+        List<TransferLog> rows = transactionTemplate.execute(status ->
+                transferLogRepository.findQueued(priority, PageRequest.of(0, capacity + 1)));
+        lock.lock();
+        try {
+            spilled[priority.ordinal()] = false;
+            int loaded = enqueue(priority, rows.subList(0, Math.min(rows.size(), capacity)));
+            spilled[priority.ordinal()] |= rows.size() > capacity;
+            return loaded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queues the rows not already held here while the priority's queue has
+     * room, and marks the priority spilled if some did not fit. Called under
+     * the lock.
+     */
+    private int enqueue(TransferLog.Priority priority, List<TransferLog> rows) {
+        int index = priority.ordinal();
+        int capacity = settings.forPriority(priority).getQueueCapacity();
+        ArrayDeque<TransferLog> queue = queues.get(priority);
+        int added = 0;
+        for (TransferLog row : rows) {
+            if (held.contains(row.getId())) {
+                continue;
+            }
+            if (queue.size() + reserved[index] >= capacity) {
+                spilled[index] = true;
+                break;
+            }
+            queue.add(row);
+            held.add(row.getId());
+            added++;
+        }
+        if (added > 0) {
+            runnable.signalAll();
+        }
+        return added;
+    }
+
+    /** Records the error on the row, unless another runner settled it meanwhile. */
+    private void markFailed(TransferLog transfer, RuntimeException cause) {
+        String message = cause.getMessage() == null ? cause.getClass().getName() : cause.getMessage();
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    transferLogRepository.findPendingForUpdate(transfer.getId()).ifPresent(row -> {
+                        row.setStatus(TransferLog.TransferStatus.FAILED);
+                        row.setErrorMessage(message.length() > MAX_ERROR_LENGTH
+                                ? message.substring(0, MAX_ERROR_LENGTH) : message);
+                    }));
+        } catch (RuntimeException e) {
+            // Still PENDING; a later sweep queues it again.
+            log.error("Queued transfer {} could not be marked FAILED: {}", transfer.getId(), e.getMessage());
+        }
+    }
+
+    private int queued(TransferLog.Priority priority) {
+        lock.lock();
+        try {
+            return queues.get(priority).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int running(TransferLog.Priority priority) {
+        lock.lock();
+        try {
+            return running[priority.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,494 @@
+package com.interview.inventory.service;
+
+import com.interview.inventory.config.BulkLoadProperties;
+import com.interview.inventory.config.TransferProperties;
+import com.interview.inventory.dto.BulkLoadReport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.postgresql.PGConnection;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Loads inventory rows in bulk, setting each {@code (sku, location)} to the
+ * given quantity: rows that exist are updated, the rest are inserted.
+ * <p>
+ * Rows are streamed and written {@code chunk-size} at a time, one transaction
+ * per chunk, so memory use does not grow with the input. On PostgreSQL a chunk
+ * is copied into a temporary table with {@code COPY} and upserted from there
+ * with {@code ON CONFLICT}; elsewhere it is written with multi-row MERGE
+ * statements. Each chunk recomputes {@code sku_totals} for its SKUs in the
+ * same transaction, since loading adds or removes stock, and publishes an
+ * {@link InventoryChangedEvent} for them. Split hot-row locations are merged
+ * before they are overwritten.
+ * <p>
+ * One load runs at a time. Progress and throughput are logged every
+ * {@code progress-interval}. With the journal engine, loads are only taken
+ * while the application starts, before the engine reads the database; after
+ * that the journal owns the stock and they are refused.
+ */
+@Service
+@Slf4j
+public class BulkInventoryLoader {
+
+    /** Longest SKU or location, as declared on the inventory table. */
+    public static final int MAX_KEY_LENGTH = 50;
+
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final String SEQUENCE = "inventory_seq";
+    private static final int SEQUENCE_INCREMENT = 50;
+
+    private static final String CREATE_STAGING = """
+            CREATE TEMPORARY TABLE IF NOT EXISTS inventory_load
+                (id BIGINT, sku VARCHAR(50), location VARCHAR(50), quantity INTEGER) ON COMMIT DELETE ROWS
+            """;
+    private static final String COPY_STAGING =
+            "COPY inventory_load (id, sku, location, quantity) FROM STDIN (FORMAT csv)";
+    private static final String UPSERT_FROM_STAGING = """
+            INSERT INTO inventory (id, sku, location, quantity, updated_at, version)
+            SELECT id, sku, location, quantity, LOCALTIMESTAMP, 0 FROM inventory_load
+            ON CONFLICT (sku, location) DO UPDATE
+               SET quantity = EXCLUDED.quantity, updated_at = EXCLUDED.updated_at, version = inventory.version + 1
+            """;
+    private static final String MERGE = """
+            MERGE INTO inventory target
+            USING (VALUES %s) AS source (id, sku, location, quantity)
+               ON target.sku = source.sku AND target.location = source.location
+             WHEN MATCHED THEN UPDATE
+                  SET quantity = source.quantity, updated_at = LOCALTIMESTAMP, version = target.version + 1
+             WHEN NOT MATCHED THEN INSERT (id, sku, location, quantity, updated_at, version)
+                  VALUES (source.id, source.sku, source.location, source.quantity, LOCALTIMESTAMP, 0)
+            """;
+    private static final String MERGE_FIRST_ROW =
+            "(CAST(? AS BIGINT), CAST(? AS VARCHAR(50)), CAST(? AS VARCHAR(50)), CAST(? AS INTEGER))";
+    private static final String MERGE_ROW = "(?, ?, ?, ?)";
+    private static final String DELETE_TOTALS = "DELETE FROM sku_totals WHERE sku IN (%s)";
+    private static final String INSERT_TOTALS = """
+            INSERT INTO sku_totals (sku, total_quantity, updated_at)
+            SELECT sku, SUM(quantity), LOCALTIMESTAMP
+              FROM (SELECT sku, quantity FROM inventory WHERE sku IN (%1$s)
+                    UNION ALL
+                    SELECT sku, quantity FROM inventory_bucket WHERE sku IN (%1$s)) stock
+             GROUP BY sku
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BulkLoadProperties settings;
+    private final HotRowService hotRows;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final PooledSequence ids;
+    private final boolean postgres;
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private final boolean journalEngine;
+    private volatile boolean journalOwnsInventory;
+
+    private final Counter loaded;
+    private final Counter rejected;
+
+    public BulkInventoryLoader(JdbcTemplate jdbcTemplate,
+                               BulkLoadProperties settings,
+                               TransferProperties transferProperties,
+                               HotRowService hotRows,
+                               ApplicationEventPublisher eventPublisher,
+                               PlatformTransactionManager transactionManager,
+                               EntityManagerFactory entityManagerFactory,
+                               MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.settings = settings;
+        this.journalEngine = transferProperties.getEngine() == TransferProperties.Engine.JOURNAL;
+        this.hotRows = hotRows;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ids = new PooledSequence(jdbcTemplate, entityManagerFactory, SEQUENCE, SEQUENCE_INCREMENT);
+        this.postgres = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect() instanceof PostgreSQLDialect;
+        this.loaded = Counter.builder("inventory.bulk.rows")
+                .description("Rows handled by bulk loads, by outcome")
+                .tag("outcome", "loaded")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("inventory.bulk.rows")
+                .description("Rows handled by bulk loads, by outcome")
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+    }
+
+    /** Seeding is done by now, and the journal engine is loading the database. */
+    @EventListener(ApplicationReadyEvent.class)
+    void onApplicationReady() {
+        journalOwnsInventory = journalEngine;
+    }
+
+    /** A row to load: the location's stock after the load. */
+    public record Row(String sku, String location, int quantity) {
+    }
+
+    /**
+     * Loads CSV whose header names {@code sku}, {@code location} and
+     * {@code quantity} columns, in any order and among others, so the
+     * {@code format=csv} export can be loaded back. Invalid rows are skipped
+     * and reported.
+     *
+     * @throws IllegalArgumentException if the header lacks one of those columns
+     * @throws RejectedExecutionException if another load is running, or the journal engine holds the stock
+     */
+    public BulkLoadReport load(Reader csv) {
+        Progress progress = new Progress();
+        Reader buffered = csv instanceof BufferedReader ? csv : new BufferedReader(csv);
+        return load(new CsvRows(buffered, progress), progress);
+    }
+
+    public BulkLoadReport load(Iterator<Row> rows) {
+        return load(rows, new Progress());
+    }
+
+    private BulkLoadReport load(Iterator<Row> rows, Progress progress) {
+        if (journalOwnsInventory) {
+            throw new RejectedExecutionException("Bulk loads are not available with the journal engine");
+        }
+        if (!loadLock.tryLock()) {
+            throw new RejectedExecutionException("Another bulk load is running");
+        }
+        try {
+            Map<HotRowService.Key, Row> chunk = new LinkedHashMap<>();
+            while (rows.hasNext()) {
+                Row row = rows.next();
+                progress.read++;
+                // Last one wins; an upsert cannot touch the same row twice in one statement.
+                chunk.put(new HotRowService.Key(row.sku(), row.location()), row);
+                if (chunk.size() >= settings.getChunkSize()) {
+                    writeChunk(new ArrayList<>(chunk.values()), progress);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(new ArrayList<>(chunk.values()), progress);
+            }
+        } finally {
+            loadLock.unlock();
+        }
+
+        BulkLoadReport report = progress.report();
+        log.info("Bulk load finished: {} rows loaded, {} rejected, in {} ms ({} rows/s)",
+                report.getRowsLoaded(), report.getRowsRejected(), report.getElapsedMillis(), report.getRowsPerSecond());
+        return report;
+    }
+
+    private void writeChunk(List<Row> chunk, Progress progress) {
+        Set<HotRowService.Key> split = hotRows.splitKeys();
+        for (Row row : chunk) {
+            if (split.contains(new HotRowService.Key(row.sku(), row.location()))) {
+                hotRows.merge(row.sku(), row.location());
+            }
+        }
+        Set<String> skus = new LinkedHashSet<>();
+        List<InventoryChangedEvent.Movement> movements = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            skus.add(row.sku());
+            movements.add(new InventoryChangedEvent.Movement(row.sku(), row.location(), null));
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (postgres) {
+                copy(chunk);
+            } else {
+                merge(chunk);
+            }
+            refreshTotals(new ArrayList<>(skus));
+            eventPublisher.publishEvent(new InventoryChangedEvent(skus, movements));
+        });
+
+        loaded.increment(chunk.size());
+        progress.loaded += chunk.size();
+        progress.chunks++;
+        progress.logIfDue();
+    }
+
+    private void copy(List<Row> chunk) {
+        StringBuilder csv = new StringBuilder(chunk.size() * 48);
+        for (Row row : chunk) {
+            csv.append(ids.next()).append(',')
+                    .append(quote(row.sku())).append(',')
+                    .append(quote(row.location())).append(',')
+                    .append(row.quantity()).append('\n');
+        }
+        jdbcTemplate.execute(CREATE_STAGING);
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn(COPY_STAGING, new StringReader(csv.toString()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        jdbcTemplate.update(UPSERT_FROM_STAGING);
+    }
+
+    private void merge(List<Row> chunk) {
+        for (List<Row> rows : slices(chunk)) {
+            StringBuilder values = new StringBuilder(MERGE_FIRST_ROW);
+            List<Object> args = new ArrayList<>(rows.size() * 4);
+            for (Row row : rows) {
+                if (!args.isEmpty()) {
+                    values.append(", ").append(MERGE_ROW);
+                }
+                args.add(ids.next());
+                args.add(row.sku());
+                args.add(row.location());
+                args.add(row.quantity());
+            }
+            jdbcTemplate.update(MERGE.formatted(values), args.toArray());
+        }
+    }
+
+    /** Replaces the chunk's SKU totals with what the tables now hold, loaded rows included. */
+    private void refreshTotals(List<String> skus) {
+        for (List<String> slice : slices(skus)) {
+            String placeholders = String.join(", ", Collections.nCopies(slice.size(), "?"));
+            List<Object> args = new ArrayList<>(slice);
+            jdbcTemplate.update(DELETE_TOTALS.formatted(placeholders), args.toArray());
+            args.addAll(slice);
+            jdbcTemplate.update(INSERT_TOTALS.formatted(placeholders), args.toArray());
+        }
+    }
+
+    private <T> List<List<T>> slices(List<T> items) {
+        int size = Math.max(1, settings.getStatementRows());
+        List<List<T>> slices = new ArrayList<>((items.size() + size - 1) / size);
+        for (int start = 0; start < items.size(); start += size) {
+            slices.add(items.subList(start, Math.min(start + size, items.size())));
+        }
+        return slices;
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private final class Progress {
+
+        private final long started = System.nanoTime();
+        private long lastLogged = started;
+        private long read;
+        private long loaded;
+        private long rejected;
+        private int chunks;
+        private final List<String> errors = new ArrayList<>();
+
+        void reject(long line, String reason) {
+            rejected++;
+            BulkInventoryLoader.this.rejected.increment();
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("line " + line + ": " + reason);
+            }
+        }
+
+        void logIfDue() {
+            long now = System.nanoTime();
+            if (now - lastLogged >= settings.getProgressInterval().toNanos()) {
+                lastLogged = now;
+                log.info("Bulk load: {} rows loaded, {} rejected ({} rows/s)", loaded, rejected, rowsPerSecond(now));
+            }
+        }
+
+        long rowsPerSecond(long now) {
+            long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(now - started));
+            return loaded * 1000 / elapsedMillis;
+        }
+
+        BulkLoadReport report() {
+            long now = System.nanoTime();
+            return BulkLoadReport.builder()
+                    .rowsRead(read + rejected)
+                    .rowsLoaded(loaded)
+                    .rowsRejected(rejected)
+                    .errors(List.copyOf(errors))
+                    .chunks(chunks)
+                    .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(now - started))
+                    .rowsPerSecond(rowsPerSecond(now))
+                    .build();
+        }
+    }
+
+    /**
+     * Streams rows out of CSV: fields may be quoted, with {@code ""} for a
+     * quote and line breaks inside quotes. Invalid rows are reported to the
+     * progress and skipped.
+     */
+    private static final class CsvRows implements Iterator<Row> {
+
+        private final Reader reader;
+        private final Progress progress;
+        private final int skuColumn;
+        private final int locationColumn;
+        private final int quantityColumn;
+        private long line = 1;
+        private int peeked = -2;
+        private Row next;
+
+        CsvRows(Reader reader, Progress progress) {
+            this.reader = reader;
+            this.progress = progress;
+            List<String> header = readRecord();
+            List<String> names = header == null ? List.of()
+                    : header.stream().map(name -> name.trim().toLowerCase(Locale.ROOT)).toList();
+            this.skuColumn = names.indexOf("sku");
+            this.locationColumn = names.indexOf("location");
+            this.quantityColumn = names.indexOf("quantity");
+            if (skuColumn < 0 || locationColumn < 0 || quantityColumn < 0) {
+                throw new IllegalArgumentException("CSV header must name sku, location and quantity columns");
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                long recordLine = line;
+                List<String> record = readRecord();
+                if (record == null) {
+                    return false;
+                }
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                next = parse(record, recordLine);
+            }
+            return true;
+        }
+
+        @Override
+        public Row next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Row row = next;
+            next = null;
+            return row;
+        }
+
+        private Row parse(List<String> record, long recordLine) {
+            int width = Math.max(skuColumn, Math.max(locationColumn, quantityColumn)) + 1;
+            if (record.size() < width) {
+                progress.reject(recordLine, "expected at least " + width + " fields, found " + record.size());
+                return null;
+            }
+            String sku = record.get(skuColumn).trim();
+            String location = record.get(locationColumn).trim();
+            if (sku.isEmpty() || location.isEmpty()) {
+                progress.reject(recordLine, "sku and location are required");
+                return null;
+            }
+            if (sku.length() > MAX_KEY_LENGTH || location.length() > MAX_KEY_LENGTH) {
+                progress.reject(recordLine, "sku and location are limited to " + MAX_KEY_LENGTH + " characters");
+                return null;
+            }
+            int quantity;
+            try {
+                quantity = Integer.parseInt(record.get(quantityColumn).trim());
+            } catch (NumberFormatException e) {
+                progress.reject(recordLine, "quantity '" + record.get(quantityColumn) + "' is not a whole number");
+                return null;
+            }
+            if (quantity < 0) {
+                progress.reject(recordLine, "quantity must not be negative");
+                return null;
+            }
+            return new Row(sku, location, quantity);
+        }
+
+        /** The next record's fields, or null at the end of the input. */
+        private List<String> readRecord() {
+            try {
+                int c = read();
+                if (c == -1) {
+                    return null;
+                }
+                List<String> fields = new ArrayList<>();
+                StringBuilder field = new StringBuilder();
+                boolean quoted = false;
+                while (true) {
+                    if (quoted) {
+                        if (c == -1) {
+                            throw new IllegalArgumentException("Unterminated quoted field at line " + line);
+                        }
+                        if (c == '"') {
+                            if (peek() == '"') {
+                                read();
+                                field.append('"');
+                            } else {
+                                quoted = false;
+                            }
+                        } else {
+                            if (c == '\n') {
+                                line++;
+                            }
+                            field.append((char) c);
+                        }
+                    } else if (c == '"') {
+                        quoted = true;
+                    } else if (c == ',') {
+                        fields.add(field.toString());
+                        field.setLength(0);
+                    } else if (c == '\n' || c == -1) {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        fields.add(field.toString());
+                        return fields;
+                    } else if (c != '\r') {
+                        field.append((char) c);
+                    }
+                    c = read();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private int read() throws IOException {
+            if (peeked != -2) {
+                int c = peeked;
+                peeked = -2;
+                return c;
+            }
+            return reader.read();
+        }
+
+        private int peek() throws IOException {
+            if (peeked == -2) {
+                peeked = reader.read();
+            }
+            return peeked;
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package com.interview.inventory.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.interview.inventory.config.ChangeFeedProperties;
+import com.interview.inventory.dto.InventoryChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Feed of committed stock changes, one event per location with its new
+ * quantity, for {@code GET /api/inventory/changes}.
+ * <p>
+ * Transfers only record which locations they changed, after commit, in a
+ * pending map; they never wait for the feed. One publisher thread takes the
+ * pending locations, reads their current stock in one statement and numbers
+ * the events. Because the stock is read after the commit that queued it, the
+ * last event for a location always carries a quantity at least as new as that
+ * commit, whatever order commits finish in. A location changed again before
+ * it is published gets one event carrying the latest transfer id.
+ * <p>
+ * Sequences start from the start-up time in microseconds, so they keep
+ * increasing across restarts. The last {@code retained-events} are kept for
+ * subscribers that resume with a cursor; a cursor outside that range, or
+ * changes dropped because the pending map was full, produce a RESET event
+ * telling the subscriber to reload the inventory. Each subscriber has a queue
+ * of {@code subscriber-buffer} events and is disconnected when it fills, so a
+ * slow reader costs only its own connection.
+ */
+@Service
+@Slf4j
+public class ChangeFeedService implements SchedulingConfigurer {
+
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final String CURRENT_STOCK = """
+            SELECT sku, location, SUM(quantity)
+              FROM (SELECT sku, location, quantity FROM inventory WHERE sku IN (%1$s)
+                    UNION ALL
+                    SELECT sku, location, quantity FROM inventory_bucket WHERE sku IN (%1$s)) stock
+             GROUP BY sku, location
+            """;
+
+    /** Pending value for a location changed outside a transfer, such as by a bulk load. */
+    private static final long NO_TRANSFER = 0L;
+
+    /** Queued to idle subscribers in place of an event; never numbered or retained. */
+    private static final InventoryChange HEARTBEAT = new InventoryChange();
+
+    private static final Comparator<HotRowService.Key> KEY_ORDER =
+            Comparator.comparing(HotRowService.Key::sku).thenComparing(HotRowService.Key::location);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChangeFeedProperties settings;
+    private final ObjectMapper objectMapper;
+
+    /** Locations changed by committed transfers and not yet published, with the latest transfer id. */
+    private final ConcurrentMap<HotRowService.Key, Long> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean overflowedSincePublish = new AtomicBoolean();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService senders;
+    private final Thread publisher;
+
+    /** Guards the retained events and the sequence, so events reach every subscriber in sequence order. */
+    private final Object feedLock = new Object();
+    private final InventoryChange[] retained;
+    private final long firstSequence;
+    private long lastSequence;
+
+    private volatile boolean running = true;
+
+    private final Counter published;
+    private final Counter dropped;
+    private final Counter overflowed;
+
+    public ChangeFeedService(JdbcTemplate jdbcTemplate,
+                             ChangeFeedProperties settings,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.settings = settings;
+        this.objectMapper = objectMapper;
+        this.retained = new InventoryChange[Math.max(1, settings.getRetainedEvents())];
+        this.firstSequence = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+        this.lastSequence = firstSequence;
+
+        Gauge.builder("inventory.changes.subscribers", subscribers, Set::size)
+                .description("Open change feed subscriptions")
+                .register(meterRegistry);
+        Gauge.builder("inventory.changes.pending", pending, Map::size)
+                .description("Locations changed by committed transfers and not yet published")
+                .register(meterRegistry);
+        this.published = Counter.builder("inventory.changes.published")
+                .description("Change feed events published")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("inventory.changes.dropped")
+                .description("Subscribers disconnected because their buffer was full")
+                .register(meterRegistry);
+        this.overflowed = Counter.builder("inventory.changes.overflowed")
+                .description("Location changes not published because the pending map was full")
+                .register(meterRegistry);
+
+        AtomicInteger senderThreads = new AtomicInteger();
+        this.senders = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "change-feed-sender-" + senderThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.publisher = new Thread(this::publishLoop, "change-feed-publisher");
+        if (settings.isEnabled()) {
+            this.publisher.start();
+        }
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(new FixedDelayTask(this::sendHeartbeats,
+                settings.getHeartbeatInterval(), settings.getHeartbeatInterval()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (!settings.isEnabled() || event.movements().isEmpty()) {
+            return;
+        }
+        for (InventoryChangedEvent.Movement movement : event.movements()) {
+            HotRowService.Key key = new HotRowService.Key(movement.sku(), movement.location());
+            if (pending.size() < settings.getMaxPendingLocations() || pending.containsKey(key)) {
+                pending.put(key, movement.transferId() != null ? movement.transferId() : NO_TRANSFER);
+            } else {
+                overflowed.increment();
+                overflowedSincePublish.set(true);
+            }
+        }
+        LockSupport.unpark(publisher);
+    }
+
+    /**
+     * Opens a subscription for the events matching {@code sku} and
+     * {@code location} (either may be null for all). With a cursor, retained
+     * events after it are sent first. Empty when {@code max-subscribers} are
+     * already connected.
+     */
+    public Optional<ResponseBodyEmitter> subscribe(String sku, String location, Long after, boolean ndjson) {
+        if (subscriberCount.incrementAndGet() > settings.getMaxSubscribers()) {
+            subscriberCount.decrementAndGet();
+            return Optional.empty();
+        }
+        ResponseBodyEmitter emitter = ndjson ? new ResponseBodyEmitter() : new SseEmitter();
+        Subscriber subscriber;
+        synchronized (feedLock) {
+            subscriber = new Subscriber(sku, location, emitter, ndjson, replayAfter(after));
+            subscribers.add(subscriber);
+        }
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        subscriber.scheduleSend();
+        return Optional.of(emitter);
+    }
+
+    /** Publishes one batch of pending locations; returns false if there was nothing to publish. */
+    boolean publishPending() {
+        boolean reset = overflowedSincePublish.getAndSet(false);
+        Map<HotRowService.Key, Long> batch = new HashMap<>();
+        Iterator<HotRowService.Key> keys = pending.keySet().iterator();
+        while (keys.hasNext() && batch.size() < settings.getPublishBatchSize()) {
+            HotRowService.Key key = keys.next();
+            Long transferId = pending.remove(key);
+            if (transferId != null) {
+                batch.put(key, transferId);
+            }
+        }
+        if (batch.isEmpty() && !reset) {
+            return false;
+        }
+
+        Map<HotRowService.Key, Integer> stock;
+        try {
+            stock = currentStock(batch.keySet());
+        } catch (DataAccessException e) {
+            // Put them back, without overwriting a newer transfer id, so the next attempt retries them.
+            batch.forEach(pending::putIfAbsent);
+            overflowedSincePublish.compareAndSet(false, reset);
+            throw e;
+        }
+
+        List<HotRowService.Key> ordered = new ArrayList<>(batch.keySet());
+        ordered.sort(KEY_ORDER);
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (feedLock) {
+            if (reset) {
+                append(InventoryChange.builder()
+                        .sequence(++lastSequence)
+                        .type(InventoryChange.Type.RESET)
+                        .publishedAt(now)
+                        .build());
+            }
+            for (HotRowService.Key key : ordered) {
+                append(InventoryChange.builder()
+                        .sequence(++lastSequence)
+                        .type(InventoryChange.Type.CHANGE)
+                        .sku(key.sku())
+                        .location(key.location())
+                        .newQuantity(stock.getOrDefault(key, 0))
+                        .transferId(batch.get(key) == NO_TRANSFER ? null : batch.get(key))
+                        .publishedAt(now)
+                        .build());
+            }
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(publisher);
+        publisher.join(TimeUnit.SECONDS.toMillis(5));
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+            subscriber.emitter.complete();
+        }
+        senders.shutdownNow();
+    }
+
+    private void publishLoop() {
+        while (running) {
+            try {
+                if (!publishPending()) {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Publishing inventory changes failed, retrying: {}", e.getMessage());
+                LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+    }
+
+    private Map<HotRowService.Key, Integer> currentStock(Set<HotRowService.Key> keys) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        List<String> skus = keys.stream().map(HotRowService.Key::sku).distinct().toList();
+        String placeholders = String.join(", ", Collections.nCopies(skus.size(), "?"));
+        List<Object> args = new ArrayList<>(skus);
+        args.addAll(skus);
+
+        Map<HotRowService.Key, Integer> stock = new HashMap<>();
+        jdbcTemplate.query(CURRENT_STOCK.formatted(placeholders), rs -> {
+            HotRowService.Key key = new HotRowService.Key(rs.getString(1), rs.getString(2));
+            if (keys.contains(key)) {
+                stock.put(key, (int) rs.getLong(3));
+            }
+        }, args.toArray());
+        return stock;
+    }
+
+    /** Retains the event and hands it to every subscriber; the caller holds {@code feedLock}. */
+    private void append(InventoryChange change) {
+        retained[(int) Math.floorMod(change.getSequence(), (long) retained.length)] = change;
+        published.increment();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(change);
+        }
+    }
+
+    /** Retained events after the cursor, or a RESET if it is outside them; the caller holds {@code feedLock}. */
+    private List<InventoryChange> replayAfter(Long after) {
+        if (after == null || after == lastSequence) {
+            return List.of();
+        }
+        long oldest = Math.max(firstSequence + 1, lastSequence - retained.length + 1);
+        if (after < oldest - 1 || after > lastSequence) {
+            return List.of(InventoryChange.builder()
+                    .sequence(lastSequence)
+                    .type(InventoryChange.Type.RESET)
+                    .publishedAt(LocalDateTime.now())
+                    .build());
+        }
+        List<InventoryChange> replay = new ArrayList<>((int) (lastSequence - after));
+        for (long sequence = after + 1; sequence <= lastSequence; sequence++) {
+            replay.add(retained[(int) Math.floorMod(sequence, (long) retained.length)]);
+        }
+        return replay;
+    }
+
+    private void sendHeartbeats() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeat();
+        }
+    }
+
+    /**
+     * One subscription. Events are written by at most one sender thread at a
+     * time, so a blocked socket holds up only this subscriber.
+     */
+    private final class Subscriber {
+
+        private final String sku;
+        private final String location;
+        private final ResponseBodyEmitter emitter;
+        private final boolean ndjson;
+        private final Iterator<InventoryChange> replay;
+        private final BlockingQueue<InventoryChange> queue;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean overrun;
+
+        Subscriber(String sku, String location, ResponseBodyEmitter emitter, boolean ndjson,
+                   List<InventoryChange> replay) {
+            this.sku = sku;
+            this.location = location;
+            this.emitter = emitter;
+            this.ndjson = ndjson;
+            this.replay = replay.iterator();
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, settings.getSubscriberBuffer()));
+        }
+
+        /** Called by the publisher; never blocks. */
+        void offer(InventoryChange change) {
+            if (closed.get() || !matches(change)) {
+                return;
+            }
+            if (!queue.offer(change) && !overrun) {
+                overrun = true;
+                dropped.increment();
+                log.info("Disconnecting change feed subscriber that fell {} events behind", queue.size());
+            }
+            scheduleSend();
+        }
+
+        void heartbeat() {
+            if (!ndjson && queue.isEmpty() && queue.offer(HEARTBEAT)) {
+                scheduleSend();
+            }
+        }
+
+        void scheduleSend() {
+            if (!closed.get() && sending.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::send);
+                } catch (RuntimeException e) {
+                    sending.set(false);
+                }
+            }
+        }
+
+        private void send() {
+            try {
+                while (!overrun && !closed.get()) {
+                    InventoryChange next = replay.hasNext() ? replay.next() : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (next == HEARTBEAT || matches(next)) {
+                        write(next);
+                    }
+                }
+                if (overrun) {
+                    // The client reconnects with its last event id and resumes from the retained events.
+                    emitter.complete();
+                    close();
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+                emitter.completeWithError(e);
+            } finally {
+                sending.set(false);
+            }
+            if (!closed.get() && !queue.isEmpty()) {
+                scheduleSend();
+            }
+        }
+
+        private void write(InventoryChange change) throws IOException {
+            if (ndjson) {
+                emitter.send(objectMapper.writeValueAsString(change) + "\n", NDJSON);
+            } else if (change == HEARTBEAT) {
+                ((SseEmitter) emitter).send(SseEmitter.event().comment("heartbeat"));
+            } else {
+                ((SseEmitter) emitter).send(SseEmitter.event()
+                        .id(String.valueOf(change.getSequence()))
+                        .name(change.getType().name().toLowerCase())
+                        .data(change, MediaType.APPLICATION_JSON));
+            }
+        }
+
+        private boolean matches(InventoryChange change) {
+            return change.getType() == InventoryChange.Type.RESET
+                    || ((sku == null || sku.equals(change.getSku()))
+                    && (location == null || location.equals(change.getLocation())));
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                subscribers.remove(this);
+                subscriberCount.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.interview.inventory.service;
+
+import com.interview.inventory.config.ConservationProperties;
+import com.interview.inventory.dto.ConservationReport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Checks continuously that transfers conserve stock: every SKU's total across
+ * {@code inventory} and {@code inventory_bucket} must equal its baseline in
+ * {@code sku_totals}, and no quantity may be negative.
+ * <p>
+ * Two loops share one query. The incremental loop re-checks only the SKUs
+ * named by committed {@link InventoryChangedEvent}s, at most
+ * {@code max-skus-per-check} per {@code check-interval}. The full
+ * reconciliation walks every SKU in key order, {@code chunk-size} at a time
+ * with {@code chunk-pause} between chunks, and catches anything the
+ * incremental loop cannot see: SKUs dropped from a full pending set, stock
+ * changed outside this service, and stock with no baseline at all.
+ * <p>
+ * Each check is a single statement over the baseline and the stock rows, so
+ * it reads one snapshot and a transfer is either wholly in it or not at all.
+ * A SKU stays reported until a later check finds it balanced again.
+ */
+@Service
+@Slf4j
+public class ConservationAuditor implements SchedulingConfigurer {
+
+    private static final String BALANCE = """
+            SELECT sku, SUM(baseline) AS baseline, COUNT(baseline) AS baselines,
+                   SUM(quantity) AS actual, MIN(quantity) AS lowest
+              FROM (SELECT sku, total_quantity AS baseline, CAST(NULL AS INTEGER) AS quantity
+                      FROM sku_totals WHERE %1$s
+                    UNION ALL
+                    SELECT sku, CAST(NULL AS BIGINT), quantity FROM inventory WHERE %1$s
+                    UNION ALL
+                    SELECT sku, CAST(NULL AS BIGINT), quantity FROM inventory_bucket WHERE %1$s) balance
+             GROUP BY sku
+            """;
+
+    private static final String NEXT_CHUNK_KEYS = "SELECT sku FROM sku_totals WHERE sku > ? ORDER BY sku LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConservationProperties settings;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, ConservationReport.Violation> violations = new ConcurrentHashMap<>();
+
+    /** Serialises full reconciliations, whether scheduled or requested through the endpoint. */
+    private final ReentrantLock passLock = new ReentrantLock();
+    /** Last SKU checked by the running pass; null when no pass is running. */
+    private String passCursor;
+    private int passSkus;
+    private LocalDateTime passStartedAt;
+    private LocalDateTime nextPassAt = LocalDateTime.now();
+    private volatile LocalDateTime lastPassStartedAt;
+    private volatile LocalDateTime lastPassCompletedAt;
+    private volatile int lastPassSkus;
+
+    private final Counter incrementalChecks;
+    private final Counter fullChecks;
+    private final Counter overflowed;
+
+    public ConservationAuditor(JdbcTemplate jdbcTemplate,
+                               ConservationProperties settings,
+                               MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.settings = settings;
+
+        for (Kind kind : Kind.values()) {
+            Gauge.builder("inventory.conservation.violations", violations, current -> count(current.values(), kind))
+                    .description("SKUs currently failing a conservation check, by kind")
+                    .tag("kind", kind.label)
+                    .register(meterRegistry);
+        }
+        Gauge.builder("inventory.conservation.drift", violations, ConservationAuditor::totalDrift)
+                .description("Units by which SKU totals currently differ from their baselines, summed")
+                .register(meterRegistry);
+        Gauge.builder("inventory.conservation.pending", pending, Set::size)
+                .description("SKUs changed by committed transfers and not yet re-checked")
+                .register(meterRegistry);
+        this.incrementalChecks = checked(meterRegistry, "incremental");
+        this.fullChecks = checked(meterRegistry, "full");
+        this.overflowed = Counter.builder("inventory.conservation.overflowed")
+                .description("SKU changes left to the full reconciliation because the pending set was full")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(new FixedDelayTask(this::checkPending,
+                settings.getCheckInterval(), settings.getCheckInterval()));
+        registrar.addFixedDelayTask(new FixedDelayTask(this::reconcileStep,
+                settings.getChunkPause(), settings.getCheckInterval()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        for (String sku : event.skus()) {
+            if (pending.size() < settings.getMaxPendingSkus() || pending.contains(sku)) {
+                pending.add(sku);
+            } else {
+                overflowed.increment();
+            }
+        }
+    }
+
+    /** Re-checks up to {@code max-skus-per-check} SKUs that committed transfers touched. */
+    public void checkPending() {
+        if (!settings.isEnabled() || pending.isEmpty()) {
+            return;
+        }
+        List<String> batch = new ArrayList<>(Math.min(pending.size(), settings.getMaxSkusPerCheck()));
+        Iterator<String> skus = pending.iterator();
+        while (skus.hasNext() && batch.size() < settings.getMaxSkusPerCheck()) {
+            batch.add(skus.next());
+            skus.remove();
+        }
+        try {
+            check(batch);
+            incrementalChecks.increment(batch.size());
+        } catch (DataAccessException e) {
+            // Put them back so the next check retries them.
+            pending.addAll(batch);
+            log.warn("Conservation check of {} SKUs failed: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /** Advances the full reconciliation by one chunk, starting a new pass when one is due. */
+    public void reconcileStep() {
+        if (!settings.isEnabled() || !passLock.tryLock()) {
+            return;
+        }
+        try {
+            if (passCursor == null) {
+                if (LocalDateTime.now().isBefore(nextPassAt)) {
+                    return;
+                }
+                startPass();
+            }
+            if (checkChunk()) {
+                finishPass();
+            }
+        } catch (DataAccessException e) {
+            log.warn("Conservation reconciliation chunk after '{}' failed: {}", passCursor, e.getMessage());
+        } finally {
+            passLock.unlock();
+        }
+    }
+
+    /** Runs a whole reconciliation now, without pauses between chunks, and reports the result. */
+    public ConservationReport reconcile() {
+        passLock.lock();
+        try {
+            startPass();
+            while (!checkChunk()) {
+                // Walk to the end.
+            }
+            finishPass();
+        } finally {
+            passLock.unlock();
+        }
+        return report();
+    }
+
+    public ConservationReport report() {
+        List<ConservationReport.Violation> current = new ArrayList<>(violations.values());
+        current.sort(Comparator.comparing(ConservationReport.Violation::getSku));
+        return ConservationReport.builder()
+                .enabled(settings.isEnabled())
+                .violations(current)
+                .pendingSkus(pending.size())
+                .fullPassRunning(passCursor != null)
+                .lastFullPassStartedAt(lastPassStartedAt)
+                .lastFullPassCompletedAt(lastPassCompletedAt)
+                .lastFullPassSkus(lastPassSkus)
+                .build();
+    }
+
+    private void startPass() {
+        passCursor = "";
+        passSkus = 0;
+        passStartedAt = LocalDateTime.now();
+    }
+
+    private void finishPass() {
+        lastPassStartedAt = passStartedAt;
+        lastPassCompletedAt = LocalDateTime.now();
+        lastPassSkus = passSkus;
+        passCursor = null;
+        nextPassAt = lastPassCompletedAt.plus(settings.getReconcileInterval());
+        log.debug("Conservation reconciliation checked {} SKUs, {} in violation", passSkus, violations.size());
+    }
+
+    /**
+     * Checks the SKUs after the cursor up to the next {@code chunk-size}
+     * baselines. The last chunk is open-ended, so stock filed under SKUs
+     * beyond the last baseline is still seen.
+     *
+     * @return whether the pass reached the end of the key space
+     */
+    private boolean checkChunk() {
+        List<String> keys = jdbcTemplate.queryForList(NEXT_CHUNK_KEYS, String.class, passCursor, settings.getChunkSize());
+        boolean last = keys.size() < settings.getChunkSize();
+        Set<String> checked = last
+                ? balance("sku > ?", passCursor)
+                : balance("sku > ? AND sku <= ?", passCursor, keys.get(keys.size() - 1));
+        // SKUs in the range that no longer have any rows are balanced by definition.
+        violations.keySet().removeIf(sku -> sku.compareTo(passCursor) > 0
+                && (last || sku.compareTo(keys.get(keys.size() - 1)) <= 0)
+                && !checked.contains(sku));
+
+        passSkus += checked.size();
+        fullChecks.increment(checked.size());
+        if (!last) {
+            passCursor = keys.get(keys.size() - 1);
+        }
+        return last;
+    }
+
+    private void check(Collection<String> skus) {
+        String placeholders = String.join(", ", Collections.nCopies(skus.size(), "?"));
+        Set<String> checked = balance("sku IN (" + placeholders + ")", skus.toArray());
+        for (String sku : skus) {
+            if (!checked.contains(sku)) {
+                violations.remove(sku);
+            }
+        }
+    }
+
+    /** Runs the balance query over the SKUs matching {@code condition} and records what it finds. */
+    private Set<String> balance(String condition, Object... args) {
+        // The condition appears once per branch of the union.
+        Object[] repeated = new Object[args.length * 3];
+        for (int branch = 0; branch < 3; branch++) {
+            System.arraycopy(args, 0, repeated, branch * args.length, args.length);
+        }
+        Set<String> seen = new HashSet<>();
+        jdbcTemplate.query(BALANCE.formatted(condition), (ResultSet row) -> {
+            seen.add(row.getString("sku"));
+            evaluate(row);
+        }, repeated);
+        return seen;
+    }
+
+    private void evaluate(ResultSet row) throws SQLException {
+        String sku = row.getString("sku");
+        boolean recorded = row.getLong("baselines") > 0;
+        long baseline = row.getLong("baseline");
+        long actual = row.getLong("actual");
+        Integer lowest = row.getObject("lowest") == null ? null : row.getInt("lowest");
+
+        List<String> kinds = new ArrayList<>(3);
+        if (!recorded && actual != 0) {
+            kinds.add(Kind.UNRECORDED.label);
+        } else if (recorded && actual != baseline) {
+            kinds.add(Kind.DRIFT.label);
+        }
+        if (lowest != null && lowest < 0) {
+            kinds.add(Kind.NEGATIVE.label);
+        }
+
+        if (kinds.isEmpty()) {
+            if (violations.remove(sku) != null) {
+                log.info("SKU {} balances again at {}", sku, actual);
+            }
+            return;
+        }
+        ConservationReport.Violation previous = violations.get(sku);
+        violations.put(sku, ConservationReport.Violation.builder()
+                .sku(sku)
+                .kinds(kinds)
+                .baselineTotal(recorded ? baseline : null)
+                .actualTotal(actual)
+                .lowestQuantity(lowest)
+                .detectedAt(previous == null ? LocalDateTime.now() : previous.getDetectedAt())
+                .build());
+        if (previous == null) {
+            log.error("Conservation violated for SKU {} ({}): baseline {}, actual {}, lowest quantity {}",
+                    sku, String.join(", ", kinds), recorded ? baseline : "none", actual, lowest);
+        }
+    }
+
+    private static double count(Collection<ConservationReport.Violation> violations, Kind kind) {
+        return violations.stream().filter(violation -> violation.getKinds().contains(kind.label)).count();
+    }
+
+    private static double totalDrift(ConcurrentMap<String, ConservationReport.Violation> violations) {
+        return violations.values().stream()
+                .mapToLong(violation -> Math.abs(violation.getActualTotal()
+                        - (violation.getBaselineTotal() == null ? 0 : violation.getBaselineTotal())))
+                .sum();
+    }
+
+    private static Counter checked(MeterRegistry meterRegistry, String mode) {
+        return Counter.builder("inventory.conservation.checked")
+                .description("SKU balances checked, by loop")
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+
+    private enum Kind {
+        DRIFT("drift"),
+        NEGATIVE("negative"),
+        UNRECORDED("unrecorded");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+    }
+}
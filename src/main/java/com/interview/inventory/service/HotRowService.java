@@ -0,0 +1,497 @@
+package com.interview.inventory.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.interview.inventory.config.HotRowProperties;
+import com.interview.inventory.dto.HotRowReport;
+import com.interview.inventory.model.Inventory;
+import com.interview.inventory.model.InventoryBucket;
+import com.interview.inventory.repository.InventoryBucketRepository;
+import com.interview.inventory.repository.InventoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spreads the stock of a hot {@code (sku, location)} over several
+ * {@code inventory_bucket} rows, so concurrent transfers at that location
+ * update different rows instead of queueing on one.
+ * <p>
+ * Splitting moves the inventory row's quantity into the buckets and leaves the
+ * row at zero. Debits try one random bucket, then take what they need from
+ * the fullest buckets and the row; credits go to the buckets in turn. The
+ * row itself is never removed and may pick up stock again from writers that
+ * raced with the split, so the quantity at a split location is always the row
+ * plus its buckets. Merging folds the buckets back into the row.
+ * <p>
+ * A split location is marked on its inventory row ({@link Inventory#getBuckets()}),
+ * which only changes while the row is locked. Code holding the row, like the
+ * JPA engine and batches, reads the marker from it. The statement-based
+ * debits and credits also keep an in-memory view of split locations, but
+ * only to choose a fast path: a bucket statement falls back to the row when
+ * the buckets are gone, and a row debit that misses checks the row's marker
+ * before reporting a shortfall. A stale view therefore costs a statement,
+ * never a wrong answer.
+ */
+@Service
+@Slf4j
+public class HotRowService implements SchedulingConfigurer {
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryBucketRepository bucketRepository;
+    private final HotRowProperties settings;
+    private final TransactionTemplate transactionTemplate;
+
+    /** Split locations and their bucket counts, as last seen by this instance. */
+    private final Map<Key, Integer> splitLocations = new ConcurrentHashMap<>();
+
+    /** Locations whose split or merge is in flight; a refresh leaves them alone. */
+    private final Set<Key> changing = ConcurrentHashMap.newKeySet();
+
+    private final Cache<Key, WaitAverage> waits;
+    private final AtomicInteger nextBucket = new AtomicInteger();
+    private final Counter splits;
+    private final Counter merges;
+
+    public HotRowService(InventoryRepository inventoryRepository,
+                         InventoryBucketRepository bucketRepository,
+                         HotRowProperties settings,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry) {
+        this.inventoryRepository = inventoryRepository;
+        this.bucketRepository = bucketRepository;
+        this.settings = settings;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.waits = Caffeine.newBuilder()
+                .maximumSize(settings.getMaximumTrackedKeys())
+                .expireAfterAccess(settings.getIdleExpiry())
+                .build();
+
+        Gauge.builder("inventory.hotrows.split", splitLocations, Map::size)
+                .description("Locations currently split into sub-buckets")
+                .register(meterRegistry);
+        this.splits = Counter.builder("inventory.hotrows.rebalances")
+                .description("Locations split into or merged back from sub-buckets")
+                .tag("action", "split")
+                .register(meterRegistry);
+        this.merges = Counter.builder("inventory.hotrows.rebalances")
+                .description("Locations split into or merged back from sub-buckets")
+                .tag("action", "merge")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void refresh() {
+        Map<Key, Integer> stored = new HashMap<>();
+        for (InventoryBucketRepository.SplitKey row : bucketRepository.summarizeSplitKeys()) {
+            stored.put(new Key(row.getSku(), row.getLocation()), row.getBuckets().intValue());
+        }
+        splitLocations.keySet().removeIf(key -> !stored.containsKey(key) && !changing.contains(key));
+        stored.forEach((key, buckets) -> {
+            if (!changing.contains(key)) {
+                splitLocations.put(key, buckets);
+            }
+        });
+    }
+
+    /** Whether the location is split, according to its row. */
+    public boolean isSplit(String sku, String location) {
+        return inventoryRepository.findRowState(sku, location)
+                .map(row -> row.getBuckets() > 0)
+                .orElse(false);
+    }
+
+    /** Every split location, read from the bucket table. */
+    public Set<Key> splitKeys() {
+        Set<Key> keys = new HashSet<>();
+        for (InventoryBucketRepository.SplitKey row : bucketRepository.summarizeSplitKeys()) {
+            keys.add(new Key(row.getSku(), row.getLocation()));
+        }
+        return keys;
+    }
+
+    /**
+     * Takes {@code quantity} units from the location. Returns false, with
+     * nothing changed, if the location does not hold that much in total.
+     * Must run inside a transaction.
+     */
+    public boolean debit(String sku, String location, int quantity) {
+        Key key = new Key(sku, location);
+        long started = System.nanoTime();
+        try {
+            Integer buckets = splitLocations.get(key);
+            if (buckets != null) {
+                int bucket = ThreadLocalRandom.current().nextInt(buckets);
+                if (bucketRepository.debit(sku, location, bucket, quantity) == 1) {
+                    return true;
+                }
+                return debitAcrossBuckets(sku, location, quantity);
+            }
+            if (inventoryRepository.debit(sku, location, quantity).isPresent()) {
+                return true;
+            }
+            // The location may have been split by another instance, or while this
+            // statement waited for the row; the row says which.
+            return splitInDatabase(key) && debitAcrossBuckets(sku, location, quantity);
+        } finally {
+            recordWait(key, System.nanoTime() - started);
+        }
+    }
+
+    /** Adds {@code quantity} units to the location, creating its row if needed. */
+    public void credit(String sku, String location, int quantity) {
+        Key key = new Key(sku, location);
+        long started = System.nanoTime();
+        try {
+            Integer buckets = splitLocations.get(key);
+            if (buckets != null) {
+                int bucket = Math.floorMod(nextBucket.getAndIncrement(), buckets);
+                if (bucketRepository.credit(sku, location, bucket, quantity) == 1) {
+                    return;
+                }
+            }
+            inventoryRepository.credit(sku, location, quantity);
+        } finally {
+            recordWait(key, System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Debit for a split location whose row the caller holds locked, as batches
+     * do. Takes from the buckets first and any rest from the locked entity.
+     * Only bucket statements are run, so the caller's pending changes to
+     * inventory rows are not flushed early. Returns false, with nothing
+     * changed, if the location does not hold that much in total.
+     */
+    public boolean debitLocked(Inventory row, int quantity) {
+        Key key = new Key(row.getSku(), row.getLocation());
+        int bucket = ThreadLocalRandom.current().nextInt(row.getBuckets());
+        if (bucketRepository.debit(key.sku(), key.location(), bucket, quantity) == 1) {
+            return true;
+        }
+
+        int remaining = quantity;
+        Map<Integer, Integer> taken = new HashMap<>();
+        for (InventoryBucketRepository.BucketQuantity stored : bucketRepository.findQuantities(key.sku(), key.location())) {
+            if (remaining <= row.getQuantity()) {
+                break;
+            }
+            int amount = Math.min(stored.getQuantity(), remaining - row.getQuantity());
+            if (amount > 0 && bucketRepository.debit(key.sku(), key.location(), stored.getBucket(), amount) == 1) {
+                taken.put(stored.getBucket(), amount);
+                remaining -= amount;
+            }
+        }
+        if (remaining <= row.getQuantity()) {
+            row.setQuantity(row.getQuantity() - remaining);
+            return true;
+        }
+        taken.forEach((stored, amount) -> bucketRepository.credit(key.sku(), key.location(), stored, amount));
+        return false;
+    }
+
+    /** Credit for a split location whose row the caller holds locked; see {@link #debitLocked}. */
+    public void creditLocked(Inventory row, int quantity) {
+        int bucket = Math.floorMod(nextBucket.getAndIncrement(), row.getBuckets());
+        if (bucketRepository.credit(row.getSku(), row.getLocation(), bucket, quantity) == 0) {
+            // Cannot happen while the row is locked, since merging needs that lock.
+            row.setQuantity(row.getQuantity() + quantity);
+        }
+    }
+
+    /** Quantity at a split location whose row the caller holds locked: the row plus its buckets. */
+    public int quantityAt(Inventory row) {
+        return row.getQuantity() + bucketQuantity(row.getSku(), row.getLocation());
+    }
+
+    /** Current quantity at the location, or empty if it has no inventory row. */
+    public Optional<Integer> quantityAt(String sku, String location) {
+        return inventoryRepository.findRowState(sku, location)
+                .map(row -> row.getBuckets() > 0
+                        ? row.getQuantity() + bucketQuantity(sku, location)
+                        : row.getQuantity());
+    }
+
+    /** Stock held in buckets for each split location of the SKU. */
+    public Map<String, Long> bucketTotals(String sku) {
+        Map<String, Long> totals = new HashMap<>();
+        for (InventoryBucketRepository.SplitKey row : bucketRepository.summarizeSplitKeys(sku)) {
+            totals.put(row.getLocation(), row.getTotal());
+        }
+        return totals;
+    }
+
+    /** Stock held in buckets for every split location. */
+    public Map<Key, Long> bucketTotals() {
+        Map<Key, Long> totals = new HashMap<>();
+        for (InventoryBucketRepository.SplitKey row : bucketRepository.summarizeSplitKeys()) {
+            totals.put(new Key(row.getSku(), row.getLocation()), row.getTotal());
+        }
+        return totals;
+    }
+
+    /** Feeds a statement or lock wait observed at the location into its moving average. */
+    public void recordWait(String sku, String location, long nanos) {
+        recordWait(new Key(sku, location), nanos);
+    }
+
+    /**
+     * Splits the location into {@code buckets} rows. Returns false if it has no
+     * inventory row or is already split.
+     */
+    public boolean split(String sku, String location, int buckets) {
+        if (buckets < 2) {
+            throw new IllegalArgumentException("A location needs at least 2 buckets, got " + buckets);
+        }
+        Key key = new Key(sku, location);
+        changing.add(key);
+        try {
+            boolean split = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                List<Inventory> rows = inventoryRepository.findAllForUpdate(Set.of(sku), Set.of(location));
+                if (rows.isEmpty() || !bucketRepository.findAllForUpdate(sku, location).isEmpty()) {
+                    return false;
+                }
+                // Published while the row is locked, so anyone who locks it next sees the split.
+                splitLocations.put(key, buckets);
+
+                Inventory row = rows.get(0);
+                int quantity = row.getQuantity();
+                List<InventoryBucket> created = new ArrayList<>(buckets);
+                for (int bucket = 0; bucket < buckets; bucket++) {
+                    created.add(InventoryBucket.builder()
+                            .sku(sku)
+                            .location(location)
+                            .bucket(bucket)
+                            .quantity(quantity / buckets + (bucket < quantity % buckets ? 1 : 0))
+                            .build());
+                }
+                bucketRepository.saveAll(created);
+                row.setQuantity(0);
+                row.setBuckets(buckets);
+                return true;
+            }));
+            if (split) {
+                splits.increment();
+                log.info("Split {} at {} into {} buckets", sku, location, buckets);
+            }
+            return split;
+        } catch (RuntimeException e) {
+            splitLocations.remove(key);
+            throw e;
+        } finally {
+            changing.remove(key);
+        }
+    }
+
+    /** Folds the location's buckets back into its inventory row. Returns false if it was not split. */
+    public boolean merge(String sku, String location) {
+        Key key = new Key(sku, location);
+        changing.add(key);
+        try {
+            boolean merged = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                // Row before buckets, the same order split uses.
+                List<Inventory> rows = inventoryRepository.findAllForUpdate(Set.of(sku), Set.of(location));
+                List<InventoryBucket> buckets = bucketRepository.findAllForUpdate(sku, location);
+                if (buckets.isEmpty()) {
+                    return false;
+                }
+                int inBuckets = buckets.stream().mapToInt(InventoryBucket::getQuantity).sum();
+                Inventory row = rows.isEmpty()
+                        ? Inventory.builder().sku(sku).location(location).quantity(0).build()
+                        : rows.get(0);
+                row.setQuantity(row.getQuantity() + inBuckets);
+                row.setBuckets(0);
+                inventoryRepository.save(row);
+                bucketRepository.deleteAllInBatch(buckets);
+                return true;
+            }));
+            // Removed only after commit: until then the buckets still hold the stock.
+            splitLocations.remove(key);
+            if (merged) {
+                merges.increment();
+                log.info("Merged {} at {} back into one row", sku, location);
+            }
+            return merged;
+        } finally {
+            changing.remove(key);
+        }
+    }
+
+    /**
+     * Splits locations whose average wait is above {@code split-threshold} and
+     * merges split ones that went idle or whose average, scaled back up by the
+     * bucket count, is below {@code merge-threshold}. Scaling keeps a location
+     * from being merged just because splitting it made each bucket quiet.
+     */
+    public void rebalance() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        refresh();
+
+        long mergeBelow = settings.getMergeThreshold().toNanos();
+        splitLocations.forEach((key, buckets) -> {
+            WaitAverage wait = waits.getIfPresent(key);
+            if (wait == null || wait.get() * buckets < mergeBelow) {
+                tryRebalance(() -> merge(key.sku(), key.location()));
+            }
+        });
+
+        long splitAbove = settings.getSplitThreshold().toNanos();
+        waits.asMap().entrySet().stream()
+                .filter(entry -> !splitLocations.containsKey(entry.getKey()))
+                .filter(entry -> entry.getValue().get() > splitAbove)
+                .sorted(Comparator.comparingDouble(entry -> -entry.getValue().get()))
+                .limit(Math.max(0, settings.getMaxSplitKeys() - splitLocations.size()))
+                .forEach(entry -> {
+                    Key key = entry.getKey();
+                    // Start the split location from its expected per-bucket wait, not from zero.
+                    waits.put(key, new WaitAverage(entry.getValue().get() / settings.getBuckets()));
+                    tryRebalance(() -> split(key.sku(), key.location(), settings.getBuckets()));
+                });
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(new FixedDelayTask(this::rebalance,
+                settings.getCheckInterval(), settings.getCheckInterval()));
+    }
+
+    public HotRowReport report() {
+        Map<Key, Long> totals = bucketTotals();
+        List<HotRowReport.Location> split = new ArrayList<>();
+        splitLocations.forEach((key, buckets) -> split.add(location(key, buckets, totals.get(key))));
+
+        List<HotRowReport.Location> hottest = waits.asMap().entrySet().stream()
+                .sorted(Comparator.comparingDouble(entry -> -entry.getValue().get()))
+                .limit(20)
+                .map(entry -> location(entry.getKey(), splitLocations.get(entry.getKey()), totals.get(entry.getKey())))
+                .toList();
+        return HotRowReport.builder()
+                .enabled(settings.isEnabled())
+                .splitLocations(split)
+                .hottestLocations(hottest)
+                .build();
+    }
+
+    private boolean debitAcrossBuckets(String sku, String location, int quantity) {
+        List<InventoryBucketRepository.BucketQuantity> buckets = bucketRepository.findQuantities(sku, location);
+        int inRow = inventoryRepository.findQuantity(sku, location).orElse(0);
+        long available = inRow + buckets.stream().mapToLong(InventoryBucketRepository.BucketQuantity::getQuantity).sum();
+        if (available < quantity) {
+            return false;
+        }
+
+        // Each statement is guarded, so a concurrent debit can only make one of
+        // them miss. Anything taken before a miss is put back.
+        int remaining = quantity;
+        Map<Integer, Integer> taken = new HashMap<>();
+        for (InventoryBucketRepository.BucketQuantity bucket : buckets) {
+            int amount = Math.min(bucket.getQuantity(), remaining);
+            if (amount > 0 && bucketRepository.debit(sku, location, bucket.getBucket(), amount) == 1) {
+                taken.put(bucket.getBucket(), amount);
+                remaining -= amount;
+            }
+            if (remaining == 0) {
+                return true;
+            }
+        }
+        if (inventoryRepository.debit(sku, location, remaining).isPresent()) {
+            return true;
+        }
+        taken.forEach((bucket, amount) -> bucketRepository.credit(sku, location, bucket, amount));
+        return false;
+    }
+
+    private int bucketQuantity(String sku, String location) {
+        return bucketRepository.findQuantities(sku, location).stream()
+                .mapToInt(InventoryBucketRepository.BucketQuantity::getQuantity)
+                .sum();
+    }
+
+    /** Reads the row's marker and brings the in-memory view up to date with it. */
+    private boolean splitInDatabase(Key key) {
+        int buckets = inventoryRepository.findRowState(key.sku(), key.location())
+                .map(InventoryRepository.RowState::getBuckets)
+                .orElse(0);
+        if (!changing.contains(key)) {
+            if (buckets > 0) {
+                splitLocations.put(key, buckets);
+            } else {
+                splitLocations.remove(key);
+            }
+        }
+        return buckets > 0;
+    }
+
+    private void recordWait(Key key, long nanos) {
+        if (settings.isEnabled()) {
+            waits.get(key, k -> new WaitAverage(nanos)).update(nanos, settings.getSmoothing());
+        }
+    }
+
+    private void tryRebalance(Runnable change) {
+        try {
+            change.run();
+        } catch (RuntimeException e) {
+            log.warn("Hot-row rebalance step failed, will retry on the next check: {}", e.getMessage());
+        }
+    }
+
+    private HotRowReport.Location location(Key key, Integer buckets, Long inBuckets) {
+        WaitAverage wait = waits.getIfPresent(key);
+        return HotRowReport.Location.builder()
+                .sku(key.sku())
+                .location(key.location())
+                .buckets(buckets)
+                .quantity(inBuckets)
+                .averageWaitMillis(wait == null ? null : wait.get() / 1_000_000.0)
+                .build();
+    }
+
+    public record Key(String sku, String location) {
+    }
+
+    private static final class WaitAverage {
+
+        private final AtomicLong bits;
+
+        WaitAverage(double initial) {
+            this.bits = new AtomicLong(Double.doubleToLongBits(initial));
+        }
+
+        double get() {
+            return Double.longBitsToDouble(bits.get());
+        }
+
+        void update(double sample, double weight) {
+            long previous;
+            double updated;
+            do {
+                previous = bits.get();
+                updated = (1 - weight) * Double.longBitsToDouble(previous) + weight * sample;
+            } while (!bits.compareAndSet(previous, Double.doubleToLongBits(updated)));
+        }
+    }
+}
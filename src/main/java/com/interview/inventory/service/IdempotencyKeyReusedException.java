@@ -0,0 +1,12 @@
+package com.interview.inventory.service;
+
+/**
+ * An {@code Idempotency-Key} that was already used for a different transfer.
+ * The original transfer is left as it was and the new one is not run.
+ */
+public class IdempotencyKeyReusedException extends IllegalStateException {
+
+    public IdempotencyKeyReusedException(String key) {
+        super("Idempotency-Key " + key + " was already used for a different transfer");
+    }
+}
@@ -0,0 +1,186 @@
+package com.interview.inventory.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.interview.inventory.config.IdempotencyProperties;
+import com.interview.inventory.dto.TransferRequest;
+import com.interview.inventory.dto.TransferResponse;
+import com.interview.inventory.repository.TransferLogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Runs each {@code Idempotency-Key} at most once. A repeated key gets the
+ * original {@link TransferResponse} back without touching inventory rows.
+ * <p>
+ * A key is looked up in three places, cheapest first: a bounded cache of
+ * recent responses, the transfers still running on this instance, and
+ * {@code transfer_log} by its unique key column. The database lookup is
+ * skipped when the Bloom filter has never seen the key, which is the usual
+ * case for a first attempt. The filter only knows the keys stored at startup
+ * and the ones used here since, so a key first used on another instance is
+ * caught by the unique index instead: the losing transaction rolls back and
+ * the stored response is returned.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private final TransferLogRepository transferLogRepository;
+    private final IdempotencyProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final BloomFilter seen;
+    private final Cache<String, TransferResponse> recent;
+    private final ConcurrentMap<String, CompletableFuture<TransferResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter cacheReplays;
+    private final Counter inFlightReplays;
+    private final Counter databaseReplays;
+    private final Counter falsePositives;
+
+    public IdempotencyService(TransferLogRepository transferLogRepository,
+                              IdempotencyProperties properties,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry) {
+        this.transferLogRepository = transferLogRepository;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.seen = new BloomFilter(properties.getExpectedKeys(), properties.getFalsePositiveRate());
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheSize())
+                .expireAfterWrite(properties.getCacheTtl())
+                .build();
+
+        this.cacheReplays = replays(meterRegistry, "cache");
+        this.inFlightReplays = replays(meterRegistry, "in-flight");
+        this.databaseReplays = replays(meterRegistry, "database");
+        this.falsePositives = Counter.builder("inventory.idempotency.false.positives")
+                .description("Keys the Bloom filter reported as seen that were not in transfer_log")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void loadStoredKeys() {
+        long loaded = readOnlyTransaction.execute(status -> {
+            try (Stream<String> keys = transferLogRepository.streamIdempotencyKeys()) {
+                return keys.peek(seen::put).count();
+            }
+        });
+        log.info("Loaded {} idempotency keys into the Bloom filter", loaded);
+    }
+
+    /**
+     * Runs {@code action} unless the request's key was used before, in which
+     * case the earlier response is returned. Requests without a key always run.
+     *
+     * @throws IdempotencyKeyReusedException if the key belongs to a different transfer
+     */
+    public CompletableFuture<TransferResponse> execute(TransferRequest request,
+                                                       Function<TransferRequest, CompletableFuture<TransferResponse>> action) {
+        String key = request.getIdempotencyKey();
+        if (!properties.isEnabled() || key == null) {
+            return action.apply(request);
+        }
+
+        TransferResponse cached = recent.getIfPresent(key);
+        if (cached != null) {
+            cacheReplays.increment();
+            return CompletableFuture.completedFuture(cached).thenApply(response -> replay(key, request, response));
+        }
+
+        CompletableFuture<TransferResponse> promise = new CompletableFuture<>();
+        CompletableFuture<TransferResponse> running = inFlight.putIfAbsent(key, promise);
+        if (running != null) {
+            inFlightReplays.increment();
+            return running.thenApply(response -> replay(key, request, response));
+        }
+
+        try {
+            Optional<TransferResponse> stored = seen.mightContain(key) ? lookup(key) : Optional.empty();
+            if (stored.isPresent()) {
+                databaseReplays.increment();
+                complete(key, promise, stored.get(), null);
+            } else {
+                action.apply(request).whenComplete((response, failure) -> complete(key, promise, response, failure));
+            }
+        } catch (RuntimeException e) {
+            complete(key, promise, null, e);
+        }
+        // The key may have been stored by another instance for a different transfer.
+        return promise.thenApply(response -> replay(key, request, response));
+    }
+
+    private Optional<TransferResponse> lookup(String key) {
+        Optional<TransferResponse> stored = readOnlyTransaction.execute(status ->
+                transferLogRepository.findByIdempotencyKey(key).map(TransferService::toResponse));
+        if (stored.isEmpty()) {
+            falsePositives.increment();
+        }
+        return stored;
+    }
+
+    /**
+     * Settles the caller's future. A transfer that failed because the unique
+     * index rejected its key lost to one stored elsewhere, so once a failure
+     * is seen the stored response, if any, is used instead.
+     * Only responses that were written to {@code transfer_log} are remembered;
+     * anything else leaves the key free to be retried.
+     */
+    private void complete(String key, CompletableFuture<TransferResponse> promise,
+                          TransferResponse response, Throwable failure) {
+        try {
+            if (failure != null) {
+                Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                Optional<TransferResponse> stored = transferLogRepository.findByIdempotencyKey(key)
+                        .map(TransferService::toResponse);
+                if (stored.isEmpty()) {
+                    promise.completeExceptionally(cause);
+                    return;
+                }
+                databaseReplays.increment();
+                response = stored.get();
+            }
+            if (response.getTransferId() != null) {
+                seen.put(key);
+                recent.put(key, response);
+            }
+            promise.complete(response);
+        } catch (RuntimeException e) {
+            promise.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, promise);
+        }
+    }
+
+    private static TransferResponse replay(String key, TransferRequest request, TransferResponse original) {
+        if (!Objects.equals(request.getSku(), original.getSku())
+                || !Objects.equals(request.getFromLocation(), original.getFromLocation())
+                || !Objects.equals(request.getToLocation(), original.getToLocation())
+                || !Objects.equals(request.getQuantity(), original.getQuantity())) {
+            throw new IdempotencyKeyReusedException(key);
+        }
+        return original;
+    }
+
+    private static Counter replays(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("inventory.idempotency.replays")
+                .description("Repeated Idempotency-Keys answered with the original response, by where it was found")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+}
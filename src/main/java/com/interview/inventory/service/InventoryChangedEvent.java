@@ -0,0 +1,44 @@
+package com.interview.inventory.service;
+
+import com.interview.inventory.model.TransferLog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Published inside a transfer transaction for the SKUs whose stock it changed.
+ * Listeners that must only see committed state use
+ * {@code @TransactionalEventListener(phase = AFTER_COMMIT)}.
+ * <p>
+ * {@code movements} names the locations whose stock changed, for listeners
+ * that work per location. It is empty when the database does not hold the
+ * new stock yet, as for the journal engine before projection.
+ */
+public record InventoryChangedEvent(Set<String> skus, List<Movement> movements) {
+
+    public InventoryChangedEvent(Set<String> skus) {
+        this(skus, List.of());
+    }
+
+    /** The event for the COMPLETED rows among {@code transferLogs}, which must have their ids. */
+    public static InventoryChangedEvent of(Collection<TransferLog> transferLogs) {
+        Set<String> skus = new HashSet<>();
+        List<Movement> movements = new ArrayList<>(transferLogs.size() * 2);
+        for (TransferLog transferLog : transferLogs) {
+            if (transferLog.getStatus() != TransferLog.TransferStatus.COMPLETED) {
+                continue;
+            }
+            skus.add(transferLog.getSku());
+            movements.add(new Movement(transferLog.getSku(), transferLog.getFromLocation(), transferLog.getId()));
+            movements.add(new Movement(transferLog.getSku(), transferLog.getToLocation(), transferLog.getId()));
+        }
+        return new InventoryChangedEvent(skus, movements);
+    }
+
+    /** A location whose stock a transfer changed. */
+    public record Movement(String sku, String location, Long transferId) {
+    }
+}
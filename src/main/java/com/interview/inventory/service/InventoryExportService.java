@@ -0,0 +1,139 @@
+package com.interview.inventory.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.interview.inventory.model.Inventory;
+import com.interview.inventory.repository.InventoryRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Full-table inventory reads whose memory use does not grow with the table:
+ * keyset pages for clients that page, and a forward-only stream written to
+ * the response as rows arrive for clients that want everything.
+ */
+@Service
+public class InventoryExportService {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final InventoryRepository inventoryRepository;
+    private final HotRowService hotRows;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public InventoryExportService(InventoryRepository inventoryRepository,
+                                  HotRowService hotRows,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager) {
+        this.inventoryRepository = inventoryRepository;
+        this.hotRows = hotRows;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public List<Inventory> page(Long afterId, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Inventory> page = readOnlyTransaction.execute(status -> inventoryRepository
+                .findByIdGreaterThanOrderByIdAsc(afterId == null ? 0L : afterId, Limit.of(size)));
+        // Detached by now, so adding bucket stock changes only what is returned.
+        Map<HotRowService.Key, Long> inBuckets = hotRows.bucketTotals();
+        page.forEach(inventory -> addBucketStock(inventory, inBuckets));
+        return page;
+    }
+
+    public void writeJsonArray(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.createGenerator(out);
+        generator.writeStartArray();
+        forEachRow(inventory -> write(() -> generator.writeObject(inventory)));
+        generator.writeEndArray();
+        generator.flush();
+    }
+
+    public void writeNdjson(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        forEachRow(inventory -> write(() -> {
+            writer.write(objectMapper.writeValueAsString(inventory));
+            writer.write('\n');
+        }));
+        writer.flush();
+    }
+
+    public void writeCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,sku,location,quantity,updated_at,version\n");
+        forEachRow(inventory -> write(() -> writer.write(String.join(",",
+                String.valueOf(inventory.getId()),
+                csv(inventory.getSku()),
+                csv(inventory.getLocation()),
+                String.valueOf(inventory.getQuantity()),
+                inventory.getUpdatedAt() == null ? "" : inventory.getUpdatedAt().toString(),
+                String.valueOf(inventory.getVersion())) + "\n")));
+        writer.flush();
+    }
+
+    /**
+     * Walks the table in one read-only transaction. Each row is detached before
+     * it is handed over, so the persistence context holds at most one entity.
+     */
+    private void forEachRow(Consumer<Inventory> sink) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            Map<HotRowService.Key, Long> inBuckets = hotRows.bucketTotals();
+            try (Stream<Inventory> rows = inventoryRepository.streamAllOrderById()) {
+                rows.forEach(inventory -> {
+                    entityManager.detach(inventory);
+                    addBucketStock(inventory, inBuckets);
+                    sink.accept(inventory);
+                });
+            }
+        });
+    }
+
+    /** Reports a split location with the stock held in its sub-buckets; the entity must be detached. */
+    private static void addBucketStock(Inventory inventory, Map<HotRowService.Key, Long> inBuckets) {
+        Long extra = inBuckets.get(new HotRowService.Key(inventory.getSku(), inventory.getLocation()));
+        if (extra != null) {
+            inventory.setQuantity(inventory.getQuantity() + extra.intValue());
+        }
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static void write(IoAction action) {
+        try {
+            action.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IoAction {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,164 @@
+package com.interview.inventory.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.interview.inventory.config.InventoryCacheProperties;
+import com.interview.inventory.config.ReadDataSourceProperties;
+import com.interview.inventory.dto.InventoryResponse;
+import com.interview.inventory.journal.JournaledTransferEngine;
+import com.interview.inventory.model.Inventory;
+import com.interview.inventory.repository.InventoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+/**
+ * Read side of the per-SKU inventory view. Assembled responses are cached in
+ * memory, bounded by size and TTL, and evicted once a transfer touching the
+ * SKU commits. A cache hit never opens a transaction or borrows a connection.
+ * <p>
+ * Loads normally use a read-only transaction, which goes to the read pool
+ * when one is configured. For {@code inventory.datasource.read.max-lag} after
+ * a SKU's entry is evicted they read the primary instead, since the replica
+ * may not have the commit yet and its view would be cached for the full TTL.
+ */
+@Service
+public class InventoryQueryService {
+
+    private static final int GENERATION_STRIPES = 64;
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryCacheProperties cacheProperties;
+    private final HotRowService hotRows;
+    private final Optional<JournaledTransferEngine> journaledEngine;
+    private final TransactionTemplate readOnlyTransaction;
+    /** Read-write, so that it is routed to the primary. */
+    private final TransactionTemplate primaryTransaction;
+    private final long replicaLagNanos;
+    private final Cache<String, InventoryResponse> cache;
+
+    /**
+     * Bumped on every invalidation. A loader only stores its result if the
+     * stripe did not move while it was reading, so a read that raced with a
+     * commit cannot put the pre-commit view back into the cache.
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    /** {@link System#nanoTime} of each stripe's last invalidation, or 0. */
+    private final AtomicLongArray invalidatedAt = new AtomicLongArray(GENERATION_STRIPES);
+
+    public InventoryQueryService(InventoryRepository inventoryRepository,
+                                 InventoryCacheProperties cacheProperties,
+                                 HotRowService hotRows,
+                                 Optional<JournaledTransferEngine> journaledEngine,
+                                 ReadDataSourceProperties readDataSourceProperties,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+        this.inventoryRepository = inventoryRepository;
+        this.cacheProperties = cacheProperties;
+        this.hotRows = hotRows;
+        this.journaledEngine = journaledEngine;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        this.replicaLagNanos = readDataSourceProperties.isEnabled() ? readDataSourceProperties.getMaxLag().toNanos() : 0;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaximumSize())
+                .expireAfterWrite(cacheProperties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "inventoryBySku");
+    }
+
+    public Optional<InventoryResponse> getInventory(String sku) {
+        if (journaledEngine.isPresent()) {
+            // The journal engine's memory is authoritative; the tables may lag it.
+            return journaledEngine.get().inventory(sku);
+        }
+        if (!cacheProperties.isEnabled()) {
+            return Optional.ofNullable(load(sku, readOnlyTransaction));
+        }
+
+        InventoryResponse cached = cache.getIfPresent(sku);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        int stripe = stripe(sku);
+        long generation = generations.get(stripe);
+        long invalidated = invalidatedAt.get(stripe);
+        boolean replicaMayLag = invalidated != 0 && System.nanoTime() - invalidated < replicaLagNanos;
+        InventoryResponse loaded = load(sku, replicaMayLag ? primaryTransaction : readOnlyTransaction);
+        if (loaded != null) {
+            // Checked under the entry's lock: an invalidation bumps the generation before
+            // it removes the entry, so it either fails this check or removes what was put.
+            cache.asMap().compute(sku, (key, current) ->
+                    current != null || generations.get(stripe) != generation ? current : loaded);
+        }
+        return Optional.ofNullable(loaded);
+    }
+
+    /**
+     * Whether {@link #getInventory} would answer without a database read: the
+     * journal engine holds the SKU in memory, or its response is cached. The
+     * answer can go stale before the read, so it is only a hint.
+     */
+    public boolean isServedFromMemory(String sku) {
+        return journaledEngine.isPresent()
+                || (cacheProperties.isEnabled() && cache.asMap().containsKey(sku));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        for (String sku : event.skus()) {
+            generations.incrementAndGet(stripe(sku));
+            if (replicaLagNanos > 0) {
+                invalidatedAt.set(stripe(sku), System.nanoTime());
+            }
+            cache.invalidate(sku);
+        }
+    }
+
+    private InventoryResponse load(String sku, TransactionTemplate transaction) {
+        return transaction.execute(status -> {
+            List<Inventory> inventories = inventoryRepository.findBySku(sku);
+
+            if (inventories.isEmpty()) {
+                return null;
+            }
+
+            // Split locations keep most of their stock in sub-buckets.
+            Map<String, Long> inBuckets = hotRows.bucketTotals(sku);
+
+            List<InventoryResponse.LocationStock> locations = inventories.stream()
+                    .map(inv -> InventoryResponse.LocationStock.builder()
+                            .location(inv.getLocation())
+                            .quantity(inv.getQuantity() + inBuckets.getOrDefault(inv.getLocation(), 0L).intValue())
+                            .build())
+                    .collect(Collectors.toList());
+
+            // The rows are already loaded, so summing them here replaces the
+            // separate SUM query and still reports any drift from sku_totals.
+            int total = locations.stream().mapToInt(InventoryResponse.LocationStock::getQuantity).sum();
+
+            return InventoryResponse.builder()
+                    .sku(sku)
+                    .totalQuantity(total)
+                    .locations(locations)
+                    .build();
+        });
+    }
+
+    private static int stripe(String sku) {
+        return Math.floorMod(sku.hashCode(), GENERATION_STRIPES);
+    }
+}
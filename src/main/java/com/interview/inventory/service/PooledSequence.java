@@ -0,0 +1,51 @@
+package com.interview.inventory.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out ids from a database sequence in blocks, using the same pooled
+ * scheme as Hibernate's optimizer: each fetched value is the top of a block of
+ * {@code increment}. That keeps these ids apart from the ones Hibernate
+ * assigns from the same sequence.
+ */
+class PooledSequence {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nextValueSql;
+    private final int increment;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private long nextId;
+    private long maxId = -1;
+
+    PooledSequence(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory, String sequence, int increment) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.increment = increment;
+        this.nextValueSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect()
+                .getSequenceSupport()
+                .getSequenceNextValString(sequence);
+    }
+
+    long next() {
+        lock.lock();
+        try {
+            if (nextId > maxId) {
+                long hi;
+                do {
+                    hi = jdbcTemplate.queryForObject(nextValueSql, Long.class);
+                } while (hi < increment);
+                nextId = hi - increment + 1;
+                maxId = hi;
+            }
+            return nextId++;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.interview.inventory.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.interview.inventory.config.TransferProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Chooses, per SKU, whether the JPA engine reads rows optimistically (and
+ * relies on {@code @Version}) or locks them with {@code SELECT ... FOR UPDATE}
+ * first. Each SKU keeps a smoothed conflict rate. A SKU switches to locking
+ * once the rate passes {@code lock-threshold}. While it is locking, long lock
+ * waits count as contention, and it switches back once the rate falls below
+ * {@code unlock-threshold}. SKUs that see no transfers are forgotten and
+ * start optimistic again.
+ */
+@Component
+@Slf4j
+public class SkuConcurrencyControl {
+
+    public enum Strategy { OPTIMISTIC, PESSIMISTIC }
+
+    private final TransferProperties.Contention settings;
+    private final Cache<String, SkuContention> skus;
+    private final AtomicInteger lockingSkus = new AtomicInteger();
+    private final Map<Strategy, Counter> committed = new EnumMap<>(Strategy.class);
+    private final Map<Strategy, Counter> conflicts = new EnumMap<>(Strategy.class);
+    private final Map<Strategy, Counter> retries = new EnumMap<>(Strategy.class);
+
+    public SkuConcurrencyControl(TransferProperties transferProperties, MeterRegistry meterRegistry) {
+        this.settings = transferProperties.getContention();
+        this.skus = Caffeine.newBuilder()
+                .maximumSize(settings.getMaximumTrackedSkus())
+                .expireAfterAccess(settings.getIdleExpiry())
+                .<String, SkuContention>removalListener((sku, contention, cause) -> {
+                    if (contention != null && contention.strategy.get() == Strategy.PESSIMISTIC) {
+                        lockingSkus.decrementAndGet();
+                    }
+                })
+                .build();
+
+        for (Strategy strategy : Strategy.values()) {
+            String tag = strategy.name().toLowerCase();
+            committed.put(strategy, Counter.builder("inventory.transfers.attempts")
+                    .description("Transfer transactions by locking strategy and result")
+                    .tags("strategy", tag, "result", "committed")
+                    .register(meterRegistry));
+            conflicts.put(strategy, Counter.builder("inventory.transfers.attempts")
+                    .description("Transfer transactions by locking strategy and result")
+                    .tags("strategy", tag, "result", "conflict")
+                    .register(meterRegistry));
+            retries.put(strategy, Counter.builder("inventory.transfers.retries")
+                    .description("Transfer attempts re-run after a conflict, by the strategy that conflicted")
+                    .tag("strategy", tag)
+                    .register(meterRegistry));
+        }
+        Gauge.builder("inventory.transfers.locking.skus", lockingSkus, AtomicInteger::get)
+                .description("SKUs currently using pessimistic locking")
+                .register(meterRegistry);
+    }
+
+    public Strategy strategyFor(String sku) {
+        if (!settings.isAdaptive()) {
+            return Strategy.OPTIMISTIC;
+        }
+        SkuContention contention = skus.getIfPresent(sku);
+        return contention == null ? Strategy.OPTIMISTIC : contention.strategy.get();
+    }
+
+    /**
+     * Records a committed attempt. {@code lockWaitNanos} is how long the locking
+     * read blocked, or 0 for optimistic attempts.
+     */
+    public void recordCommitted(String sku, Strategy strategy, long lockWaitNanos) {
+        committed.get(strategy).increment();
+        boolean contended = strategy == Strategy.PESSIMISTIC
+                && lockWaitNanos > settings.getLockWaitThreshold().toNanos();
+        observe(sku, contended);
+    }
+
+    public void recordConflict(String sku, Strategy strategy) {
+        conflicts.get(strategy).increment();
+        observe(sku, true);
+    }
+
+    public void recordRetry(Strategy strategy) {
+        retries.get(strategy).increment();
+    }
+
+    private void observe(String sku, boolean contended) {
+        if (!settings.isAdaptive()) {
+            return;
+        }
+        SkuContention contention = skus.get(sku, key -> new SkuContention());
+        double rate = contention.update(contended ? 1.0 : 0.0, settings.getSmoothing());
+
+        if (rate > settings.getLockThreshold()
+                && contention.strategy.compareAndSet(Strategy.OPTIMISTIC, Strategy.PESSIMISTIC)) {
+            lockingSkus.incrementAndGet();
+            log.info("SKU {} switched to pessimistic locking (conflict rate {})", sku, String.format("%.2f", rate));
+        } else if (rate < settings.getUnlockThreshold()
+                && contention.strategy.compareAndSet(Strategy.PESSIMISTIC, Strategy.OPTIMISTIC)) {
+            lockingSkus.decrementAndGet();
+            log.info("SKU {} switched back to optimistic locking", sku);
+        }
+    }
+
+    private static final class SkuContention {
+
+        private final AtomicLong rateBits = new AtomicLong(Double.doubleToLongBits(0.0));
+        private final AtomicReference<Strategy> strategy = new AtomicReference<>(Strategy.OPTIMISTIC);
+
+        double update(double sample, double weight) {
+            long previous;
+            double updated;
+            do {
+                previous = rateBits.get();
+                updated = (1 - weight) * Double.longBitsToDouble(previous) + weight * sample;
+            } while (!rateBits.compareAndSet(previous, Double.doubleToLongBits(updated)));
+            return updated;
+        }
+    }
+}
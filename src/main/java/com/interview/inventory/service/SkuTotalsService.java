@@ -0,0 +1,79 @@
+package com.interview.inventory.service;
+
+import com.interview.inventory.dto.SkuTotalsReport;
+import com.interview.inventory.model.SkuTotal;
+import com.interview.inventory.repository.InventoryBucketRepository;
+import com.interview.inventory.repository.InventoryRepository;
+import com.interview.inventory.repository.SkuTotalRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintenance for the {@code sku_totals} projection: checks it against the
+ * inventory table and rebuilds it. Both operations scan the whole inventory
+ * table, so they are for operators, not for request paths.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SkuTotalsService {
+
+    private final InventoryRepository inventoryRepository;
+    private final SkuTotalRepository skuTotalRepository;
+    private final InventoryBucketRepository inventoryBucketRepository;
+
+    @Transactional(readOnly = true)
+    public SkuTotalsReport verify() {
+        Map<String, Long> actual = new HashMap<>();
+        for (InventoryRepository.SkuQuantity row : inventoryRepository.sumQuantityBySku()) {
+            actual.put(row.getSku(), row.getTotal());
+        }
+        for (InventoryRepository.SkuQuantity row : inventoryBucketRepository.sumQuantityBySku()) {
+            actual.merge(row.getSku(), row.getTotal(), Long::sum);
+        }
+
+        List<SkuTotalsReport.Mismatch> mismatches = new ArrayList<>();
+        int checked = 0;
+        for (SkuTotal projected : skuTotalRepository.findAll()) {
+            checked++;
+            Long actualTotal = actual.remove(projected.getSku());
+            if (!projected.getTotalQuantity().equals(actualTotal)) {
+                mismatches.add(mismatch(projected.getSku(), projected.getTotalQuantity(), actualTotal));
+            }
+        }
+        // Whatever is left has stock but no projection row.
+        checked += actual.size();
+        actual.forEach((sku, total) -> mismatches.add(mismatch(sku, null, total)));
+
+        if (!mismatches.isEmpty()) {
+            log.warn("sku_totals disagrees with inventory for {} SKUs", mismatches.size());
+        }
+        return SkuTotalsReport.builder()
+                .skusChecked(checked)
+                .mismatches(mismatches)
+                .build();
+    }
+
+    @Transactional
+    public int rebuild() {
+        skuTotalRepository.deleteAllInBatch();
+        int rows = skuTotalRepository.insertFromInventory();
+        log.info("Rebuilt sku_totals with {} SKUs", rows);
+        return rows;
+    }
+
+    private static SkuTotalsReport.Mismatch mismatch(String sku, Long projected, Long actual) {
+        return SkuTotalsReport.Mismatch.builder()
+                .sku(sku)
+                .projectedTotal(projected)
+                .actualTotal(actual)
+                .build();
+    }
+}
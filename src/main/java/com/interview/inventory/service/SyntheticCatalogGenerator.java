@@ -0,0 +1,109 @@
+package com.interview.inventory.service;
+
+import com.interview.inventory.config.SeedProperties;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * Generates a synthetic catalogue row by row, in SKU order, without holding
+ * it in memory. SKU {@code n} (from {@code SKU-0000001}) has popularity rank
+ * {@code n}: its stock per location is {@code max-quantity / n^skew}, give or
+ * take half, but at least {@code min-quantity}. The locations stocking each
+ * SKU are drawn with Zipf weights too, so low-numbered locations behave like
+ * large warehouses. Each SKU has its own random stream derived from
+ * {@code seed}, so the same settings always give the same rows.
+ */
+public class SyntheticCatalogGenerator implements Iterator<BulkInventoryLoader.Row> {
+
+    private final SeedProperties.Synthetic settings;
+    private final int locationsPerSku;
+    /** Cumulative location weights, for drawing locations by binary search. */
+    private final double[] locationWeights;
+    private final Deque<BulkInventoryLoader.Row> current = new ArrayDeque<>();
+    private int nextSku;
+
+    public SyntheticCatalogGenerator(SeedProperties.Synthetic settings) {
+        if (settings.getSkus() < 0 || settings.getLocations() < 1 || settings.getLocationsPerSku() < 1) {
+            throw new IllegalArgumentException("A synthetic catalogue needs at least one location per SKU");
+        }
+        this.settings = settings;
+        this.locationsPerSku = Math.min(settings.getLocationsPerSku(), settings.getLocations());
+        this.locationWeights = new double[settings.getLocations()];
+        double cumulative = 0;
+        for (int rank = 1; rank <= locationWeights.length; rank++) {
+            cumulative += 1 / Math.pow(rank, settings.getSkew());
+            locationWeights[rank - 1] = cumulative;
+        }
+    }
+
+    public static String sku(int index) {
+        return String.format("SKU-%07d", index + 1);
+    }
+
+    public static String location(int index) {
+        return String.format("LOC-%04d", index + 1);
+    }
+
+    /** Rows the catalogue has in total. */
+    public long size() {
+        return (long) settings.getSkus() * locationsPerSku;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (current.isEmpty() && nextSku < settings.getSkus()) {
+            generate(nextSku++);
+        }
+        return !current.isEmpty();
+    }
+
+    @Override
+    public BulkInventoryLoader.Row next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.poll();
+    }
+
+    private void generate(int skuIndex) {
+        SplittableRandom random = new SplittableRandom(settings.getSeed() * 0x9E3779B97F4A7C15L + skuIndex);
+        double stock = settings.getMaxQuantity() / Math.pow(skuIndex + 1, settings.getSkew());
+
+        boolean[] chosen = new boolean[locationWeights.length];
+        int picked = 0;
+        // Rejection sampling, with a bounded number of draws so heavy skew cannot stall it.
+        for (int draw = 0; picked < locationsPerSku && draw < locationsPerSku * 20; draw++) {
+            int location = drawLocation(random);
+            if (!chosen[location]) {
+                chosen[location] = true;
+                picked++;
+            }
+        }
+        for (int location = 0; picked < locationsPerSku; location++) {
+            if (!chosen[location]) {
+                chosen[location] = true;
+                picked++;
+            }
+        }
+
+        String sku = sku(skuIndex);
+        for (int location = 0; location < chosen.length; location++) {
+            if (chosen[location]) {
+                int quantity = (int) Math.round(stock * (0.5 + random.nextDouble()));
+                current.add(new BulkInventoryLoader.Row(sku, location(location),
+                        Math.max(settings.getMinQuantity(), quantity)));
+            }
+        }
+    }
+
+    private int drawLocation(SplittableRandom random) {
+        double target = random.nextDouble() * locationWeights[locationWeights.length - 1];
+        int index = Arrays.binarySearch(locationWeights, target);
+        return index >= 0 ? index : -index - 1;
+    }
+}
@@ -0,0 +1,62 @@
+package com.interview.inventory.service;
+
+import com.interview.inventory.model.TransferLog;
+import com.interview.inventory.repository.TransferLogRepository;
+import com.interview.inventory.repository.TransferLogRepositoryCustom.Position;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Pages through {@code transfer_log} newest first. The cursor handed to
+ * clients is an opaque encoding of the last row's {@code (created_at, id)}.
+ */
+@Service
+public class TransferHistoryService {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final TransferLogRepository transferLogRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public TransferHistoryService(TransferLogRepository transferLogRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.transferLogRepository = transferLogRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * @param before a cursor from {@link #cursorAfter}, or null for the newest rows
+     * @throws IllegalArgumentException if the cursor cannot be decoded
+     */
+    public List<TransferLog> page(String sku, TransferLog.TransferStatus status, String before, int limit) {
+        Position position = before == null ? null : decode(before);
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return readOnlyTransaction.execute(txStatus ->
+                transferLogRepository.findHistory(sku, status, position, size));
+    }
+
+    /** The cursor that continues a listing after {@code last}. */
+    public static String cursorAfter(TransferLog last) {
+        String position = last.getCreatedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Position decode(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf('|');
+            return new Position(LocalDateTime.parse(position.substring(0, separator)),
+                    Long.parseLong(position.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
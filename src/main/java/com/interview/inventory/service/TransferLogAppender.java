@@ -0,0 +1,286 @@
+package com.interview.inventory.service;
+
+import com.interview.inventory.config.TransferProperties;
+import com.interview.inventory.model.TransferLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind appender for {@code transfer_log}, used by the ASYNC audit mode
+ * and by the journal engine for rejected transfers.
+ * <p>
+ * Rows are queued after their transfer commits and written by one background
+ * thread as multi-row INSERTs. A batch is written once it holds
+ * {@code max-batch-size} rows or once {@code flush-interval} has passed since
+ * its first row. When the buffer is full, callers wait up to
+ * {@code append-timeout} and then hand their row to an unbounded overflow
+ * queue that the same thread empties first, so rows are delayed but never
+ * dropped, and a caller never needs a second connection. A batch that fails
+ * to write, for example while the database is unreachable, goes back to the
+ * overflow queue and is retried after a backoff that doubles from
+ * {@code flush-interval} up to five seconds. On shutdown both queues are
+ * drained before the context closes.
+ * <p>
+ * The thread only runs in the modes that append; otherwise the bean just
+ * hands out ids and writes rows for its callers.
+ */
+@Component
+@Slf4j
+public class TransferLogAppender {
+
+    private static final String SEQUENCE = "transfer_log_seq";
+    private static final int SEQUENCE_INCREMENT = 50;
+    private static final String INSERT_PREFIX = "INSERT INTO transfer_log "
+            + "(id, sku, from_location, to_location, quantity, status, error_message, idempotency_key, created_at) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 5_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferProperties transferProperties;
+    private final TransferProperties.Audit settings;
+    private final PooledSequence ids;
+    private final BlockingQueue<TransferLog> buffer;
+    /** Rows whose callers gave up waiting for buffer space; written before the buffer. */
+    private final ConcurrentLinkedQueue<TransferLog> overflow = new ConcurrentLinkedQueue<>();
+    private final Thread writer;
+
+    private volatile boolean running;
+
+    public TransferLogAppender(JdbcTemplate jdbcTemplate,
+                               TransferProperties transferProperties,
+                               EntityManagerFactory entityManagerFactory,
+                               PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transferProperties = transferProperties;
+        this.settings = transferProperties.getAudit();
+        this.ids = new PooledSequence(jdbcTemplate, entityManagerFactory, SEQUENCE, SEQUENCE_INCREMENT);
+        this.buffer = new ArrayBlockingQueue<>(settings.getBufferSize());
+        this.writer = new Thread(this::drainLoop, "transfer-log-appender");
+    }
+
+    @PostConstruct
+    void start() {
+        if (settings.getMode() != TransferProperties.AuditMode.ASYNC
+                && transferProperties.getEngine() != TransferProperties.Engine.JOURNAL) {
+            return;
+        }
+        running = true;
+        writer.start();
+    }
+
+    /** Next id from {@code transfer_log_seq}, drawn in blocks that stay apart from Hibernate's. */
+    public long nextId() {
+        return ids.next();
+    }
+
+    /**
+     * Queues the row once the surrounding transaction commits. Nothing is
+     * queued if it rolls back.
+     */
+    public void appendAfterCommit(TransferLog transferLog) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(transferLog);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                append(transferLog);
+            }
+        });
+    }
+
+    public void append(TransferLog transferLog) {
+        try {
+            if (running && buffer.offer(transferLog, settings.getAppendTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Buffer full or shutting down. This may run in an afterCommit callback,
+        // where writing here would need a second connection, so the writer gets it.
+        overflow.add(transferLog);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (!writer.isAlive()) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        // Appended while the writer was finishing its last batch.
+        List<TransferLog> late = new ArrayList<>();
+        TransferLog row;
+        while ((row = overflow.poll()) != null || (row = buffer.poll()) != null) {
+            late.add(row);
+        }
+        if (!late.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> writeBatch(late));
+        }
+    }
+
+    private void drainLoop() {
+        List<TransferLog> batch = new ArrayList<>(settings.getMaxBatchSize());
+        int failedWrites = 0;
+        while (running || !buffer.isEmpty() || !overflow.isEmpty()) {
+            try {
+                drainOverflow(batch);
+                if (batch.isEmpty()) {
+                    TransferLog first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                }
+
+                long deadline = System.nanoTime() + settings.getFlushInterval().toNanos();
+                while (batch.size() < settings.getMaxBatchSize()) {
+                    drainOverflow(batch);
+                    buffer.drainTo(batch, settings.getMaxBatchSize() - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= settings.getMaxBatchSize() || remaining <= 0 || !running) {
+                        break;
+                    }
+                    TransferLog next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+                writeBatch(batch);
+                failedWrites = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                // Written before the buffer on the next round; shutdown() makes the last attempt.
+                overflow.addAll(batch);
+                failedWrites++;
+                if (!running) {
+                    log.error("Failed to write {} transfer_log rows while stopping", batch.size(), e);
+                    break;
+                }
+                long backoffMillis = retryBackoffMillis(failedWrites);
+                log.error("Failed to write {} transfer_log rows; retrying in {} ms", batch.size(), backoffMillis, e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private long retryBackoffMillis(int failedWrites) {
+        long base = Math.max(1, settings.getFlushInterval().toMillis());
+        return Math.min(MAX_RETRY_BACKOFF_MILLIS, base << Math.min(failedWrites - 1, 20));
+    }
+
+    private void drainOverflow(List<TransferLog> batch) {
+        TransferLog row;
+        while (batch.size() < settings.getMaxBatchSize() && (row = overflow.poll()) != null) {
+            batch.add(row);
+        }
+    }
+
+    /**
+     * A batch rejected by a constraint, such as an idempotency key another
+     * instance already stored, is written again without the keys that are
+     * taken, and if that still fails, row by row so that only the offending
+     * rows are lost.
+     */
+    private void writeBatch(List<TransferLog> rows) {
+        try {
+            write(rows);
+        } catch (DataIntegrityViolationException e) {
+            try {
+                writeWithoutKeyConflicts(rows);
+                return;
+            } catch (DataIntegrityViolationException stillFailing) {
+                log.warn("Writing transfer_log rows one by one: {}", stillFailing.getMessage());
+            }
+            for (TransferLog row : rows) {
+                try {
+                    write(List.of(row));
+                } catch (DataIntegrityViolationException rowFailure) {
+                    log.error("Dropped transfer_log row {}: {}", row.getId(), rowFailure.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Like {@link #write}, but a row whose idempotency key is already stored,
+     * or used by an earlier row in the list, is written without its key. The
+     * row itself is kept: it records a transfer that happened, and the key
+     * already answers with the stored row.
+     */
+    public void writeWithoutKeyConflicts(List<TransferLog> rows) {
+        List<String> keys = rows.stream().map(TransferLog::getIdempotencyKey).filter(Objects::nonNull).toList();
+        if (!keys.isEmpty()) {
+            Set<String> taken = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT idempotency_key FROM transfer_log WHERE idempotency_key IN ("
+                            + String.join(", ", Collections.nCopies(keys.size(), "?")) + ")",
+                    String.class, keys.toArray()));
+            Set<String> used = new HashSet<>();
+            for (TransferLog row : rows) {
+                String key = row.getIdempotencyKey();
+                if (key != null && (taken.contains(key) || !used.add(key))) {
+                    log.warn("Idempotency key {} is already stored; writing transfer_log row {} without it", key, row.getId());
+                    row.setIdempotencyKey(null);
+                }
+            }
+        }
+        write(rows);
+    }
+
+    /** Inserts the rows with one statement, in the caller's transaction if there is one. */
+    public void write(List<TransferLog> rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        List<Object> args = new ArrayList<>(rows.size() * 9);
+        for (TransferLog row : rows) {
+            if (!args.isEmpty()) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDERS);
+            args.add(row.getId());
+            args.add(row.getSku());
+            args.add(row.getFromLocation());
+            args.add(row.getToLocation());
+            args.add(row.getQuantity());
+            args.add(row.getStatus().name());
+            args.add(row.getErrorMessage());
+            args.add(row.getIdempotencyKey());
+            args.add(Timestamp.valueOf(row.getCreatedAt()));
+        }
+        jdbcTemplate.update(sql.toString(), args.toArray());
+        log.debug("Appended {} transfer_log rows", rows.size());
+    }
+}
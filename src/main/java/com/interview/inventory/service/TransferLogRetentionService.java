@@ -0,0 +1,177 @@
+package com.interview.inventory.service;
+
+import com.interview.inventory.config.TransferLogRetentionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Keeps {@code transfer_log} to the configured retention window.
+ * <p>
+ * When the table has been converted with {@code scripts/partition_transfer_log.sql}
+ * it is range-partitioned by day on {@code created_at}. Expired days are then
+ * retired a whole partition at a time, which costs the same however many rows
+ * they hold, and partitions for the coming days are created in advance. On an
+ * unpartitioned table, including H2, expired rows are deleted in batches
+ * through the {@code created_at} index.
+ */
+@Service
+@Slf4j
+public class TransferLogRetentionService implements SchedulingConfigurer {
+
+    static final String PARTITION_PREFIX = "transfer_log_p";
+    private static final String ARCHIVE_PREFIX = "transfer_log_archive_p";
+    private static final DateTimeFormatter PARTITION_DAY = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final String IS_PARTITIONED = """
+            SELECT EXISTS (SELECT 1 FROM pg_partitioned_table p
+                             JOIN pg_class c ON c.oid = p.partrelid
+                            WHERE c.relname = 'transfer_log' AND pg_table_is_visible(c.oid))
+            """;
+
+    private static final String PARTITIONS = """
+            SELECT c.relname FROM pg_inherits i
+              JOIN pg_class c ON c.oid = i.inhrelid
+              JOIN pg_class p ON p.oid = i.inhparent
+             WHERE p.relname = 'transfer_log' AND pg_table_is_visible(p.oid)
+             ORDER BY c.relname
+            """;
+
+    private static final String DELETE_BATCH = """
+            DELETE FROM transfer_log WHERE id IN (
+                SELECT id FROM transfer_log WHERE created_at < ? ORDER BY created_at, id LIMIT ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransferLogRetentionProperties settings;
+    private final boolean postgres;
+    private final Counter rowsDeleted;
+    private final Counter partitionsRetired;
+
+    private boolean warnedUnpartitioned;
+
+    public TransferLogRetentionService(JdbcTemplate jdbcTemplate,
+                                       TransferLogRetentionProperties settings,
+                                       EntityManagerFactory entityManagerFactory,
+                                       MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.settings = settings;
+        this.postgres = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect() instanceof PostgreSQLDialect;
+        this.rowsDeleted = Counter.builder("inventory.transfer.log.retired")
+                .description("transfer_log rows deleted by the retention job")
+                .tag("unit", "rows")
+                .register(meterRegistry);
+        this.partitionsRetired = Counter.builder("inventory.transfer.log.retired")
+                .description("transfer_log partitions detached or dropped by the retention job")
+                .tag("unit", "partitions")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(new FixedDelayTask(this::run, settings.getCheckInterval(), settings.getCheckInterval()));
+    }
+
+    public void run() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        try {
+            retireBefore(LocalDateTime.now().minus(settings.getRetain()));
+        } catch (DataAccessException e) {
+            log.warn("transfer_log retention run failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Retires everything created before {@code cutoff}. A partition is retired
+     * only once its whole day is older than the cutoff.
+     *
+     * @return the rows deleted, or the partitions retired on a partitioned table
+     */
+    public long retireBefore(LocalDateTime cutoff) {
+        if (postgres && Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_PARTITIONED, Boolean.class))) {
+            createUpcomingPartitions(LocalDate.now());
+            return retirePartitions(cutoff);
+        }
+        if (settings.getAction() != TransferLogRetentionProperties.Action.DROP) {
+            if (!warnedUnpartitioned) {
+                log.warn("transfer_log is not partitioned; set inventory.transfer-log.retention.action=drop "
+                        + "to delete expired rows, or run scripts/partition_transfer_log.sql to archive them");
+                warnedUnpartitioned = true;
+            }
+            return 0;
+        }
+        return deleteRows(cutoff);
+    }
+
+    private long deleteRows(LocalDateTime cutoff) {
+        long total = 0;
+        int deleted;
+        do {
+            // Each batch commits on its own, so no single statement holds locks for long.
+            deleted = jdbcTemplate.update(DELETE_BATCH, Timestamp.valueOf(cutoff), settings.getBatchSize());
+            total += deleted;
+            rowsDeleted.increment(deleted);
+        } while (deleted == settings.getBatchSize());
+        if (total > 0) {
+            log.info("Deleted {} transfer_log rows created before {}", total, cutoff);
+        }
+        return total;
+    }
+
+    private long retirePartitions(LocalDateTime cutoff) {
+        long retired = 0;
+        List<String> partitions = jdbcTemplate.queryForList(PARTITIONS, String.class);
+        for (String partition : partitions) {
+            if (!partition.startsWith(PARTITION_PREFIX)) {
+                continue;
+            }
+            LocalDate day = LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_DAY);
+            if (day.plusDays(1).atStartOfDay().isAfter(cutoff)) {
+                break;
+            }
+            if (settings.getAction() == TransferLogRetentionProperties.Action.DROP) {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+            } else {
+                jdbcTemplate.execute("ALTER TABLE transfer_log DETACH PARTITION " + partition);
+                jdbcTemplate.execute("ALTER TABLE " + partition + " RENAME TO "
+                        + ARCHIVE_PREFIX + partition.substring(PARTITION_PREFIX.length()));
+            }
+            partitionsRetired.increment();
+            retired++;
+            log.info("Retired transfer_log partition {} ({})", partition, settings.getAction());
+        }
+        return retired;
+    }
+
+    private void createUpcomingPartitions(LocalDate today) {
+        for (int ahead = 0; ahead <= settings.getPartitionsAhead(); ahead++) {
+            LocalDate day = today.plusDays(ahead);
+            try {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + PARTITION_PREFIX + day.format(PARTITION_DAY)
+                        + " PARTITION OF transfer_log FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')");
+            } catch (DataAccessException e) {
+                // Usually rows for that day already sit in the default partition.
+                log.warn("Could not create transfer_log partition for {}: {}", day, e.getMessage());
+            }
+        }
+    }
+}
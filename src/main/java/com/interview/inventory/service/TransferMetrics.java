@@ -0,0 +1,155 @@
+package com.interview.inventory.service;
+
+import com.interview.inventory.config.TransferProperties;
+import com.interview.inventory.dto.TransferRequest;
+import com.interview.inventory.repository.TransferLogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transfer outcome counts kept in memory so that {@code /api/health} does not
+ * need to COUNT the {@code transfer_log} table.
+ * <p>
+ * The totals are seeded from the database once at startup and then advanced
+ * as transfers commit. They are published as {@code inventory.transfers}
+ * (tagged by outcome) and {@code inventory.transfers.failures} (tagged by
+ * reason, counting since startup).
+ * <p>
+ * Single transfers are also timed end to end as {@code inventory.transfer.duration}
+ * and per phase as {@code inventory.transfer.phase}, both tagged by outcome and
+ * failure reason. A sample of transfers slower than
+ * {@code inventory.transfer.tracing.slow-threshold} is logged with its phases.
+ */
+@Component
+@Slf4j
+public class TransferMetrics {
+
+    private final TransferLogRepository transferLogRepository;
+    private final MeterRegistry meterRegistry;
+    private final TransferProperties.Tracing tracing;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final Map<TransferRejectedException.Reason, Counter> failuresByReason =
+            new EnumMap<>(TransferRejectedException.Reason.class);
+
+    public TransferMetrics(TransferLogRepository transferLogRepository,
+                           TransferProperties transferProperties,
+                           MeterRegistry meterRegistry) {
+        this.transferLogRepository = transferLogRepository;
+        this.meterRegistry = meterRegistry;
+        this.tracing = transferProperties.getTracing();
+
+        FunctionCounter.builder("inventory.transfers", completed, LongAdder::doubleValue)
+                .description("Transfers that committed as COMPLETED")
+                .tag("outcome", "completed")
+                .register(meterRegistry);
+        FunctionCounter.builder("inventory.transfers", failed, LongAdder::doubleValue)
+                .description("Transfers that were recorded as FAILED")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        for (TransferRejectedException.Reason reason : TransferRejectedException.Reason.values()) {
+            failuresByReason.put(reason, Counter.builder("inventory.transfers.failures")
+                    .description("Failed transfers since startup, by reason")
+                    .tag("reason", reason.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    @PostConstruct
+    void seedFromDatabase() {
+        completed.add(transferLogRepository.countCompletedTransfers());
+        failed.add(transferLogRepository.countFailedTransfers());
+        log.info("Seeded transfer counters: {} completed, {} failed", completed.sum(), failed.sum());
+    }
+
+    public void recordCompleted(int count) {
+        afterCommit(() -> completed.add(count));
+    }
+
+    public void recordFailed(Exception cause) {
+        TransferRejectedException.Reason reason = reasonOf(cause);
+        afterCommit(() -> {
+            failed.increment();
+            failuresByReason.get(reason).increment();
+        });
+    }
+
+    /**
+     * Records a finished single transfer's timings.
+     *
+     * @param failure why it failed, or null if it completed
+     */
+    void recordTrace(TransferTrace trace, TransferRequest request, TransferRejectedException.Reason failure) {
+        Tags tags = failure == null
+                ? Tags.of("outcome", "completed", "reason", "none")
+                : Tags.of("outcome", "failed", "reason", failure.name().toLowerCase());
+        Timer.builder("inventory.transfer.duration")
+                .description("Single transfers end to end, retries included")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(trace.totalNanos(), TimeUnit.NANOSECONDS);
+        for (TransferTrace.Phase phase : TransferTrace.Phase.values()) {
+            long nanos = trace.nanos(phase);
+            if (nanos > 0) {
+                Timer.builder("inventory.transfer.phase")
+                        .description("Time single transfers spend in each phase")
+                        .tags(tags)
+                        .tag("phase", phase.tag)
+                        .register(meterRegistry)
+                        .record(nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        if (trace.totalNanos() >= tracing.getSlowThreshold().toNanos()
+                && ThreadLocalRandom.current().nextDouble() < tracing.getSampleRate()) {
+            log.warn("Slow transfer of {} x {} from {} to {}: {} ms, {}, {} attempt(s) [{}]",
+                    request.getQuantity(), request.getSku(), request.getFromLocation(), request.getToLocation(),
+                    TimeUnit.NANOSECONDS.toMillis(trace.totalNanos()),
+                    failure == null ? "completed" : "failed (" + failure.name().toLowerCase() + ")",
+                    trace.attempts(), trace);
+        }
+    }
+
+    static TransferRejectedException.Reason reasonOf(Exception cause) {
+        return cause instanceof TransferRejectedException rejected
+                ? rejected.getReason()
+                : TransferRejectedException.Reason.ERROR;
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /** Counts only what actually reaches the database; a rolled-back outcome is not counted. */
+    private static void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,47 @@
+package com.interview.inventory.service;
+
+import lombok.Getter;
+
+/**
+ * A transfer that was refused for a business reason. Nothing was written for
+ * it, and the reason is recorded on the failure metrics.
+ */
+@Getter
+public class TransferRejectedException extends IllegalArgumentException {
+
+    private final Reason reason;
+
+    public TransferRejectedException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public static TransferRejectedException invalidQuantity() {
+        return new TransferRejectedException(Reason.INVALID_QUANTITY, "Transfer quantity must be positive");
+    }
+
+    public static TransferRejectedException sourceNotFound(String sku, String location) {
+        return new TransferRejectedException(Reason.SOURCE_NOT_FOUND,
+                "No inventory found for SKU " + sku + " at location " + location);
+    }
+
+    public static TransferRejectedException insufficientStock(int available, int requested) {
+        return new TransferRejectedException(Reason.INSUFFICIENT_STOCK,
+                "Insufficient stock. Available: " + available + ", Requested: " + requested);
+    }
+
+    public static TransferRejectedException conflict(int attempts) {
+        return new TransferRejectedException(Reason.CONFLICT,
+                "Transfer aborted after " + attempts + " conflicting attempts, retry later");
+    }
+
+    public enum Reason {
+        INVALID_QUANTITY,
+        SOURCE_NOT_FOUND,
+        INSUFFICIENT_STOCK,
+        /** Kept losing to concurrent transfers on the same rows until retries ran out. */
+        CONFLICT,
+        /** Anything that is not a business rejection: database errors, timeouts, bugs. */
+        ERROR
+    }
+}
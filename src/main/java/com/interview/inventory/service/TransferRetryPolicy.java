@@ -0,0 +1,51 @@
+package com.interview.inventory.service;
+
+import com.interview.inventory.config.TransferProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * When and how long to wait before re-running a transfer that lost a write
+ * conflict. Backoff is exponential with full jitter. Retries also draw on a
+ * budget shared by all transfers, which every first attempt tops up by
+ * {@code budget-ratio}, so under heavy contention the service sends at most
+ * that fraction of extra work to the database instead of amplifying it.
+ */
+@Component
+public class TransferRetryPolicy {
+
+    private static final long TOKEN = 1000;
+
+    private final TransferProperties.Retry settings;
+    private final AtomicLong budget;
+
+    public TransferRetryPolicy(TransferProperties transferProperties) {
+        this.settings = transferProperties.getRetry();
+        this.budget = new AtomicLong(settings.getBudgetBurst() * TOKEN);
+    }
+
+    public void onFirstAttempt() {
+        long deposit = (long) (settings.getBudgetRatio() * TOKEN);
+        long cap = settings.getBudgetBurst() * TOKEN;
+        budget.getAndUpdate(tokens -> Math.min(cap, tokens + deposit));
+    }
+
+    /** Whether another attempt may follow the given number of failed ones; spends budget if so. */
+    public boolean tryAcquireRetry(int failedAttempts) {
+        if (failedAttempts >= settings.getMaxAttempts()) {
+            return false;
+        }
+        return budget.getAndUpdate(tokens -> tokens >= TOKEN ? tokens - TOKEN : tokens) >= TOKEN;
+    }
+
+    public void backoff(int failedAttempts) throws InterruptedException {
+        long ceiling = Math.min(settings.getMaxBackoff().toNanos(),
+                settings.getInitialBackoff().toNanos() << Math.min(failedAttempts - 1, 20));
+        if (ceiling > 0) {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        }
+    }
+}
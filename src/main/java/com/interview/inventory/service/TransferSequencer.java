@@ -0,0 +1,162 @@
+package com.interview.inventory.service;
+
+import com.interview.inventory.config.TransferProperties;
+import com.interview.inventory.dto.TransferRequest;
+import com.interview.inventory.dto.TransferResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Serializes transfers per SKU in memory before they reach the database.
+ * <p>
+ * Every SKU hashes to one lane, and each lane has a single worker thread.
+ * Transfers for the same SKU therefore never compete for row locks or
+ * connections inside this process. The worker drains whatever has queued up
+ * and applies it through {@link TransferService#executeGroup} as one
+ * transaction. A hot SKU then costs one lock holder and one commit per group
+ * rather than per transfer.
+ */
+@Component
+@ConditionalOnProperty(prefix = "inventory.transfer.sequencer", name = "enabled", havingValue = "true")
+@Slf4j
+public class TransferSequencer {
+
+    private final TransferService transferService;
+    private final TransferProperties.Sequencer settings;
+    private final Lane[] lanes;
+
+    /**
+     * Submitters hold the read side while they check {@link #running} and queue,
+     * and shutdown takes the write side to clear it. Once a lane sees the flag
+     * cleared, nothing more can be queued behind its final drain.
+     */
+    private final ReadWriteLock admission = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+
+    public TransferSequencer(TransferService transferService, TransferProperties transferProperties) {
+        this.transferService = transferService;
+        this.settings = transferProperties.getSequencer();
+        this.lanes = new Lane[settings.getLanes()];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(i);
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        for (Lane lane : lanes) {
+            lane.worker.start();
+        }
+        log.info("Transfer sequencer started with {} lanes", lanes.length);
+    }
+
+    /**
+     * Queues a transfer on its SKU's lane. The future completes after the
+     * group containing it commits or is rolled back. If the lane stays full
+     * for longer than the submit timeout, the future fails with a
+     * {@link RejectedExecutionException}.
+     */
+    public CompletableFuture<TransferResponse> submit(TransferRequest request) {
+        Pending pending = new Pending(request, new CompletableFuture<>());
+        Lane lane = lanes[Math.floorMod(request.getSku().hashCode(), lanes.length)];
+        admission.readLock().lock();
+        try {
+            if (!running) {
+                pending.result.completeExceptionally(new RejectedExecutionException("Transfer sequencer is shutting down"));
+            } else if (!lane.queue.offer(pending, settings.getSubmitTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                pending.result.completeExceptionally(
+                        new RejectedExecutionException("Transfer lane " + lane.index + " is full"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.result.completeExceptionally(new RejectedExecutionException("Interrupted while queueing transfer"));
+        } finally {
+            admission.readLock().unlock();
+        }
+        return pending.result;
+    }
+
+    /** Stops accepting work and lets every lane drain what it already holds. */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Waits for submitters already queueing, at most the submit timeout.
+        admission.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            admission.writeLock().unlock();
+        }
+        for (Lane lane : lanes) {
+            lane.worker.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    private record Pending(TransferRequest request, CompletableFuture<TransferResponse> result) {
+    }
+
+    private final class Lane implements Runnable {
+
+        private final int index;
+        private final BlockingQueue<Pending> queue;
+        private final Thread worker;
+
+        private Lane(int index) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+            this.worker = new Thread(this, "transfer-lane-" + index);
+        }
+
+        @Override
+        public void run() {
+            List<Pending> group = new ArrayList<>(settings.getMaxGroupSize());
+            while (running || !queue.isEmpty()) {
+                try {
+                    Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    group.add(first);
+                    queue.drainTo(group, settings.getMaxGroupSize() - 1);
+                    apply(group);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } finally {
+                    group.clear();
+                }
+            }
+
+            Pending abandoned;
+            while ((abandoned = queue.poll()) != null) {
+                abandoned.result.completeExceptionally(new RejectedExecutionException("Transfer lane stopped"));
+            }
+        }
+
+        private void apply(List<Pending> group) {
+            try {
+                List<TransferResponse> responses = transferService.executeGroup(
+                        group.stream().map(Pending::request).toList());
+                for (int i = 0; i < group.size(); i++) {
+                    group.get(i).result.complete(responses.get(i));
+                }
+                log.debug("Lane {} committed a group of {} transfers", index, group.size());
+            } catch (RuntimeException e) {
+                log.error("Lane {} failed to apply a group of {} transfers", index, group.size(), e);
+                group.forEach(pending -> pending.result.completeExceptionally(e));
+            }
+        }
+    }
+}
@@ -1,51 +1,196 @@
 package com.interview.inventory.service;
 
+import com.interview.inventory.config.TransferProperties;
 import com.interview.inventory.dto.TransferRequest;
 import com.interview.inventory.dto.TransferResponse;
+import com.interview.inventory.journal.JournaledTransferEngine;
 import com.interview.inventory.model.Inventory;
 import com.interview.inventory.model.TransferLog;
 import com.interview.inventory.repository.InventoryRepository;
+import com.interview.inventory.repository.InventoryRepositoryCustom.RowKey;
 import com.interview.inventory.repository.TransferLogRepository;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TransferService {
 
+    private static final String INVENTORY_ROW_CONSTRAINT = "uk_inventory_sku_location";
+
     private final InventoryRepository inventoryRepository;
     private final TransferLogRepository transferLogRepository;
+    private final TransferProperties transferProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransferMetrics transferMetrics;
+    private final TransferLogAppender transferLogAppender;
+    private final SkuConcurrencyControl concurrencyControl;
+    private final TransferRetryPolicy retryPolicy;
+    private final HotRowService hotRows;
+    private final Optional<JournaledTransferEngine> journaledEngine;
 
-    @PersistenceContext
-    private EntityManager entityManager;
-
-    @Transactional
+    /**
+     * Runs the transfer in its own transaction. An attempt that loses a write
+     * conflict (a stale {@code @Version}, a lock timeout or a deadlock) is
+     * rolled back and re-run after a jittered backoff, within the limits of
+     * {@link TransferRetryPolicy}. Once those are exhausted the transfer is
+     * recorded as FAILED.
+     * <p>
+     * Deliberately not {@code @Transactional}: each attempt needs a transaction
+     * of its own. Inside an outer one the attempts would join it, and the first
+     * conflict would mark the whole call rollback-only instead of being retried.
+     */
     public TransferResponse executeTransfer(TransferRequest request) {
         log.debug("Processing transfer: {} units of {} from {} to {}",
                 request.getQuantity(), request.getSku(),
                 request.getFromLocation(), request.getToLocation());
 
-        TransferLog transferLog = TransferLog.builder()
-                .sku(request.getSku())
-                .fromLocation(request.getFromLocation())
-                .toLocation(request.getToLocation())
-                .quantity(request.getQuantity())
-                .status(TransferLog.TransferStatus.PENDING)
+        if (transferProperties.getEngine() == TransferProperties.Engine.JOURNAL) {
+            return journaledEngine().transfer(request);
+        }
+
+        return traced(request, null);
+    }
+
+    /**
+     * Runs a transfer queued by {@link AsyncTransferScheduler}. It goes through
+     * the same retries as {@link #executeTransfer}, but its outcome is written
+     * to the queued PENDING row instead of a new one. Each attempt locks that
+     * row first, so a transfer another worker or instance has already run is
+     * reported as stored rather than applied twice.
+     */
+    public TransferResponse executeQueued(TransferLog queued) {
+        if (transferProperties.getEngine() == TransferProperties.Engine.JOURNAL) {
+            throw new IllegalStateException("Queued transfers need the jpa or atomic engine");
+        }
+        TransferRequest request = TransferRequest.builder()
+                .sku(queued.getSku())
+                .fromLocation(queued.getFromLocation())
+                .toLocation(queued.getToLocation())
+                .quantity(queued.getQuantity())
+                .idempotencyKey(queued.getIdempotencyKey())
                 .build();
-        transferLogRepository.save(transferLog);
+        return traced(request, queued.getId());
+    }
 
+    /** @param queuedId the queued row to settle, or null to log a new one */
+    private TransferResponse traced(TransferRequest request, Long queuedId) {
+        TransferTrace trace = new TransferTrace();
         try {
-            validateAndExecute(request, transferLog);
+            Attempt attempt = executeWithRetries(request, queuedId, trace);
+            transferMetrics.recordTrace(trace, request, attempt.failure());
+            return attempt.response();
+        } catch (RuntimeException e) {
+            transferMetrics.recordTrace(trace, request, TransferRejectedException.Reason.ERROR);
+            throw e;
+        }
+    }
+
+    private Attempt executeWithRetries(TransferRequest request, Long queuedId, TransferTrace trace) {
+        retryPolicy.onFirstAttempt();
+        int failedAttempts = 0;
+        while (true) {
+            SkuConcurrencyControl.Strategy strategy = concurrencyControl.strategyFor(request.getSku());
+            trace.attemptStarted();
+            try {
+                Attempt attempt = withRowConflicts(() ->
+                        transactionTemplate.execute(status -> attemptTransfer(request, queuedId, strategy, status, trace)));
+                trace.lap(TransferTrace.Phase.COMMIT);
+                concurrencyControl.recordCommitted(request.getSku(), strategy, attempt.lockWaitNanos());
+                return attempt;
+            } catch (ConcurrencyFailureException e) {
+                trace.lap(TransferTrace.Phase.COMMIT);
+                concurrencyControl.recordConflict(request.getSku(), strategy);
+                failedAttempts++;
+                if (!retryPolicy.tryAcquireRetry(failedAttempts)) {
+                    log.warn("Giving up on transfer of {} after {} conflicting attempts: {}",
+                            request.getSku(), failedAttempts, e.getMessage());
+                    TransferRejectedException conflict = TransferRejectedException.conflict(failedAttempts);
+                    TransferResponse abandoned = transactionTemplate.execute(status -> recordAbandoned(request, queuedId, conflict));
+                    trace.lap(TransferTrace.Phase.AUDIT);
+                    return new Attempt(abandoned, 0, conflict.getReason());
+                }
+                concurrencyControl.recordRetry(strategy);
+                try {
+                    retryPolicy.backoff(failedAttempts);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                } finally {
+                    trace.lap(TransferTrace.Phase.BACKOFF);
+                }
+            }
+        }
+    }
+
+    private Attempt attemptTransfer(TransferRequest request, Long queuedId, SkuConcurrencyControl.Strategy strategy,
+                                    TransactionStatus status, TransferTrace trace) {
+        trace.lap(TransferTrace.Phase.CONNECTION);
+        TransferProperties.AuditMode auditMode = transferProperties.getAudit().getMode();
+        TransferLog transferLog;
+        if (queuedId != null) {
+            Optional<TransferLog> queued = transferLogRepository.findPendingForUpdate(queuedId);
+            trace.lap(TransferTrace.Phase.AUDIT);
+            if (queued.isEmpty()) {
+                return new Attempt(storedOutcome(queuedId), 0, null);
+            }
+            transferLog = queued.get();
+            // The row exists already and is updated in place.
+            auditMode = TransferProperties.AuditMode.SINGLE;
+        } else {
+            transferLog = TransferLog.builder()
+                    .sku(request.getSku())
+                    .fromLocation(request.getFromLocation())
+                    .toLocation(request.getToLocation())
+                    .quantity(request.getQuantity())
+                    .idempotencyKey(request.getIdempotencyKey())
+                    .status(TransferLog.TransferStatus.PENDING)
+                    .build();
+            if (auditMode == TransferProperties.AuditMode.TWO_PHASE) {
+                transferLogRepository.save(transferLog);
+            } else if (auditMode == TransferProperties.AuditMode.ASYNC) {
+                transferLog.setId(transferLogAppender.nextId());
+                transferLog.setCreatedAt(LocalDateTime.now());
+            }
+            trace.lap(TransferTrace.Phase.AUDIT);
+        }
+
+        long lockWaitNanos = 0;
+        try {
+            if (transferProperties.getEngine() == TransferProperties.Engine.ATOMIC) {
+                moveStockAtomically(request, status, trace);
+            } else {
+                lockWaitNanos = validateAndExecute(request, strategy, status, trace);
+            }
 
             transferLog.setStatus(TransferLog.TransferStatus.COMPLETED);
-            transferLogRepository.save(transferLog);
+            writeAuditRecord(transferLog, auditMode);
+            eventPublisher.publishEvent(InventoryChangedEvent.of(List.of(transferLog)));
+            transferMetrics.recordCompleted(1);
+            trace.lap(TransferTrace.Phase.AUDIT);
 
-            return TransferResponse.builder()
+            return new Attempt(TransferResponse.builder()
                     .transferId(transferLog.getId())
                     .sku(request.getSku())
                     .fromLocation(request.getFromLocation())
@@ -53,68 +198,431 @@ public class TransferService {
                     .quantity(request.getQuantity())
                     .status("COMPLETED")
                     .message("Transfer completed successfully")
-                    .build();
+                    .build(), lockWaitNanos, null);
 
+        } catch (ConcurrencyFailureException e) {
+            // Retried by the caller; recording it as FAILED here would commit the loss.
+            throw e;
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateInventoryRow(e)) {
+                throw rowConflict(e);
+            }
+            if (request.getIdempotencyKey() != null) {
+                // Typically the key stored by another instance. A FAILED row would carry
+                // the same key, so the transaction rolls back and the caller answers with
+                // the stored row.
+                throw e;
+            }
+            return recordFailed(request, transferLog, auditMode, e, lockWaitNanos, trace);
         } catch (Exception e) {
-            transferLog.setStatus(TransferLog.TransferStatus.FAILED);
-            transferLog.setErrorMessage(e.getMessage());
+            return recordFailed(request, transferLog, auditMode, e, lockWaitNanos, trace);
+        }
+    }
+
+    private Attempt recordFailed(TransferRequest request, TransferLog transferLog,
+                                 TransferProperties.AuditMode auditMode, Exception e,
+                                 long lockWaitNanos, TransferTrace trace) {
+        // The failing step's time is charged to WRITE.
+        trace.lap(TransferTrace.Phase.WRITE);
+        transferLog.setStatus(TransferLog.TransferStatus.FAILED);
+        transferLog.setErrorMessage(e.getMessage());
+        writeAuditRecord(transferLog, auditMode);
+        transferMetrics.recordFailed(e);
+        trace.lap(TransferTrace.Phase.AUDIT);
+
+        return new Attempt(TransferResponse.builder()
+                .transferId(transferLog.getId())
+                .sku(request.getSku())
+                .fromLocation(request.getFromLocation())
+                .toLocation(request.getToLocation())
+                .quantity(request.getQuantity())
+                .status("FAILED")
+                .message(e.getMessage())
+                .build(), lockWaitNanos, TransferMetrics.reasonOf(e));
+    }
+
+    /**
+     * New destination rows are inserted at flush, usually during commit. When
+     * two transactions create the same {@code (sku, location)} row, the loser's
+     * insert fails on the unique key; re-running it finds the winner's row, so
+     * the failure is reported as a conflict and retried like a stale version.
+     */
+    private static <T> T withRowConflicts(Supplier<T> work) {
+        try {
+            return work.get();
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateInventoryRow(e)) {
+                throw rowConflict(e);
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isDuplicateInventoryRow(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                return violation.getConstraintName().toLowerCase(Locale.ROOT).contains(INVENTORY_ROW_CONSTRAINT);
+            }
+        }
+        return false;
+    }
+
+    private static ConcurrencyFailureException rowConflict(DataIntegrityViolationException e) {
+        return new ConcurrencyFailureException("Inventory row created by a concurrent transfer", e);
+    }
+
+    private TransferResponse recordAbandoned(TransferRequest request, Long queuedId, TransferRejectedException conflict) {
+        if (queuedId != null) {
+            Optional<TransferLog> queued = transferLogRepository.findPendingForUpdate(queuedId);
+            if (queued.isEmpty()) {
+                return storedOutcome(queuedId);
+            }
+            queued.get().setStatus(TransferLog.TransferStatus.FAILED);
+            queued.get().setErrorMessage(conflict.getMessage());
+            transferMetrics.recordFailed(conflict);
+            return toResponse(queued.get());
+        }
+        TransferProperties.AuditMode auditMode = transferProperties.getAudit().getMode();
+        TransferLog transferLog = TransferLog.builder()
+                .sku(request.getSku())
+                .fromLocation(request.getFromLocation())
+                .toLocation(request.getToLocation())
+                .quantity(request.getQuantity())
+                .idempotencyKey(request.getIdempotencyKey())
+                .status(TransferLog.TransferStatus.FAILED)
+                .errorMessage(conflict.getMessage())
+                .build();
+        if (auditMode == TransferProperties.AuditMode.ASYNC) {
+            transferLog.setId(transferLogAppender.nextId());
+            transferLog.setCreatedAt(LocalDateTime.now());
+        }
+        writeAuditRecord(transferLog, auditMode);
+        transferMetrics.recordFailed(conflict);
+        return toResponse(transferLog);
+    }
+
+    /** A queued transfer that is no longer PENDING: it was run elsewhere, or its row is gone. */
+    private TransferResponse storedOutcome(long queuedId) {
+        return transferLogRepository.findById(queuedId)
+                .map(TransferService::toResponse)
+                .orElseGet(() -> TransferResponse.builder()
+                        .transferId(queuedId)
+                        .status("FAILED")
+                        .message("Queued transfer " + queuedId + " no longer exists")
+                        .build());
+    }
+
+    private void writeAuditRecord(TransferLog transferLog, TransferProperties.AuditMode auditMode) {
+        if (auditMode == TransferProperties.AuditMode.ASYNC) {
+            transferLogAppender.appendAfterCommit(transferLog);
+        } else {
             transferLogRepository.save(transferLog);
+        }
+    }
 
-            return TransferResponse.builder()
-                    .transferId(transferLog.getId())
+    /**
+     * Applies many transfers with one transaction per chunk (see
+     * {@code inventory.transfer.batch.chunk-size}). Items are validated against
+     * the locked rows one by one, so a rejected item is reported as FAILED
+     * without affecting the rest of its chunk. If a chunk fails to commit, every
+     * item in it is reported as FAILED and the remaining chunks still run.
+     */
+    public List<TransferResponse> executeBatch(List<TransferRequest> requests) {
+        return executeInChunks(requests, transferProperties.getBatch().getChunkSize());
+    }
+
+    /**
+     * Applies a group of transfers in a single transaction. Moves are checked
+     * in order against the locked rows and only each row's final quantity is
+     * written, so opposing moves (A to B, then B to A) cancel out in memory and
+     * a row whose net change is zero is not updated at all.
+     */
+    public List<TransferResponse> executeGroup(List<TransferRequest> requests) {
+        return executeInChunks(requests, 0);
+    }
+
+    private List<TransferResponse> executeInChunks(List<TransferRequest> requests, int chunkSize) {
+        if (transferProperties.getEngine() == TransferProperties.Engine.JOURNAL) {
+            // The database is only a projection here; every move goes through the journal.
+            JournaledTransferEngine engine = journaledEngine();
+            return requests.stream().map(engine::transfer).toList();
+        }
+
+        int step = chunkSize > 0 ? chunkSize : requests.size();
+        List<TransferResponse> results = new ArrayList<>(requests.size());
+
+        for (int start = 0; start < requests.size(); start += step) {
+            List<TransferRequest> chunk = requests.subList(start, Math.min(start + step, requests.size()));
+            try {
+                results.addAll(applyChunkWithRetries(chunk));
+            } catch (RuntimeException e) {
+                log.warn("Rolled back batch chunk of {} transfers: {}", chunk.size(), e.getMessage());
+                for (TransferRequest request : chunk) {
+                    results.add(TransferResponse.builder()
+                            .sku(request.getSku())
+                            .fromLocation(request.getFromLocation())
+                            .toLocation(request.getToLocation())
+                            .quantity(request.getQuantity())
+                            .status("FAILED")
+                            .message("Batch chunk rolled back: " + e.getMessage())
+                            .build());
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Chunks lock in one global order, but a chunk that creates destination rows
+     * locks them in a second round and can still deadlock with another chunk.
+     * The database then aborts one of them, which is re-run like a conflicting
+     * single transfer instead of failing all of its items.
+     */
+    private List<TransferResponse> applyChunkWithRetries(List<TransferRequest> chunk) {
+        retryPolicy.onFirstAttempt();
+        int failedAttempts = 0;
+        while (true) {
+            try {
+                return withRowConflicts(() -> transactionTemplate.execute(status -> applyChunk(chunk)));
+            } catch (ConcurrencyFailureException e) {
+                failedAttempts++;
+                if (!retryPolicy.tryAcquireRetry(failedAttempts)) {
+                    throw e;
+                }
+                log.debug("Retrying batch chunk of {} transfers after a conflict: {}", chunk.size(), e.getMessage());
+                try {
+                    retryPolicy.backoff(failedAttempts);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private List<TransferResponse> applyChunk(List<TransferRequest> chunk) {
+        Map<String, Inventory> rows = lockRows(chunk);
+        List<TransferLog> transferLogs = new ArrayList<>(chunk.size());
+
+        for (TransferRequest request : chunk) {
+            TransferLog transferLog = TransferLog.builder()
                     .sku(request.getSku())
                     .fromLocation(request.getFromLocation())
                     .toLocation(request.getToLocation())
                     .quantity(request.getQuantity())
-                    .status("FAILED")
-                    .message(e.getMessage())
+                    .idempotencyKey(request.getIdempotencyKey())
+                    .status(TransferLog.TransferStatus.COMPLETED)
                     .build();
+            try {
+                applyToLockedRows(request, rows);
+            } catch (TransferRejectedException e) {
+                transferLog.setStatus(TransferLog.TransferStatus.FAILED);
+                transferLog.setErrorMessage(e.getMessage());
+                transferMetrics.recordFailed(e);
+            }
+            transferLogs.add(transferLog);
         }
+
+        // One write per log row, and the dirty inventory rows go out with them
+        // as JDBC batches on flush.
+        transferLogRepository.saveAll(transferLogs);
+        inventoryRepository.flush();
+
+        InventoryChangedEvent changed = InventoryChangedEvent.of(transferLogs);
+        if (!changed.skus().isEmpty()) {
+            eventPublisher.publishEvent(changed);
+        }
+        transferMetrics.recordCompleted((int) transferLogs.stream()
+                .filter(transferLog -> transferLog.getStatus() == TransferLog.TransferStatus.COMPLETED)
+                .count());
+
+        return transferLogs.stream().map(TransferService::toResponse).toList();
     }
 
-    private void validateAndExecute(TransferRequest request, TransferLog transferLog) {
-        EntityManager em = entityManager.getEntityManagerFactory().createEntityManager();
-        em.getTransaction().begin();
+    /**
+     * Locks exactly the rows the chunk touches, with one statement ordered by
+     * {@code (sku, location)}, so concurrent batches acquire them in the same
+     * order. Destinations that do not exist yet are inserted empty with an
+     * upsert, which tolerates another chunk creating the same row, and locked
+     * in a second round. A destination is only created for a move whose source
+     * exists, though the move may still be rejected and leave the row at 0.
+     */
+    private Map<String, Inventory> lockRows(List<TransferRequest> chunk) {
+        Set<RowKey> keys = new TreeSet<>();
+        for (TransferRequest request : chunk) {
+            keys.add(new RowKey(request.getSku(), request.getFromLocation()));
+            keys.add(new RowKey(request.getSku(), request.getToLocation()));
+        }
 
-        try {
-            Inventory sourceInventory = inventoryRepository
-                    .findBySkuAndLocation(request.getSku(), request.getFromLocation())
-                    .orElseThrow(() -> new IllegalArgumentException(
-                            "No inventory found for SKU " + request.getSku() +
-                            " at location " + request.getFromLocation()));
-
-            if (request.getQuantity() <= 0) {
-                throw new IllegalArgumentException("Transfer quantity must be positive");
-            }
+        Map<String, Inventory> rows = new HashMap<>();
+        for (Inventory inventory : inventoryRepository.lockAll(keys)) {
+            rows.put(rowKey(inventory.getSku(), inventory.getLocation()), inventory);
+        }
 
-            if (sourceInventory.getQuantity() < request.getQuantity()) {
-                throw new IllegalArgumentException(
-                        "Insufficient stock. Available: " + sourceInventory.getQuantity() +
-                        ", Requested: " + request.getQuantity());
+        // In request order, so a row created by one move can be the source of a later one.
+        Set<String> present = new HashSet<>(rows.keySet());
+        Set<RowKey> missing = new TreeSet<>();
+        for (TransferRequest request : chunk) {
+            String destKey = rowKey(request.getSku(), request.getToLocation());
+            if (present.contains(rowKey(request.getSku(), request.getFromLocation())) && present.add(destKey)) {
+                missing.add(new RowKey(request.getSku(), request.getToLocation()));
             }
+        }
+        if (!missing.isEmpty()) {
+            inventoryRepository.createMissing(missing);
+            for (Inventory inventory : inventoryRepository.lockAll(missing)) {
+                rows.put(rowKey(inventory.getSku(), inventory.getLocation()), inventory);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * A split location's stock is moved with {@link HotRowService} bucket
+     * statements; the locked row says whether it is split, and keeps saying so
+     * until the chunk commits.
+     */
+    private void applyToLockedRows(TransferRequest request, Map<String, Inventory> rows) {
+        if (request.getQuantity() <= 0) {
+            throw TransferRejectedException.invalidQuantity();
+        }
 
+        Inventory sourceInventory = rows.get(rowKey(request.getSku(), request.getFromLocation()));
+        if (sourceInventory == null) {
+            throw TransferRejectedException.sourceNotFound(request.getSku(), request.getFromLocation());
+        }
+
+        if (sourceInventory.getBuckets() > 0) {
+            if (!hotRows.debitLocked(sourceInventory, request.getQuantity())) {
+                throw TransferRejectedException.insufficientStock(hotRows.quantityAt(sourceInventory), request.getQuantity());
+            }
+        } else if (sourceInventory.getQuantity() < request.getQuantity()) {
+            throw TransferRejectedException.insufficientStock(sourceInventory.getQuantity(), request.getQuantity());
+        } else {
             sourceInventory.setQuantity(sourceInventory.getQuantity() - request.getQuantity());
-            inventoryRepository.save(sourceInventory);
+        }
 
-            Inventory destInventory = inventoryRepository
-                    .findBySkuAndLocation(request.getSku(), request.getToLocation())
-                    .orElseGet(() -> Inventory.builder()
-                            .sku(request.getSku())
-                            .location(request.getToLocation())
-                            .quantity(0)
-                            .build());
+        Inventory destInventory = rows.get(rowKey(request.getSku(), request.getToLocation()));
+        if (destInventory.getBuckets() > 0) {
+            hotRows.creditLocked(destInventory, request.getQuantity());
+            return;
+        }
+        destInventory.setQuantity(destInventory.getQuantity() + request.getQuantity());
+    }
+
+    private static String rowKey(String sku, String location) {
+        return sku + '\u0000' + location;
+    }
 
-            destInventory.setQuantity(destInventory.getQuantity() + request.getQuantity());
-            inventoryRepository.save(destInventory);
+    static TransferResponse toResponse(TransferLog transferLog) {
+        boolean completed = transferLog.getStatus() == TransferLog.TransferStatus.COMPLETED;
+        return TransferResponse.builder()
+                .transferId(transferLog.getId())
+                .sku(transferLog.getSku())
+                .fromLocation(transferLog.getFromLocation())
+                .toLocation(transferLog.getToLocation())
+                .quantity(transferLog.getQuantity())
+                .status(transferLog.getStatus().name())
+                .message(completed ? "Transfer completed successfully" : transferLog.getErrorMessage())
+                .build();
+    }
 
-            em.getTransaction().commit();
-            em.close();
+    /**
+     * Read-modify-write through the entities. Optimistic attempts read plainly
+     * and rely on {@code @Version} at flush. Pessimistic ones first lock both
+     * rows in {@code (sku, location)} order, so opposing transfers cannot
+     * deadlock. Returns how long that lock took, or 0.
+     * <p>
+     * A split location has no single row to write, so a transfer touching one
+     * falls through to {@link #moveStockAtomically}. Both rows are read first to
+     * find out: the marker only changes with a version bump, so if a location is
+     * split after this read, the write fails its version check and is retried.
+     */
+    private long validateAndExecute(TransferRequest request, SkuConcurrencyControl.Strategy strategy,
+                                    TransactionStatus status, TransferTrace trace) {
+        long lockWaitNanos = 0;
+        if (strategy == SkuConcurrencyControl.Strategy.PESSIMISTIC) {
+            long started = System.nanoTime();
+            inventoryRepository.findAllForUpdate(Set.of(request.getSku()),
+                    new TreeSet<>(List.of(request.getFromLocation(), request.getToLocation())));
+            lockWaitNanos = System.nanoTime() - started;
+            trace.lap(TransferTrace.Phase.LOCK);
+            hotRows.recordWait(request.getSku(), request.getFromLocation(), lockWaitNanos);
+            hotRows.recordWait(request.getSku(), request.getToLocation(), lockWaitNanos);
+        }
 
-        } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
+        Inventory sourceInventory = inventoryRepository
+                .findBySkuAndLocation(request.getSku(), request.getFromLocation())
+                .orElseThrow(() -> TransferRejectedException.sourceNotFound(request.getSku(), request.getFromLocation()));
+        Optional<Inventory> storedDestination = inventoryRepository
+                .findBySkuAndLocation(request.getSku(), request.getToLocation());
+        trace.lap(TransferTrace.Phase.READ);
+
+        if (sourceInventory.getBuckets() > 0 || storedDestination.map(Inventory::getBuckets).orElse(0) > 0) {
+            moveStockAtomically(request, status, trace);
+            return lockWaitNanos;
+        }
+
+        if (request.getQuantity() <= 0) {
+            throw TransferRejectedException.invalidQuantity();
+        }
+
+        if (sourceInventory.getQuantity() < request.getQuantity()) {
+            throw TransferRejectedException.insufficientStock(sourceInventory.getQuantity(), request.getQuantity());
+        }
+
+        sourceInventory.setQuantity(sourceInventory.getQuantity() - request.getQuantity());
+        inventoryRepository.save(sourceInventory);
+        trace.lap(TransferTrace.Phase.WRITE);
+
+        Inventory destInventory = storedDestination.orElseGet(() -> Inventory.builder()
+                .sku(request.getSku())
+                .location(request.getToLocation())
+                .quantity(0)
+                .build());
+        destInventory.setQuantity(destInventory.getQuantity() + request.getQuantity());
+        inventoryRepository.save(destInventory);
+        trace.lap(TransferTrace.Phase.WRITE);
+        return lockWaitNanos;
+    }
+
+    /**
+     * Moves stock with two statements: a decrement guarded by {@code quantity >= :qty}
+     * and an upsert on the destination. Nothing is read before writing, so there is
+     * no window between the stock check and the update. Split locations are
+     * handled by {@link HotRowService}; other locations cost the same two statements.
+     */
+    private void moveStockAtomically(TransferRequest request, TransactionStatus status, TransferTrace trace) {
+        if (request.getQuantity() <= 0) {
+            throw TransferRejectedException.invalidQuantity();
+        }
+
+        if (!hotRows.debit(request.getSku(), request.getFromLocation(), request.getQuantity())) {
+            // Only the failure path pays for a read, to tell the caller why.
+            int available = hotRows.quantityAt(request.getSku(), request.getFromLocation())
+                    .orElseThrow(() -> TransferRejectedException.sourceNotFound(request.getSku(), request.getFromLocation()));
+
+            throw TransferRejectedException.insufficientStock(available, request.getQuantity());
+        }
+
+        trace.lap(TransferTrace.Phase.WRITE);
+
+        try {
+            hotRows.credit(request.getSku(), request.getToLocation(), request.getQuantity());
+            trace.lap(TransferTrace.Phase.WRITE);
+        } catch (RuntimeException e) {
+            // The debit is already applied; never let the FAILED log commit it.
+            status.setRollbackOnly();
             throw e;
         }
     }
+
+    private JournaledTransferEngine journaledEngine() {
+        return journaledEngine.orElseThrow(() -> new IllegalStateException(
+                "The journal engine must be selected with inventory.transfer.engine=journal at startup"));
+    }
+
+    /** {@code failure} is null for a completed transfer. */
+    private record Attempt(TransferResponse response, long lockWaitNanos, TransferRejectedException.Reason failure) {
+    }
 }
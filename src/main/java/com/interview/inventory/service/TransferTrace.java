@@ -0,0 +1,70 @@
+package com.interview.inventory.service;
+
+import java.util.Locale;
+import java.util.StringJoiner;
+
+/**
+ * Wall-clock time of one transfer split into phases. Each {@link #lap}
+ * charges the time since the previous lap to a phase, so the phases always
+ * add up to the transfer's total. Retries accumulate into the same phases.
+ * Owned by the thread running the transfer; not thread-safe.
+ */
+final class TransferTrace {
+
+    enum Phase {
+        /** Beginning the transaction, which borrows a pooled connection. */
+        CONNECTION,
+        /** Waiting for pessimistic row locks. */
+        LOCK,
+        /** Reading inventory rows. */
+        READ,
+        /** Adjusting stock: statements for the atomic engine, entity changes for JPA. */
+        WRITE,
+        /** Preparing and writing the transfer_log row. */
+        AUDIT,
+        /** Flushing pending entity changes and committing. */
+        COMMIT,
+        /** Sleeping before a retry. */
+        BACKOFF;
+
+        final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long startedAt = System.nanoTime();
+    private final long[] nanos = new long[PHASES.length];
+    private long lastLap = startedAt;
+    private int attempts;
+
+    void lap(Phase phase) {
+        long now = System.nanoTime();
+        nanos[phase.ordinal()] += now - lastLap;
+        lastLap = now;
+    }
+
+    void attemptStarted() {
+        attempts++;
+    }
+
+    long nanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    long totalNanos() {
+        return lastLap - startedAt;
+    }
+
+    int attempts() {
+        return attempts;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner phases = new StringJoiner(" ");
+        for (Phase phase : PHASES) {
+            phases.add(phase.tag + "=" + nanos[phase.ordinal()] / 1_000 + "us");
+        }
+        return phases.toString();
+    }
+}
@@ -0,0 +1,110 @@
+package com.interview.inventory.web;
+
+import com.interview.inventory.config.AdmissionProperties;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit for one endpoint, adjusted AIMD-style: every request that
+ * finishes within the latency threshold adds {@code 1/limit}, so the limit
+ * grows by about one per window of requests, and a congested completion
+ * multiplies it by the backoff ratio. Requests that find the limit reached
+ * wait in a bounded queue for a bounded time.
+ */
+public class AdaptiveLimiter {
+
+    private final AdmissionProperties settings;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int waiting;
+
+    /** Completions that started before the last decrease do not decrease the limit again. */
+    private long lastDecreaseNanos;
+
+    public AdaptiveLimiter(AdmissionProperties settings) {
+        this.settings = settings;
+        this.limit = settings.getInitialLimit();
+    }
+
+    /**
+     * Takes a permit, waiting up to {@code max-wait} if the endpoint is at its
+     * limit. Returns false when the queue is full or the wait runs out.
+     */
+    public boolean tryAcquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return true;
+            }
+            if (waiting >= settings.getQueueSize()) {
+                return false;
+            }
+            waiting++;
+            try {
+                long remaining = settings.getMaxWait().toNanos();
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = permitReleased.awaitNanos(remaining);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a permit and feeds the outcome into the limit.
+     *
+     * @param startNanos {@link System#nanoTime()} when the permit was taken
+     * @param congested  true if something other than latency signalled overload
+     */
+    public void release(long startNanos, boolean congested) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            inFlight--;
+            boolean slow = now - startNanos > settings.getLatencyThreshold().toNanos();
+            if (slow || congested) {
+                if (startNanos >= lastDecreaseNanos) {
+                    limit = Math.max(settings.getMinLimit(), limit * settings.getBackoffRatio());
+                    lastDecreaseNanos = now;
+                }
+            } else {
+                limit = Math.min(settings.getMaxLimit(), limit + 1.0 / limit);
+            }
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
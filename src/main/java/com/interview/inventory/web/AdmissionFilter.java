@@ -0,0 +1,214 @@
+package com.interview.inventory.web;
+
+import com.interview.inventory.config.AdmissionProperties;
+import com.interview.inventory.service.InventoryQueryService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UriUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission control for the endpoints that need a database connection. Each
+ * endpoint gets its own {@link AdaptiveLimiter}, so a burst of transfers
+ * cannot starve inventory reads, and {@code /api/health} is never limited.
+ * Per-SKU reads that will be answered from memory skip the limit, and the
+ * streaming export has a group of its own: it always outlasts the latency
+ * threshold, so it would otherwise drag the read limit down to its minimum.
+ * <p>
+ * A request that cannot get a permit is answered with 429 and Retry-After
+ * instead of waiting for the pool's connection timeout. When threads are
+ * already queued on the Hikari pool, completions count as congestion, and a
+ * request arriving while the pool backlog is at least the pool size is
+ * rejected without queueing.
+ */
+@Component
+@Slf4j
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private static final String INVENTORY_PREFIX = "/api/inventory/";
+
+    private final AdmissionProperties admissionProperties;
+    private final InventoryQueryService inventoryQueryService;
+    private final HikariPoolMXBean pool;
+    private final int poolSize;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AdaptiveLimiter> limiters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejections = new ConcurrentHashMap<>();
+
+    public AdmissionFilter(AdmissionProperties admissionProperties,
+                           InventoryQueryService inventoryQueryService,
+                           DataSource dataSource,
+                           MeterRegistry meterRegistry) {
+        this.admissionProperties = admissionProperties;
+        this.inventoryQueryService = inventoryQueryService;
+        this.meterRegistry = meterRegistry;
+        HikariDataSource hikariDataSource = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+        if (hikariDataSource != null) {
+            this.pool = hikariDataSource.getHikariPoolMXBean();
+            this.poolSize = hikariDataSource.getMaximumPoolSize();
+        } else {
+            this.pool = null;
+            this.poolSize = Integer.MAX_VALUE;
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !admissionProperties.isEnabled() || endpoint(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        String endpoint = endpoint(request);
+        AdaptiveLimiter limiter = limiters.computeIfAbsent(endpoint, this::newLimiter);
+
+        if (awaitingConnection() >= poolSize || !acquire(limiter)) {
+            reject(endpoint, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                limiter.release(start, awaitingConnection() > 0);
+            }
+        };
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Deferred results and streamed bodies still hold the permit until they complete.
+                request.getAsyncContext().addListener(new ReleasingListener(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    /**
+     * Groups requests by the endpoint they hit. Returns null for anything
+     * that is not limited.
+     */
+    private String endpoint(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+        if ("POST".equals(method) && path.equals("/api/transfer")) {
+            return "transfer";
+        }
+        if ("POST".equals(method) && path.equals("/api/transfers/batch")) {
+            return "transfer-batch";
+        }
+        if ("POST".equals(method) && path.equals("/api/transfers/async")) {
+            return "transfer-async";
+        }
+        if ("GET".equals(method) && path.equals("/api/inventory/changes")) {
+            // Long-lived and served from memory; holding a permit would starve reads.
+            return null;
+        }
+        if ("GET".equals(method) && path.equals("/api/inventory")) {
+            // Pages are short reads; the export holds its connection for the whole stream.
+            return request.getParameter("limit") != null ? "inventory" : "inventory-export";
+        }
+        if ("GET".equals(method) && path.startsWith(INVENTORY_PREFIX)) {
+            String sku = UriUtils.decode(path.substring(INVENTORY_PREFIX.length()), StandardCharsets.UTF_8);
+            return inventoryQueryService.isServedFromMemory(sku) ? null : "inventory";
+        }
+        if ("GET".equals(method) && path.equals("/api/transfers")) {
+            return "transfer-history";
+        }
+        if ("GET".equals(method) && path.startsWith("/api/transfers/")) {
+            // Status polls are cheap primary-key reads; kept apart so they cannot crowd out history pages.
+            return "transfer-status";
+        }
+        return null;
+    }
+
+    private AdaptiveLimiter newLimiter(String endpoint) {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(admissionProperties);
+        Gauge.builder("inventory.admission.limit", limiter, AdaptiveLimiter::getLimit)
+                .description("Current concurrency limit")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        Gauge.builder("inventory.admission.in.flight", limiter, AdaptiveLimiter::getInFlight)
+                .description("Requests holding a permit")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    private boolean acquire(AdaptiveLimiter limiter) {
+        try {
+            return limiter.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private int awaitingConnection() {
+        return pool == null ? 0 : pool.getThreadsAwaitingConnection();
+    }
+
+    private void reject(String endpoint, HttpServletResponse response) throws IOException {
+        rejections.computeIfAbsent(endpoint, e -> Counter.builder("inventory.admission.rejected")
+                        .description("Requests answered with 429")
+                        .tag("endpoint", e)
+                        .register(meterRegistry))
+                .increment();
+        log.debug("Rejected {} request: over its concurrency limit", endpoint);
+
+        long retryAfterSeconds = Math.max(1, admissionProperties.getRetryAfter().toSeconds());
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"Too many concurrent requests, retry later\"}");
+    }
+
+    private record ReleasingListener(Runnable release) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+-- Queued transfers (POST /api/transfers/async) are PENDING rows with a
+-- priority. Rows written by synchronous transfers leave it null.
+
+ALTER TABLE transfer_log ADD COLUMN priority VARCHAR(10)
+    CHECK (priority IN ('URGENT', 'NORMAL', 'BULK'));
+
+CREATE INDEX idx_transfer_log_queued ON transfer_log (status, priority, id);
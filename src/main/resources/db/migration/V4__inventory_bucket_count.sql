@@ -0,0 +1,9 @@
+-- Split locations are marked on their inventory row, so every instance and
+-- every transaction that reads or locks the row knows to use the buckets.
+ALTER TABLE inventory ADD COLUMN buckets INTEGER DEFAULT 0 NOT NULL;
+
+UPDATE inventory
+   SET buckets = (SELECT COUNT(*) FROM inventory_bucket b
+                   WHERE b.sku = inventory.sku AND b.location = inventory.location)
+ WHERE EXISTS (SELECT 1 FROM inventory_bucket b
+                WHERE b.sku = inventory.sku AND b.location = inventory.location);
@@ -0,0 +1,71 @@
+package com.interview.inventory.perf;
+
+import com.interview.inventory.InventoryApplication;
+import com.interview.inventory.config.TransferProperties;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Boots the application once per trial against an in-memory H2 database,
+ * without the web server, and adds {@link #SKU_COUNT} benchmark SKUs with two
+ * well-stocked locations each.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkApplication {
+
+    static final int SKU_COUNT = 1000;
+    static final String LOCATION_A = PerfData.location(0);
+    static final String LOCATION_B = PerfData.location(1);
+    static final int STOCK_PER_LOCATION = 1_000_000_000;
+
+    /** {@code h2} is plain H2; {@code h2-postgresql} runs H2 in its PostgreSQL compatibility mode. */
+    @Param({"h2", "h2-postgresql"})
+    public String database;
+
+    @Param({"jpa", "atomic"})
+    public String engine;
+
+    ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        String url = "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+        if ("h2-postgresql".equals(database)) {
+            url += ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH";
+        }
+
+        context = new SpringApplicationBuilder(InventoryApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=" + url,
+                        "--spring.datasource.hikari.maximum-pool-size=16",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.interview.inventory=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.com.zaxxer.hikari=WARN");
+
+        context.getBean(TransferProperties.class)
+                .setEngine(TransferProperties.Engine.valueOf(engine.toUpperCase()));
+        PerfData.seed(context, SKU_COUNT, 2, STOCK_PER_LOCATION);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    static String sku(int index) {
+        return PerfData.sku(index);
+    }
+}
@@ -0,0 +1,448 @@
+package com.interview.inventory.perf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.interview.inventory.InventoryApplication;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * HTTP load generator for the transfer and inventory endpoints.
+ * <p>
+ * Targets {@code --url} if given, otherwise boots the application in-process
+ * on a random port with H2 and a synthetic catalogue: {@code --skus} SKUs
+ * with the same stock at each of {@code --locations}, or with
+ * {@code --catalog=synthetic} the skewed catalogue configured by the
+ * {@code inventory.seed.synthetic} properties. {@code --mode=closed}
+ * runs {@code --concurrency} callers back to back; {@code --mode=open} issues
+ * requests at a constant {@code --rate} per second and measures each latency
+ * from its scheduled start, so a stalled server shows up in the percentiles
+ * instead of slowing the generator down. SKUs and source locations are drawn
+ * from a Zipf distribution whose exponent is {@code --sku-skew} and
+ * {@code --location-skew} ({@code 0} is uniform).
+ * <p>
+ * The full inventory is read before and after the run. The process exits
+ * with status 1 if any SKU's total changed or any quantity went negative,
+ * which only holds if nothing else writes to the target meanwhile.
+ */
+public final class LoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Options options;
+    private final URI baseUri;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Recorder transferLatency = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Recorder readLatency = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Map<Outcome, LongAdder> outcomes = new HashMap<>();
+
+    private List<String> skus;
+    private Map<String, List<String>> locationsBySku;
+    private ZipfSampler skuSampler;
+    private Map<Integer, ZipfSampler> locationSamplers;
+
+    private LoadGenerator(Options options, URI baseUri) {
+        this.options = options;
+        this.baseUri = baseUri;
+        this.client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        ConfigurableApplicationContext embedded = null;
+        URI baseUri;
+        if (options.url != null) {
+            baseUri = URI.create(options.url);
+        } else {
+            embedded = startEmbedded(options);
+            baseUri = URI.create("http://localhost:" + embedded.getEnvironment().getProperty("local.server.port"));
+        }
+
+        boolean consistent;
+        try {
+            consistent = new LoadGenerator(options, baseUri).run();
+        } finally {
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+        System.exit(consistent ? 0 : 1);
+    }
+
+    private static ConfigurableApplicationContext startEmbedded(Options options) {
+        // Passed as command-line arguments so they win over application-test.yml.
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadgen;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--logging.level.root=WARN",
+                "--logging.level.com.interview.inventory=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.com.zaxxer.hikari=WARN"));
+        if (options.catalog.equals("synthetic")) {
+            arguments.add("--inventory.seed.mode=synthetic");
+        }
+        options.appProperties.forEach(property -> arguments.add("--" + property));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(InventoryApplication.class)
+                .profiles("test")
+                .run(arguments.toArray(String[]::new));
+        if (!options.catalog.equals("synthetic")) {
+            PerfData.seed(context, options.skus, options.locations, options.stock);
+        }
+        return context;
+    }
+
+    private boolean run() throws Exception {
+        List<JsonNode> before = readInventory();
+        loadCatalogue(before);
+        System.out.printf("Target %s: %d SKUs, %d inventory rows%n", baseUri, skus.size(), before.size());
+        System.out.printf("Mode %s, %s, warmup %s, duration %s%n", options.mode,
+                options.mode == Mode.OPEN ? options.rate + " req/s" : options.concurrency + " callers",
+                options.warmup, options.duration);
+
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup.toNanos();
+        long end = measureFrom + options.duration.toNanos();
+
+        Thread resetter = new Thread(() -> {
+            LockSupport.parkNanos(measureFrom - System.nanoTime());
+            transferLatency.reset();
+            readLatency.reset();
+            outcomes.values().forEach(LongAdder::reset);
+        }, "loadgen-warmup");
+        resetter.start();
+
+        if (options.mode == Mode.OPEN) {
+            runOpenLoop(start, end);
+        } else {
+            runClosedLoop(end);
+        }
+        resetter.join();
+        double seconds = (System.nanoTime() - measureFrom) / 1e9;
+
+        report(seconds);
+        return check(before, readInventory());
+    }
+
+    private void runClosedLoop(long end) throws InterruptedException {
+        List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < options.concurrency; i++) {
+            Thread caller = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(ThreadLocalRandom.current().nextLong());
+                while (System.nanoTime() < end) {
+                    Operation operation = nextOperation(random);
+                    long issued = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = client.send(operation.request, HttpResponse.BodyHandlers.ofString());
+                        complete(operation, issued, response, null);
+                    } catch (IOException e) {
+                        complete(operation, issued, null, e);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }, "loadgen-caller-" + i);
+            caller.start();
+            callers.add(caller);
+        }
+        for (Thread caller : callers) {
+            caller.join();
+        }
+    }
+
+    private void runOpenLoop(long start, long end) throws InterruptedException {
+        SplittableRandom random = new SplittableRandom();
+        Semaphore outstanding = new Semaphore(options.maxOutstanding);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate;
+
+        for (long scheduled = start; scheduled < end; scheduled += intervalNanos) {
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            // Blocking here delays the send, but latency is still measured from the
+            // scheduled time, so the backlog is charged to the server.
+            outstanding.acquire();
+            Operation operation = nextOperation(random);
+            long intended = scheduled;
+            client.sendAsync(operation.request, HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, failure) -> {
+                        complete(operation, intended, response, failure);
+                        outstanding.release();
+                    });
+        }
+        outstanding.acquire(options.maxOutstanding);
+    }
+
+    private Operation nextOperation(SplittableRandom random) {
+        String sku = skus.get(skuSampler.sample(random));
+        if (random.nextDouble() < options.readRatio) {
+            return new Operation(false, HttpRequest.newBuilder(baseUri.resolve("/api/inventory/" + sku)).GET().build());
+        }
+
+        List<String> locations = locationsBySku.get(sku);
+        int from = locationSamplers.get(locations.size()).sample(random);
+        int to = random.nextInt(locations.size() - 1);
+        if (to >= from) {
+            to++;
+        }
+        int quantity = 1 + random.nextInt(options.maxQuantity);
+        String body = String.format("{\"sku\":\"%s\",\"fromLocation\":\"%s\",\"toLocation\":\"%s\",\"quantity\":%d}",
+                sku, locations.get(from), locations.get(to), quantity);
+        return new Operation(true, HttpRequest.newBuilder(baseUri.resolve("/api/transfer"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build());
+    }
+
+    private void complete(Operation operation, long startNanos, HttpResponse<String> response, Throwable failure) {
+        long micros = Math.min(HIGHEST_TRACKABLE_MICROS,
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+        (operation.transfer ? transferLatency : readLatency).recordValue(micros);
+        outcomes.get(Outcome.of(operation.transfer, response, failure)).increment();
+    }
+
+    private void report(double seconds) {
+        Histogram transfers = transferLatency.getIntervalHistogram();
+        Histogram reads = readLatency.getIntervalHistogram();
+
+        System.out.println();
+        System.out.printf("%-10s %10s %10s %10s %10s %10s %10s%n",
+                "endpoint", "count", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        printRow("transfer", transfers, seconds);
+        printRow("read", reads, seconds);
+
+        System.out.println();
+        for (Outcome outcome : Outcome.values()) {
+            System.out.printf("%-20s %d%n", outcome.label, outcomes.get(outcome).sum());
+        }
+    }
+
+    private static void printRow(String name, Histogram histogram, double seconds) {
+        if (histogram.getTotalCount() == 0) {
+            return;
+        }
+        System.out.printf("%-10s %10d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                name,
+                histogram.getTotalCount(),
+                histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    private boolean check(List<JsonNode> before, List<JsonNode> after) {
+        Map<String, Long> totalsBefore = totalsBySku(before);
+        Map<String, Long> totalsAfter = totalsBySku(after);
+        boolean consistent = true;
+
+        for (Map.Entry<String, Long> entry : totalsBefore.entrySet()) {
+            long now = totalsAfter.getOrDefault(entry.getKey(), 0L);
+            if (now != entry.getValue()) {
+                System.out.printf("VIOLATION: %s total was %d, now %d%n", entry.getKey(), entry.getValue(), now);
+                consistent = false;
+            }
+        }
+        for (JsonNode row : after) {
+            if (row.get("quantity").asLong() < 0) {
+                System.out.printf("VIOLATION: %s at %s has quantity %d%n",
+                        row.get("sku").asText(), row.get("location").asText(), row.get("quantity").asLong());
+                consistent = false;
+            }
+        }
+
+        System.out.println();
+        System.out.println(consistent
+                ? "Conservation holds for all " + totalsBefore.size() + " SKUs; no negative quantities"
+                : "Invariant check FAILED");
+        return consistent;
+    }
+
+    private List<JsonNode> readInventory() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(
+                HttpRequest.newBuilder(baseUri.resolve("/api/inventory")).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET /api/inventory returned " + response.statusCode());
+        }
+        List<JsonNode> rows = new ArrayList<>();
+        objectMapper.readTree(response.body()).forEach(rows::add);
+        return rows;
+    }
+
+    private void loadCatalogue(List<JsonNode> rows) {
+        locationsBySku = new TreeMap<>();
+        for (JsonNode row : rows) {
+            locationsBySku.computeIfAbsent(row.get("sku").asText(), sku -> new ArrayList<>())
+                    .add(row.get("location").asText());
+        }
+        locationsBySku.values().removeIf(locations -> locations.size() < 2);
+        if (locationsBySku.isEmpty()) {
+            throw new IllegalStateException("No SKU is stocked at two or more locations");
+        }
+        skus = new ArrayList<>(locationsBySku.keySet());
+        skuSampler = new ZipfSampler(skus.size(), options.skuSkew);
+        locationSamplers = new HashMap<>();
+        for (List<String> locations : locationsBySku.values()) {
+            locationSamplers.computeIfAbsent(locations.size(), n -> new ZipfSampler(n, options.locationSkew));
+        }
+    }
+
+    private static Map<String, Long> totalsBySku(List<JsonNode> rows) {
+        Map<String, Long> totals = new HashMap<>();
+        for (JsonNode row : rows) {
+            totals.merge(row.get("sku").asText(), row.get("quantity").asLong(), Long::sum);
+        }
+        return totals;
+    }
+
+    private record Operation(boolean transfer, HttpRequest request) {
+    }
+
+    private enum Mode { CLOSED, OPEN }
+
+    private enum Outcome {
+        COMPLETED("transfers completed"),
+        REJECTED("transfers rejected"),
+        READ_OK("reads ok"),
+        THROTTLED("429 throttled"),
+        UNAVAILABLE("503 unavailable"),
+        ERROR("other errors");
+
+        private final String label;
+
+        Outcome(String label) {
+            this.label = label;
+        }
+
+        static Outcome of(boolean transfer, HttpResponse<String> response, Throwable failure) {
+            if (failure != null || response == null) {
+                return ERROR;
+            }
+            return switch (response.statusCode()) {
+                case 200 -> !transfer ? READ_OK
+                        : response.body().contains("\"status\":\"COMPLETED\"") ? COMPLETED : REJECTED;
+                case 429 -> THROTTLED;
+                case 503 -> UNAVAILABLE;
+                default -> ERROR;
+            };
+        }
+    }
+
+    /** Draws indexes {@code 0..n-1} with probability proportional to {@code 1 / (i + 1)^exponent}. */
+    private static final class ZipfSampler {
+
+        private final double[] cumulative;
+
+        ZipfSampler(int n, double exponent) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1.0 / Math.pow(i + 1, exponent);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            double u = random.nextDouble();
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final class Options {
+
+        String url;
+        Mode mode = Mode.CLOSED;
+        int concurrency = 16;
+        int rate = 200;
+        int maxOutstanding = 1000;
+        Duration warmup = Duration.ofSeconds(5);
+        Duration duration = Duration.ofSeconds(30);
+        double skuSkew = 0;
+        double locationSkew = 0;
+        double readRatio = 0;
+        int maxQuantity = 5;
+        int skus = 100;
+        int locations = 4;
+        int stock = 10_000;
+        String catalog = "uniform";
+        final List<String> appProperties = new ArrayList<>();
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                    throw new IllegalArgumentException("Expected --name=value, got " + arg);
+                }
+                String name = arg.substring(2, arg.indexOf('='));
+                String value = arg.substring(arg.indexOf('=') + 1);
+                switch (name) {
+                    case "url" -> options.url = value;
+                    case "mode" -> options.mode = Mode.valueOf(value.toUpperCase());
+                    case "concurrency" -> options.concurrency = Integer.parseInt(value);
+                    case "rate" -> options.rate = Integer.parseInt(value);
+                    case "max-outstanding" -> options.maxOutstanding = Integer.parseInt(value);
+                    case "warmup" -> options.warmup = DurationStyle.detectAndParse(value);
+                    case "duration" -> options.duration = DurationStyle.detectAndParse(value);
+                    case "sku-skew" -> options.skuSkew = Double.parseDouble(value);
+                    case "location-skew" -> options.locationSkew = Double.parseDouble(value);
+                    case "read-ratio" -> options.readRatio = Double.parseDouble(value);
+                    case "max-quantity" -> options.maxQuantity = Integer.parseInt(value);
+                    case "skus" -> options.skus = Integer.parseInt(value);
+                    case "locations" -> options.locations = Integer.parseInt(value);
+                    case "stock" -> options.stock = Integer.parseInt(value);
+                    case "catalog" -> options.catalog = value;
+                    // Anything under app. is passed to the embedded instance, e.g. --app.inventory.transfer.engine=atomic
+                    default -> {
+                        if (!name.startsWith("app.")) {
+                            throw new IllegalArgumentException("Unknown option --" + name);
+                        }
+                        options.appProperties.add(name.substring(4) + "=" + value);
+                    }
+                }
+            }
+            return options;
+        }
+    }
+}
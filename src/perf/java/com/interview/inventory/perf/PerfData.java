@@ -0,0 +1,30 @@
+package com.interview.inventory.perf;
+
+import com.interview.inventory.service.BulkInventoryLoader;
+import org.springframework.context.ApplicationContext;
+
+import java.util.stream.IntStream;
+
+/** Synthetic catalogue shared by the benchmarks and the load generator. */
+final class PerfData {
+
+    private PerfData() {
+    }
+
+    static String sku(int index) {
+        return String.format("BENCH-%04d", index);
+    }
+
+    static String location(int index) {
+        return "WAREHOUSE-" + (char) ('A' + index);
+    }
+
+    /** Adds {@code skuCount} SKUs, each stocked with {@code stock} units at every one of {@code locationCount} locations. */
+    static void seed(ApplicationContext context, int skuCount, int locationCount, int stock) {
+        context.getBean(BulkInventoryLoader.class).load(IntStream.range(0, skuCount)
+                .boxed()
+                .flatMap(i -> IntStream.range(0, locationCount)
+                        .mapToObj(l -> new BulkInventoryLoader.Row(sku(i), location(l), stock)))
+                .iterator());
+    }
+}
@@ -0,0 +1,71 @@
+package com.interview.inventory.perf;
+
+import com.interview.inventory.controller.InventoryController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The read endpoints, called on the controller bean so that the numbers
+ * cover the service and persistence work without HTTP parsing.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReadBenchmark {
+
+    @State(Scope.Thread)
+    public static class Scenario {
+
+        @Param({"uniform", "hot"})
+        public String skew;
+
+        private final SplittableRandom random = new SplittableRandom();
+        private InventoryController controller;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkApplication application) {
+            controller = application.bean(InventoryController.class);
+        }
+
+        String nextSku() {
+            return "hot".equals(skew) ? BenchmarkApplication.sku(0)
+                    : BenchmarkApplication.sku(random.nextInt(BenchmarkApplication.SKU_COUNT));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Health {
+
+        private InventoryController controller;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkApplication application) {
+            controller = application.bean(InventoryController.class);
+        }
+    }
+
+    @Benchmark
+    public Object getInventory(BenchmarkApplication application, Scenario scenario) {
+        return scenario.controller.getInventory(scenario.nextSku());
+    }
+
+    @Benchmark
+    public Object health(BenchmarkApplication application, Health health) {
+        return health.controller.health(false);
+    }
+}
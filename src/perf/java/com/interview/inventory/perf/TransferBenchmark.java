@@ -0,0 +1,78 @@
+package com.interview.inventory.perf;
+
+import com.interview.inventory.dto.TransferRequest;
+import com.interview.inventory.service.TransferService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TransferService#executeTransfer} end to end: transaction, audit row,
+ * stock update and commit. Run with {@code -t N} to measure contention.
+ * <p>
+ * A transfer that loses an optimistic-lock race under the {@code jpa} engine
+ * throws out of the service; that is counted as a completed operation, like
+ * a client that gives up.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TransferBenchmark {
+
+    @State(Scope.Thread)
+    public static class Scenario {
+
+        /** {@code uniform} spreads transfers over all benchmark SKUs; {@code hot} sends all of them to one. */
+        @Param({"uniform", "hot"})
+        public String skew;
+
+        /** {@code success} moves one unit; {@code rejected} asks for more than the source holds. */
+        @Param({"success", "rejected"})
+        public String outcome;
+
+        private final SplittableRandom random = new SplittableRandom();
+        private TransferService transferService;
+        private int quantity;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkApplication application) {
+            transferService = application.bean(TransferService.class);
+            quantity = "rejected".equals(outcome) ? Integer.MAX_VALUE : 1;
+        }
+
+        TransferRequest next() {
+            String sku = "hot".equals(skew) ? BenchmarkApplication.sku(0)
+                    : BenchmarkApplication.sku(random.nextInt(BenchmarkApplication.SKU_COUNT));
+            boolean outbound = random.nextBoolean();
+            return TransferRequest.builder()
+                    .sku(sku)
+                    .fromLocation(outbound ? BenchmarkApplication.LOCATION_A : BenchmarkApplication.LOCATION_B)
+                    .toLocation(outbound ? BenchmarkApplication.LOCATION_B : BenchmarkApplication.LOCATION_A)
+                    .quantity(quantity)
+                    .build();
+        }
+    }
+
+    @Benchmark
+    public Object executeTransfer(BenchmarkApplication application, Scenario scenario) {
+        try {
+            return scenario.transferService.executeTransfer(scenario.next());
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+}
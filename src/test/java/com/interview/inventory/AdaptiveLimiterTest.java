@@ -0,0 +1,46 @@
+package com.interview.inventory;
+
+import com.interview.inventory.config.AdmissionProperties;
+import com.interview.inventory.web.AdaptiveLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveLimiterTest {
+
+    @Test
+    void shouldRejectOnceLimitAndQueueAreFull() throws InterruptedException {
+        AdmissionProperties settings = new AdmissionProperties();
+        settings.setInitialLimit(2);
+        settings.setQueueSize(0);
+        AdaptiveLimiter limiter = new AdaptiveLimiter(settings);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release(System.nanoTime(), false);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void shouldShrinkOnCongestionAndGrowBackWhenFast() throws InterruptedException {
+        AdmissionProperties settings = new AdmissionProperties();
+        settings.setInitialLimit(8);
+        settings.setLatencyThreshold(Duration.ofMillis(100));
+        AdaptiveLimiter limiter = new AdaptiveLimiter(settings);
+
+        long start = System.nanoTime();
+        assertTrue(limiter.tryAcquire());
+        limiter.release(start - Duration.ofSeconds(1).toNanos(), false);
+        assertEquals(6, limiter.getLimit());
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(System.nanoTime(), false);
+        }
+        assertTrue(limiter.getLimit() > 6);
+    }
+}
@@ -0,0 +1,68 @@
+package com.interview.inventory;
+
+import com.interview.inventory.service.InventoryQueryService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:admissiondb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "inventory.admission.enabled=true",
+        "inventory.admission.initial-limit=1",
+        "inventory.admission.min-limit=1",
+        "inventory.admission.max-limit=1",
+        "inventory.admission.queue-size=0",
+        "inventory.admission.retry-after=3s"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AdmissionFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private InventoryQueryService inventoryQueryService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void shouldRejectOnlyTheSaturatedEndpointUntilItsStreamCompletes() throws Exception {
+        // Cached reads never reach the database, so they do not touch the read limiter.
+        inventoryQueryService.getInventory("SKU-002");
+        mockMvc.perform(get("/api/inventory/SKU-002")).andExpect(status().isOk());
+        assertNull(meterRegistry.find("inventory.admission.limit").tag("endpoint", "inventory").gauge());
+
+        // The streamed export keeps its permit after the filter returns.
+        MvcResult export = mockMvc.perform(get("/api/inventory")).andReturn();
+        assertTrue(export.getRequest().isAsyncStarted());
+
+        mockMvc.perform(get("/api/inventory").param("format", "csv"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "3"))
+                .andExpect(jsonPath("$.error").exists());
+
+        mockMvc.perform(get("/api/inventory/SKU-001")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/inventory").param("limit", "2")).andExpect(status().isOk());
+        assertEquals(1.0, meterRegistry.get("inventory.admission.rejected").tag("endpoint", "inventory-export")
+                .counter().count());
+
+        mockMvc.perform(asyncDispatch(export)).andExpect(status().isOk());
+        export.getRequest().getAsyncContext().complete();
+
+        MvcResult next = mockMvc.perform(get("/api/inventory")).andReturn();
+        assertTrue(next.getRequest().isAsyncStarted());
+        mockMvc.perform(asyncDispatch(next)).andExpect(status().isOk());
+    }
+}
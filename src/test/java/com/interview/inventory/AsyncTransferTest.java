@@ -0,0 +1,149 @@
+package com.interview.inventory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.interview.inventory.dto.TransferResponse;
+import com.interview.inventory.model.TransferLog;
+import com.interview.inventory.repository.InventoryRepository;
+import com.interview.inventory.repository.TransferLogRepository;
+import com.interview.inventory.service.AsyncTransferScheduler;
+import com.interview.inventory.service.TransferService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:asyncdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "inventory.transfer.async.enabled=true"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AsyncTransferTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private TransferLogRepository transferLogRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AsyncTransferScheduler scheduler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldAcceptQueuedTransfersAndReportTheirOutcome() throws Exception {
+        int sourceBefore = inventoryRepository.findBySkuAndLocation("SKU-002", "WAREHOUSE-A").orElseThrow().getQuantity();
+
+        long moved = submit("URGENT", "{\"sku\":\"SKU-002\",\"fromLocation\":\"WAREHOUSE-A\","
+                + "\"toLocation\":\"WAREHOUSE-B\",\"quantity\":40}");
+        long refused = submit("BULK", "{\"sku\":\"SKU-002\",\"fromLocation\":\"WAREHOUSE-A\","
+                + "\"toLocation\":\"WAREHOUSE-B\",\"quantity\":999999}");
+
+        assertEquals("COMPLETED", awaitOutcome(moved).getStatus().name());
+        TransferLog failed = awaitOutcome(refused);
+        assertEquals("FAILED", failed.getStatus().name());
+        assertEquals(TransferLog.Priority.BULK, failed.getPriority());
+        assertEquals(sourceBefore - 40,
+                inventoryRepository.findBySkuAndLocation("SKU-002", "WAREHOUSE-A").orElseThrow().getQuantity());
+
+        mockMvc.perform(post("/api/transfers/async").param("priority", "SOMEDAY")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"sku\":\"SKU-002\",\"fromLocation\":\"WAREHOUSE-A\","
+                                + "\"toLocation\":\"WAREHOUSE-B\",\"quantity\":1}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/transfers/{id}", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldApplyAQueuedTransferOnlyOnce() {
+        int sourceBefore = inventoryRepository.findBySkuAndLocation("SKU-003", "WAREHOUSE-A").orElseThrow().getQuantity();
+        // Left without a priority so the workers never pick it up; it is run by hand below.
+        TransferLog queued = transferLogRepository.save(TransferLog.builder()
+                .sku("SKU-003").fromLocation("WAREHOUSE-A").toLocation("WAREHOUSE-C").quantity(15)
+                .status(TransferLog.TransferStatus.PENDING)
+                .build());
+
+        TransferResponse first = transferService.executeQueued(queued);
+        TransferResponse second = transferService.executeQueued(queued);
+
+        assertEquals("COMPLETED", first.getStatus());
+        assertEquals("COMPLETED", second.getStatus());
+        assertEquals(queued.getId(), second.getTransferId());
+        assertEquals(sourceBefore - 15,
+                inventoryRepository.findBySkuAndLocation("SKU-003", "WAREHOUSE-A").orElseThrow().getQuantity());
+        assertEquals(TransferLog.TransferStatus.COMPLETED,
+                transferLogRepository.findById(queued.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void shouldRunTransfersLeftPendingByAnotherInstance() throws Exception {
+        // Queued by an instance that stopped before running it.
+        TransferLog orphan = transferLogRepository.save(TransferLog.builder()
+                .sku("SKU-003").fromLocation("WAREHOUSE-C").toLocation("WAREHOUSE-A").quantity(3)
+                .status(TransferLog.TransferStatus.PENDING)
+                .priority(TransferLog.Priority.NORMAL)
+                .build());
+        jdbcTemplate.update("UPDATE transfer_log SET created_at = ? WHERE id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(1)), orphan.getId());
+        scheduler.sweep();
+
+        assertEquals("COMPLETED", awaitOutcome(orphan.getId()).getStatus().name());
+    }
+
+    private long submit(String priority, String body) throws Exception {
+        MvcResult started = mockMvc.perform(post("/api/transfers/async").param("priority", priority)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andExpect(header().exists("Location"))
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), TransferResponse.class).getTransferId();
+    }
+
+    private TransferLog awaitOutcome(long id) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            MvcResult result = mockMvc.perform(get("/api/transfers/{id}", id))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            TransferLog transfer = objectMapper.readValue(result.getResponse().getContentAsString(), TransferLog.class);
+            if (transfer.getStatus() != TransferLog.TransferStatus.PENDING) {
+                return transfer;
+            }
+            assertTrue(System.currentTimeMillis() < deadline, "Transfer " + id + " is still PENDING");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.interview.inventory;
+
+import com.interview.inventory.config.SeedProperties;
+import com.interview.inventory.service.BulkInventoryLoader;
+import com.interview.inventory.service.ConservationAuditor;
+import com.interview.inventory.service.SyntheticCatalogGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bulkloaddb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "inventory.bulk-load.chunk-size=100",
+        "inventory.bulk-load.statement-rows=30"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BulkLoadTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BulkInventoryLoader loader;
+
+    @Autowired
+    private ConservationAuditor auditor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldUpsertCsvRowsAndKeepTotalsConserved() throws Exception {
+        String csv = """
+                id,sku,location,quantity,updated_at,version
+                1,SKU-001,WAREHOUSE-A,1200,,0
+                ,"SKU-004","WAREHOUSE-D, DOCK ""2""\",50,,
+                ,SKU-004,WAREHOUSE-E,-1,,
+                ,SKU-004,WAREHOUSE-E,lots,,
+                """;
+
+        mockMvc.perform(post("/api/inventory/import").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsRead").value(4))
+                .andExpect(jsonPath("$.rowsLoaded").value(2))
+                .andExpect(jsonPath("$.rowsRejected").value(2))
+                .andExpect(jsonPath("$.errors", hasSize(2)))
+                .andExpect(jsonPath("$.errors[0]", startsWith("line 4:")));
+
+        assertEquals(1200, quantity("SKU-001", "WAREHOUSE-A"));
+        assertEquals(50, quantity("SKU-004", "WAREHOUSE-D, DOCK \"2\""));
+        assertEquals(2000, total("SKU-001"));
+        assertEquals(50, total("SKU-004"));
+        assertTrue(auditor.reconcile().getViolations().isEmpty());
+
+        mockMvc.perform(post("/api/inventory/import").contentType("text/csv").content("sku,quantity\nSKU-001,1\n"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldGenerateRepeatableSkewedCatalogueAndLoadItInChunks() {
+        SeedProperties.Synthetic settings = new SeedProperties.Synthetic();
+        settings.setSkus(250);
+        settings.setLocations(8);
+        settings.setLocationsPerSku(3);
+
+        List<BulkInventoryLoader.Row> rows = new ArrayList<>();
+        new SyntheticCatalogGenerator(settings).forEachRemaining(rows::add);
+        List<BulkInventoryLoader.Row> again = new ArrayList<>();
+        new SyntheticCatalogGenerator(settings).forEachRemaining(again::add);
+
+        assertEquals(750, rows.size());
+        assertEquals(rows, again);
+        assertTrue(rows.get(0).quantity() > 10 * rows.get(rows.size() - 1).quantity());
+
+        var report = loader.load(rows.iterator());
+        assertEquals(750, report.getRowsLoaded());
+        assertEquals(8, report.getChunks());
+        assertEquals(250, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM sku_totals WHERE sku LIKE 'SKU-0000%'", Integer.class));
+        assertTrue(auditor.reconcile().getViolations().isEmpty());
+    }
+
+    private int quantity(String sku, String location) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM inventory WHERE sku = ? AND location = ?",
+                Integer.class, sku, location);
+    }
+
+    private long total(String sku) {
+        return jdbcTemplate.queryForObject("SELECT total_quantity FROM sku_totals WHERE sku = ?", Long.class, sku);
+    }
+}
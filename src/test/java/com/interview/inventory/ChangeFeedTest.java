@@ -0,0 +1,100 @@
+package com.interview.inventory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.interview.inventory.dto.InventoryChange;
+import com.interview.inventory.dto.TransferRequest;
+import com.interview.inventory.dto.TransferResponse;
+import com.interview.inventory.service.TransferService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:changefeeddb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "inventory.changes.enabled=true"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ChangeFeedTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldStreamCommittedChangesAndResumeFromCursor() throws Exception {
+        MvcResult live = subscribe("SKU-002", null);
+
+        transferService.executeTransfer(TransferRequest.builder()
+                .sku("SKU-001").fromLocation("WAREHOUSE-A").toLocation("WAREHOUSE-B").quantity(10).build());
+        TransferResponse moved = transferService.executeTransfer(TransferRequest.builder()
+                .sku("SKU-002").fromLocation("WAREHOUSE-A").toLocation("WAREHOUSE-B").quantity(25).build());
+
+        List<InventoryChange> changes = awaitEvents(live, 2);
+        assertEquals(Map.of("WAREHOUSE-A", 1975, "WAREHOUSE-B", 1525), changes.stream()
+                .collect(Collectors.toMap(InventoryChange::getLocation, InventoryChange::getNewQuantity)));
+        assertTrue(changes.stream().allMatch(change -> moved.getTransferId().equals(change.getTransferId())));
+        assertTrue(changes.get(0).getSequence() < changes.get(1).getSequence());
+
+        MvcResult resumed = subscribe("SKU-002", changes.get(0).getSequence());
+        assertEquals(List.of(changes.get(1)), awaitEvents(resumed, 1));
+    }
+
+    @Test
+    void shouldResetSubscriberWhoseCursorIsNoLongerRetained() throws Exception {
+        MvcResult stale = mockMvc.perform(get("/api/inventory/changes").header("Last-Event-ID", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = awaitBody(stale, content -> content.contains("event:reset"));
+        assertTrue(body.contains("\"type\":\"RESET\""), body);
+    }
+
+    private MvcResult subscribe(String sku, Long after) throws Exception {
+        var request = get("/api/inventory/changes").param("format", "ndjson").param("sku", sku);
+        if (after != null) {
+            request.param("after", String.valueOf(after));
+        }
+        return mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    private List<InventoryChange> awaitEvents(MvcResult result, int count) throws Exception {
+        String body = awaitBody(result, content -> content.lines().count() >= count);
+        List<InventoryChange> changes = new ArrayList<>();
+        for (String line : body.lines().toList()) {
+            changes.add(objectMapper.readValue(line, InventoryChange.class));
+        }
+        return changes;
+    }
+
+    private static String awaitBody(MvcResult result, Predicate<String> ready) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String body = result.getResponse().getContentAsString();
+        while (!ready.test(body) && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(20);
+            body = result.getResponse().getContentAsString();
+        }
+        assertTrue(ready.test(body), "Feed sent: " + body);
+        return body;
+    }
+}
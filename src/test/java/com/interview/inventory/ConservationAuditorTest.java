@@ -0,0 +1,80 @@
+package com.interview.inventory;
+
+import com.interview.inventory.dto.ConservationReport;
+import com.interview.inventory.dto.TransferRequest;
+import com.interview.inventory.service.ConservationAuditor;
+import com.interview.inventory.service.InventoryChangedEvent;
+import com.interview.inventory.service.TransferService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:conservationdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "inventory.conservation.enabled=true",
+        "inventory.conservation.check-interval=1h",
+        "inventory.conservation.chunk-size=2"
+})
+@ActiveProfiles("test")
+class ConservationAuditorTest {
+
+    @Autowired
+    private ConservationAuditor auditor;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void shouldReportDriftNegativeAndUnrecordedStockUntilRepaired() {
+        ConservationReport clean = auditor.reconcile();
+        assertTrue(clean.getViolations().isEmpty());
+        assertEquals(3, clean.getLastFullPassSkus());
+        // The seed load queued its SKUs like any other stock change.
+        auditor.checkPending();
+
+        transferService.executeTransfer(TransferRequest.builder()
+                .sku("SKU-002").fromLocation("WAREHOUSE-A").toLocation("WAREHOUSE-B").quantity(100).build());
+        assertEquals(1, auditor.report().getPendingSkus());
+        auditor.checkPending();
+        assertEquals(0, auditor.report().getPendingSkus());
+        assertTrue(auditor.report().getViolations().isEmpty());
+
+        // Stock changed behind the service's back: SKU-002 loses 1905 units and goes negative.
+        jdbcTemplate.update("UPDATE inventory SET quantity = -5 WHERE sku = 'SKU-002' AND location = 'WAREHOUSE-A'");
+        auditor.onInventoryChanged(new InventoryChangedEvent(Set.of("SKU-002")));
+        auditor.checkPending();
+
+        ConservationReport.Violation drift = auditor.report().getViolations().get(0);
+        assertEquals("SKU-002", drift.getSku());
+        assertEquals(List.of("drift", "negative"), drift.getKinds());
+        assertEquals(3500, drift.getBaselineTotal());
+        assertEquals(1595, drift.getActualTotal());
+        assertEquals(1905, meterRegistry.get("inventory.conservation.drift").gauge().value());
+
+        // Stock with no baseline is only found by the full reconciliation.
+        jdbcTemplate.update("INSERT INTO inventory (id, sku, location, quantity, updated_at, version) "
+                + "VALUES (NEXT VALUE FOR inventory_seq, 'SKU-999', 'WAREHOUSE-A', 10, LOCALTIMESTAMP, 0)");
+        ConservationReport dirty = auditor.reconcile();
+        assertEquals(List.of("SKU-002", "SKU-999"), dirty.getViolations().stream().map(ConservationReport.Violation::getSku).toList());
+        assertEquals(List.of("unrecorded"), dirty.getViolations().get(1).getKinds());
+        assertEquals(1, meterRegistry.get("inventory.conservation.violations").tag("kind", "negative").gauge().value());
+
+        jdbcTemplate.update("UPDATE inventory SET quantity = 1900 WHERE sku = 'SKU-002' AND location = 'WAREHOUSE-A'");
+        jdbcTemplate.update("DELETE FROM inventory WHERE sku = 'SKU-999'");
+        assertTrue(auditor.reconcile().getViolations().isEmpty());
+    }
+}
@@ -0,0 +1,65 @@
+package com.interview.inventory;
+
+import com.interview.inventory.config.GatedDataSource;
+import com.interview.inventory.dto.TransferRequest;
+import com.interview.inventory.dto.TransferResponse;
+import com.interview.inventory.repository.InventoryRepository;
+import com.interview.inventory.service.TransferService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:gatedb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "inventory.transfer.engine=atomic",
+        "inventory.db-gate.enabled=true",
+        "inventory.db-gate.permits=2"
+})
+@ActiveProfiles("test")
+class DatabaseGateTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Test
+    void shouldRunManyConcurrentTransfersThroughTwoPermits() {
+        GatedDataSource gated = assertInstanceOf(GatedDataSource.class, dataSource);
+        Integer totalBefore = inventoryRepository.getTotalQuantityBySku("SKU-003");
+
+        ExecutorService callers = Executors.newFixedThreadPool(32);
+        try {
+            List<CompletableFuture<TransferResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                boolean outbound = i % 2 == 0;
+                futures.add(CompletableFuture.supplyAsync(() -> transferService.executeTransfer(TransferRequest.builder()
+                        .sku("SKU-003")
+                        .fromLocation(outbound ? "WAREHOUSE-A" : "WAREHOUSE-C")
+                        .toLocation(outbound ? "WAREHOUSE-C" : "WAREHOUSE-A")
+                        .quantity(1)
+                        .build()), callers));
+            }
+            futures.forEach(CompletableFuture::join);
+        } finally {
+            callers.shutdown();
+        }
+
+        assertEquals(totalBefore, inventoryRepository.getTotalQuantityBySku("SKU-003"));
+        assertEquals(2, gated.getAvailablePermits());
+    }
+}
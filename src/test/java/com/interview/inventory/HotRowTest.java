@@ -0,0 +1,153 @@
+package com.interview.inventory;
+
+import com.interview.inventory.dto.InventoryResponse;
+import com.interview.inventory.dto.TransferRequest;
+import com.interview.inventory.dto.TransferResponse;
+import com.interview.inventory.model.Inventory;
+import com.interview.inventory.model.InventoryBucket;
+import com.interview.inventory.repository.InventoryBucketRepository;
+import com.interview.inventory.repository.InventoryRepository;
+import com.interview.inventory.service.HotRowService;
+import com.interview.inventory.service.InventoryQueryService;
+import com.interview.inventory.service.TransferService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:hotrowdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.datasource.hikari.maximum-pool-size=8",
+        "inventory.cache.enabled=false",
+        "inventory.hot-rows.enabled=true",
+        "inventory.hot-rows.check-interval=1h",
+        "inventory.transfer.retry.max-attempts=20",
+        "inventory.transfer.retry.budget-burst=1000"
+})
+@ActiveProfiles("test")
+class HotRowTest {
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private HotRowService hotRowService;
+
+    @Autowired
+    private InventoryQueryService inventoryQueryService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryBucketRepository inventoryBucketRepository;
+
+    @Test
+    void shouldMoveStockThroughSplitLocationWithoutChangingTotals() {
+        assertTrue(hotRowService.split("SKU-001", "WAREHOUSE-A", 4));
+        assertEquals(0, inventoryRepository.findQuantity("SKU-001", "WAREHOUSE-A").orElseThrow());
+        assertEquals(1000, quantityAt("SKU-001", "WAREHOUSE-A"));
+        assertEquals(1800, inventoryRepository.getTotalQuantityBySku("SKU-001"));
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<TransferResponse>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 100; i++) {
+                boolean outbound = i % 2 == 0;
+                futures.add(CompletableFuture.supplyAsync(() -> transferService.executeTransfer(TransferRequest.builder()
+                        .sku("SKU-001")
+                        .fromLocation(outbound ? "WAREHOUSE-A" : "WAREHOUSE-B")
+                        .toLocation(outbound ? "WAREHOUSE-B" : "WAREHOUSE-A")
+                        .quantity(outbound ? 2 : 1)
+                        .build()), callers));
+            }
+            futures.forEach(CompletableFuture::join);
+        } finally {
+            callers.shutdown();
+        }
+        assertTrue(futures.stream().map(CompletableFuture::join)
+                .allMatch(response -> "COMPLETED".equals(response.getStatus())));
+        assertEquals(950, quantityAt("SKU-001", "WAREHOUSE-A"));
+        assertEquals(1800, inventoryRepository.getTotalQuantityBySku("SKU-001"));
+
+        // Needs every bucket: no single one holds 900 units.
+        TransferResponse drained = transferService.executeTransfer(transfer("WAREHOUSE-A", "WAREHOUSE-C", 900));
+        assertEquals("COMPLETED", drained.getStatus());
+        TransferResponse rejected = transferService.executeTransfer(transfer("WAREHOUSE-A", "WAREHOUSE-C", 51));
+        assertEquals("FAILED", rejected.getStatus());
+        assertEquals("Insufficient stock. Available: 50, Requested: 51", rejected.getMessage());
+
+        List<TransferResponse> batch = transferService.executeBatch(List.of(
+                transfer("WAREHOUSE-C", "WAREHOUSE-A", 100),
+                transfer("WAREHOUSE-A", "WAREHOUSE-B", 120)));
+        assertTrue(batch.stream().allMatch(response -> "COMPLETED".equals(response.getStatus())));
+        assertEquals(30, quantityAt("SKU-001", "WAREHOUSE-A"));
+        assertEquals(1800, inventoryRepository.getTotalQuantityBySku("SKU-001"));
+
+        assertTrue(hotRowService.merge("SKU-001", "WAREHOUSE-A"));
+        assertTrue(inventoryBucketRepository.findQuantities("SKU-001", "WAREHOUSE-A").isEmpty());
+        assertEquals(30, inventoryRepository.findQuantity("SKU-001", "WAREHOUSE-A").orElseThrow());
+        assertEquals(1800, inventoryRepository.getTotalQuantityBySku("SKU-001"));
+    }
+
+    @Test
+    void shouldSplitLocationWhoseWaitsStayHigh() {
+        hotRowService.recordWait("SKU-003", "WAREHOUSE-C", TimeUnit.MILLISECONDS.toNanos(50));
+        hotRowService.rebalance();
+
+        assertTrue(hotRowService.isSplit("SKU-003", "WAREHOUSE-C"));
+        assertEquals(200, quantityAt("SKU-003", "WAREHOUSE-C"));
+        assertEquals(700, inventoryRepository.getTotalQuantityBySku("SKU-003"));
+    }
+
+    @Test
+    void shouldUseBucketsSplitByAnotherInstance() {
+        // Split behind this instance's back: its in-memory view never hears of it.
+        Inventory row = inventoryRepository.findBySkuAndLocation("SKU-002", "WAREHOUSE-B").orElseThrow();
+        inventoryBucketRepository.saveAll(List.of(
+                InventoryBucket.builder().sku("SKU-002").location("WAREHOUSE-B").bucket(0).quantity(750).build(),
+                InventoryBucket.builder().sku("SKU-002").location("WAREHOUSE-B").bucket(1).quantity(750).build()));
+        row.setQuantity(0);
+        row.setBuckets(2);
+        inventoryRepository.save(row);
+
+        TransferResponse single = transferService.executeTransfer(TransferRequest.builder()
+                .sku("SKU-002").fromLocation("WAREHOUSE-B").toLocation("WAREHOUSE-A").quantity(1000).build());
+        assertEquals("COMPLETED", single.getStatus());
+
+        List<TransferResponse> batch = transferService.executeBatch(List.of(
+                TransferRequest.builder().sku("SKU-002").fromLocation("WAREHOUSE-B").toLocation("WAREHOUSE-A").quantity(400).build(),
+                TransferRequest.builder().sku("SKU-002").fromLocation("WAREHOUSE-A").toLocation("WAREHOUSE-B").quantity(10).build()));
+        assertTrue(batch.stream().allMatch(response -> "COMPLETED".equals(response.getStatus())));
+
+        assertEquals(110, hotRowService.quantityAt("SKU-002", "WAREHOUSE-B").orElseThrow());
+        assertEquals(3500, inventoryRepository.getTotalQuantityBySku("SKU-002"));
+    }
+
+    private int quantityAt(String sku, String location) {
+        InventoryResponse inventory = inventoryQueryService.getInventory(sku).orElseThrow();
+        return inventory.getLocations().stream()
+                .filter(stock -> stock.getLocation().equals(location))
+                .mapToInt(InventoryResponse.LocationStock::getQuantity)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static TransferRequest transfer(String from, String to, int quantity) {
+        return TransferRequest.builder()
+                .sku("SKU-001")
+                .fromLocation(from)
+                .toLocation(to)
+                .quantity(quantity)
+                .build();
+    }
+}
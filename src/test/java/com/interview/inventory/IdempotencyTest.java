@@ -0,0 +1,141 @@
+package com.interview.inventory;
+
+import com.interview.inventory.dto.TransferRequest;
+import com.interview.inventory.dto.TransferResponse;
+import com.interview.inventory.model.TransferLog;
+import com.interview.inventory.repository.InventoryRepository;
+import com.interview.inventory.repository.TransferLogRepository;
+import com.interview.inventory.service.IdempotencyService;
+import com.interview.inventory.service.TransferService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotencydb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.datasource.hikari.maximum-pool-size=8"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IdempotencyTest {
+
+    private static final String MOVE_TEN = """
+            {"sku": "SKU-003", "fromLocation": "WAREHOUSE-A", "toLocation": "WAREHOUSE-C", "quantity": 10}""";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private TransferLogRepository transferLogRepository;
+
+    @Test
+    void shouldReplayRepeatedKeyAndRefuseReuseForAnotherTransfer() throws Exception {
+        int before = quantityAt("WAREHOUSE-A");
+
+        String first = transfer("key-replay", MOVE_TEN)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andReturn().getResponse().getContentAsString();
+        String second = transfer("key-replay", MOVE_TEN)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(first, second);
+        assertEquals(before - 10, quantityAt("WAREHOUSE-A"));
+
+        transfer("key-replay", MOVE_TEN.replace("10", "11"))
+                .andExpect(status().isUnprocessableEntity());
+        assertEquals(before - 10, quantityAt("WAREHOUSE-A"));
+
+        mockMvc.perform(post("/api/transfer")
+                        .header("Idempotency-Key", " ")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(MOVE_TEN))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRunConcurrentDuplicatesOnce() throws Exception {
+        int before = quantityAt("WAREHOUSE-C");
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<TransferResponse>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 16; i++) {
+                futures.add(CompletableFuture.supplyAsync(() -> idempotencyService.execute(request("key-concurrent", 5),
+                        r -> CompletableFuture.completedFuture(transferService.executeTransfer(r))).join(), callers));
+            }
+            List<Long> transferIds = futures.stream().map(CompletableFuture::join).map(TransferResponse::getTransferId).distinct().toList();
+            assertEquals(1, transferIds.size());
+        } finally {
+            callers.shutdown();
+        }
+        assertEquals(before + 5, quantityAt("WAREHOUSE-C"));
+    }
+
+    @Test
+    void shouldReturnStoredResponseWhenKeyWasStoredElsewhere() {
+        // Stands in for another instance: the key is in transfer_log but was never seen here.
+        TransferLog stored = transferLogRepository.save(TransferLog.builder()
+                .sku("SKU-003")
+                .fromLocation("WAREHOUSE-A")
+                .toLocation("WAREHOUSE-C")
+                .quantity(7)
+                .status(TransferLog.TransferStatus.COMPLETED)
+                .idempotencyKey("key-elsewhere")
+                .build());
+        int before = quantityAt("WAREHOUSE-A");
+
+        TransferResponse response = idempotencyService.execute(request("key-elsewhere", 7),
+                r -> CompletableFuture.completedFuture(transferService.executeTransfer(r))).join();
+
+        assertEquals(stored.getId(), response.getTransferId());
+        assertEquals("COMPLETED", response.getStatus());
+        assertEquals(before, quantityAt("WAREHOUSE-A"));
+    }
+
+    private ResultActions transfer(String key, String body) throws Exception {
+        return mockMvc.perform(post("/api/transfer")
+                .header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+    }
+
+    private static TransferRequest request(String key, int quantity) {
+        return TransferRequest.builder()
+                .sku("SKU-003")
+                .fromLocation("WAREHOUSE-A")
+                .toLocation("WAREHOUSE-C")
+                .quantity(quantity)
+                .idempotencyKey(key)
+                .build();
+    }
+
+    private int quantityAt(String location) {
+        return inventoryRepository.findQuantity("SKU-003", location).orElseThrow();
+    }
+}
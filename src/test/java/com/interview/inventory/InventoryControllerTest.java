@@ -0,0 +1,63 @@
+package com.interview.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties =
+        "spring.datasource.url=jdbc:h2:mem:controllerdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class InventoryControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void shouldStreamAllInventoryAsJsonArray() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/inventory")).andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(7)))
+                .andExpect(jsonPath("$[0].sku").value("SKU-001"));
+    }
+
+    @Test
+    void shouldStreamNdjsonAndCsv() throws Exception {
+        MvcResult ndjson = mockMvc.perform(get("/api/inventory").param("format", "ndjson")).andReturn();
+        String ndjsonBody = mockMvc.perform(asyncDispatch(ndjson)).andReturn().getResponse().getContentAsString();
+        assertEquals(7, ndjsonBody.lines().count());
+
+        MvcResult csv = mockMvc.perform(get("/api/inventory").param("format", "csv")).andReturn();
+        mockMvc.perform(asyncDispatch(csv))
+                .andExpect(content().string(startsWith("id,sku,location,quantity,updated_at,version\n")));
+    }
+
+    @Test
+    void shouldPageWithKeysetCursor() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/inventory").param("limit", "4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(4)))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn();
+
+        mockMvc.perform(get("/api/inventory")
+                        .param("limit", "4")
+                        .param("after", first.getResponse().getHeader("X-Next-Cursor")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+}
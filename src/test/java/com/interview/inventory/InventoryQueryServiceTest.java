@@ -0,0 +1,62 @@
+package com.interview.inventory;
+
+import com.interview.inventory.dto.InventoryResponse;
+import com.interview.inventory.dto.TransferRequest;
+import com.interview.inventory.service.InventoryQueryService;
+import com.interview.inventory.service.TransferService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class InventoryQueryServiceTest {
+
+    @Autowired
+    private InventoryQueryService inventoryQueryService;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void shouldServeFromCacheUntilTransferCommits() {
+        InventoryResponse first = inventoryQueryService.getInventory("SKU-002").orElseThrow();
+        double hitsBefore = cacheHits();
+
+        assertSame(first, inventoryQueryService.getInventory("SKU-002").orElseThrow());
+        assertEquals(hitsBefore + 1, cacheHits());
+
+        transferService.executeTransfer(TransferRequest.builder()
+                .sku("SKU-002").fromLocation("WAREHOUSE-A").toLocation("WAREHOUSE-B").quantity(10).build());
+
+        InventoryResponse afterTransfer = inventoryQueryService.getInventory("SKU-002").orElseThrow();
+        assertNotSame(first, afterTransfer);
+        assertEquals(quantityAt(first, "WAREHOUSE-A") - 10, quantityAt(afterTransfer, "WAREHOUSE-A"));
+        assertEquals(first.getTotalQuantity(), afterTransfer.getTotalQuantity());
+
+        transferService.executeTransfer(TransferRequest.builder()
+                .sku("SKU-002").fromLocation("WAREHOUSE-B").toLocation("WAREHOUSE-A").quantity(10).build());
+    }
+
+    private double cacheHits() {
+        return meterRegistry.get("cache.gets")
+                .tags("cache", "inventoryBySku", "result", "hit")
+                .functionCounter()
+                .count();
+    }
+
+    private static int quantityAt(InventoryResponse response, String location) {
+        return response.getLocations().stream()
+                .filter(stock -> stock.getLocation().equals(location))
+                .findFirst()
+                .orElseThrow()
+                .getQuantity();
+    }
+}
@@ -0,0 +1,102 @@
+package com.interview.inventory;
+
+import com.interview.inventory.dto.TransferRequest;
+import com.interview.inventory.dto.TransferResponse;
+import com.interview.inventory.journal.JournaledTransferEngine;
+import com.interview.inventory.model.TransferLog;
+import com.interview.inventory.repository.TransferLogRepository;
+import com.interview.inventory.service.IdempotencyService;
+import com.interview.inventory.service.InventoryQueryService;
+import com.interview.inventory.service.TransferService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:journalkeysdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "inventory.transfer.engine=journal",
+        "inventory.transfer.journal.directory=target/journal-test/${random.uuid}",
+        "inventory.transfer.journal.segment-size=64KB",
+        "inventory.transfer.journal.checkpoint-interval=1h",
+        "inventory.transfer.journal.projection-idle-delay=5s",
+        "inventory.idempotency.cache-ttl=1ms"
+})
+@ActiveProfiles("test")
+class JournalIdempotencyTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private JournaledTransferEngine engine;
+
+    @Autowired
+    private InventoryQueryService inventoryQueryService;
+
+    @Autowired
+    private TransferLogRepository transferLogRepository;
+
+    @Test
+    void shouldReplayUnprojectedKeysAndProjectDuplicateKeys() throws Exception {
+        int before = quantity("SKU-002", "WAREHOUSE-A");
+        TransferRequest request = TransferRequest.builder()
+                .sku("SKU-002").fromLocation("WAREHOUSE-A").toLocation("WAREHOUSE-B").quantity(7)
+                .idempotencyKey("journal-replay-1")
+                .build();
+
+        TransferResponse first = execute(request);
+        // Past the cache's TTL, and the projector is still idle, so only the engine knows the key.
+        TimeUnit.MILLISECONDS.sleep(20);
+        TransferResponse second = execute(request);
+
+        assertTrue(engine.appliedSeq() < engine.durableSeq());
+        assertEquals("COMPLETED", second.getStatus());
+        assertEquals(first.getTransferId(), second.getTransferId());
+        assertEquals(before - 7, quantity("SKU-002", "WAREHOUSE-A"));
+
+        // A key stored elsewhere must not stop the projection.
+        transferLogRepository.save(TransferLog.builder()
+                .sku("SKU-003").fromLocation("WAREHOUSE-A").toLocation("WAREHOUSE-B").quantity(1)
+                .status(TransferLog.TransferStatus.COMPLETED)
+                .idempotencyKey("journal-replay-2")
+                .build());
+        TransferResponse duplicate = transferService.executeTransfer(TransferRequest.builder()
+                .sku("SKU-003").fromLocation("WAREHOUSE-A").toLocation("WAREHOUSE-B").quantity(1)
+                .idempotencyKey("journal-replay-2")
+                .build());
+
+        awaitProjection();
+        assertEquals(first.getTransferId(), transferLogRepository.findByIdempotencyKey("journal-replay-1").orElseThrow().getId());
+        TransferLog projected = transferLogRepository.findById(duplicate.getTransferId()).orElseThrow();
+        assertEquals(TransferLog.TransferStatus.COMPLETED, projected.getStatus());
+        assertNull(projected.getIdempotencyKey());
+    }
+
+    private TransferResponse execute(TransferRequest request) {
+        return idempotencyService.execute(request,
+                r -> CompletableFuture.completedFuture(transferService.executeTransfer(r))).join();
+    }
+
+    private int quantity(String sku, String location) {
+        return inventoryQueryService.getInventory(sku).orElseThrow().getLocations().stream()
+                .filter(stock -> stock.getLocation().equals(location))
+                .findFirst().orElseThrow().getQuantity();
+    }
+
+    private void awaitProjection() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+        while (engine.appliedSeq() < engine.durableSeq() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        assertEquals(engine.durableSeq(), engine.appliedSeq());
+    }
+}
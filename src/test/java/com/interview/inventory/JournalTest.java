@@ -0,0 +1,88 @@
+package com.interview.inventory;
+
+import com.interview.inventory.journal.Journal;
+import com.interview.inventory.journal.JournalEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReplayRecordsAcrossSegmentsAfterReopening() throws Exception {
+        try (Journal journal = new Journal(directory, 4096, 100)) {
+            for (int i = 0; i < 500; i++) {
+                journal.append(transfer(i).encode());
+            }
+            journal.awaitDurable(600, Duration.ofSeconds(5));
+        }
+        assertTrue(segments().size() > 1);
+
+        try (Journal journal = new Journal(directory, 4096, 0)) {
+            assertEquals(101, journal.firstSeq());
+            assertEquals(600, journal.lastSeq());
+            List<Long> transferIds = read(journal, 350);
+            assertEquals(250, transferIds.size());
+            assertEquals(250L, transferIds.get(0));
+
+            journal.truncateThrough(350);
+            assertTrue(journal.firstSeq() > 101 && journal.firstSeq() <= 351);
+            assertEquals(250, read(journal, 350).size());
+        }
+    }
+
+    @Test
+    void shouldDiscardTornRecordAtTheEnd() throws Exception {
+        try (Journal journal = new Journal(directory, 4096, 0)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append(transfer(i).encode());
+            }
+            journal.awaitDurable(10, Duration.ofSeconds(5));
+        }
+        // Corrupt the body of the last record, as a crash mid-write would.
+        try (RandomAccessFile file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+            file.seek(9 * (16 + 33) + 20);
+            file.writeInt(0xDEADBEEF);
+        }
+
+        try (Journal journal = new Journal(directory, 4096, 0)) {
+            assertEquals(9, journal.lastSeq());
+            assertEquals(10, journal.append(transfer(99).encode()));
+            journal.awaitDurable(10, Duration.ofSeconds(5));
+            assertEquals(99L, read(journal, 0).get(9));
+        }
+    }
+
+    private static List<Long> read(Journal journal, long afterSeq) {
+        List<Long> transferIds = new ArrayList<>();
+        Journal.Cursor cursor = journal.cursor(afterSeq);
+        while (cursor.poll(64, (seq, body) ->
+                transferIds.add(((JournalEntry.Transfer) JournalEntry.decode(body)).transferId())) > 0) {
+            // drain
+        }
+        return transferIds;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static JournalEntry.Transfer transfer(long transferId) {
+        return new JournalEntry.Transfer(transferId, 0, 1, 2, 5, 0L, null);
+    }
+}
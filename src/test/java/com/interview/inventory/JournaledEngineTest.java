@@ -0,0 +1,122 @@
+package com.interview.inventory;
+
+import com.interview.inventory.dto.InventoryResponse;
+import com.interview.inventory.dto.TransferRequest;
+import com.interview.inventory.dto.TransferResponse;
+import com.interview.inventory.journal.JournaledTransferEngine;
+import com.interview.inventory.model.Inventory;
+import com.interview.inventory.repository.InventoryRepository;
+import com.interview.inventory.repository.TransferLogRepository;
+import com.interview.inventory.service.BulkInventoryLoader;
+import com.interview.inventory.service.InventoryQueryService;
+import com.interview.inventory.service.TransferService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:journaldb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "inventory.transfer.engine=journal",
+        "inventory.transfer.journal.directory=target/journal-test/${random.uuid}",
+        "inventory.transfer.journal.segment-size=64KB",
+        "inventory.transfer.journal.checkpoint-interval=1h"
+})
+@ActiveProfiles("test")
+class JournaledEngineTest {
+
+    private static final List<String> LOCATIONS = List.of("WAREHOUSE-A", "WAREHOUSE-B", "WAREHOUSE-C", "WAREHOUSE-D");
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private JournaledTransferEngine engine;
+
+    @Autowired
+    private InventoryQueryService inventoryQueryService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private TransferLogRepository transferLogRepository;
+
+    @Autowired
+    private BulkInventoryLoader bulkInventoryLoader;
+
+    @Test
+    void shouldProjectJournaledTransfersAndRecoverAfterRestart() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<TransferResponse>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 400; i++) {
+                int n = i;
+                futures.add(CompletableFuture.supplyAsync(() -> transferService.executeTransfer(TransferRequest.builder()
+                        .sku("SKU-001")
+                        .fromLocation(LOCATIONS.get(n % 3))
+                        .toLocation(LOCATIONS.get((n + 1) % 4))
+                        .quantity(1)
+                        .build()), callers));
+            }
+            futures.forEach(CompletableFuture::join);
+        } finally {
+            callers.shutdown();
+        }
+        assertTrue(futures.stream().map(CompletableFuture::join)
+                .allMatch(response -> "COMPLETED".equals(response.getStatus())));
+
+        TransferResponse rejected = transferService.executeTransfer(TransferRequest.builder()
+                .sku("SKU-001").fromLocation("WAREHOUSE-A").toLocation("WAREHOUSE-B").quantity(5000).build());
+        assertEquals("FAILED", rejected.getStatus());
+
+        InventoryResponse inMemory = inventoryQueryService.getInventory("SKU-001").orElseThrow();
+        assertEquals(1800, inMemory.getTotalQuantity());
+        assertEquals(100, quantities(inMemory).get("WAREHOUSE-D"));
+
+        awaitProjection();
+        assertEquals(1800, inventoryRepository.getTotalQuantityBySku("SKU-001"));
+        assertEquals(quantities(inMemory), inventoryRepository.findBySku("SKU-001").stream()
+                .collect(Collectors.toMap(Inventory::getLocation, Inventory::getQuantity)));
+        assertEquals(400, transferLogRepository.countCompletedTransfers());
+
+        engine.stop();
+        engine.start();
+        assertEquals(quantities(inMemory), quantities(inventoryQueryService.getInventory("SKU-001").orElseThrow()));
+        assertEquals("COMPLETED", transferService.executeTransfer(TransferRequest.builder()
+                .sku("SKU-001").fromLocation("WAREHOUSE-D").toLocation("WAREHOUSE-A").quantity(10).build())
+                .getStatus());
+    }
+
+    @Test
+    void shouldRefuseBulkLoadsOnceTheJournalHoldsTheStock() {
+        assertThrows(RejectedExecutionException.class, () -> bulkInventoryLoader.load(
+                List.of(new BulkInventoryLoader.Row("SKU-003", "WAREHOUSE-A", 1)).iterator()));
+        assertEquals(500, inventoryRepository.findBySkuAndLocation("SKU-003", "WAREHOUSE-A").orElseThrow().getQuantity());
+    }
+
+    private void awaitProjection() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (engine.appliedSeq() < engine.durableSeq() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        assertEquals(engine.durableSeq(), engine.appliedSeq());
+    }
+
+    private static Map<String, Integer> quantities(InventoryResponse inventory) {
+        return inventory.getLocations().stream().collect(Collectors.toMap(
+                InventoryResponse.LocationStock::getLocation, InventoryResponse.LocationStock::getQuantity));
+    }
+}
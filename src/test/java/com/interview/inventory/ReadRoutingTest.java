@@ -0,0 +1,107 @@
+package com.interview.inventory;
+
+import com.interview.inventory.config.InventoryCacheProperties;
+import com.interview.inventory.config.ReadDataSourceProperties;
+import com.interview.inventory.config.ReplicaLagMonitor;
+import com.interview.inventory.dto.TransferRequest;
+import com.interview.inventory.service.InventoryQueryService;
+import com.interview.inventory.service.TransferService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Both pools point at the same in-memory database, which stands in for a replica. */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routingdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "inventory.cache.enabled=false",
+        "inventory.datasource.read.enabled=true",
+        "inventory.datasource.read.url=jdbc:h2:mem:routingdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "inventory.datasource.read.lag-check-interval=1h",
+        "inventory.datasource.read.hikari.maximum-pool-size=3"
+})
+@ActiveProfiles("test")
+class ReadRoutingTest {
+
+    @Autowired
+    private InventoryQueryService inventoryQueryService;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private ReadDataSourceProperties readProperties;
+
+    @Autowired
+    private InventoryCacheProperties cacheProperties;
+
+    @Autowired
+    @Qualifier("readDataSource")
+    private HikariDataSource readDataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void shouldSendReadOnlyTransactionsToReadPoolUntilReplicaLags() {
+        assertEquals("InventoryReadPool", readDataSource.getPoolName());
+        assertEquals(3, readDataSource.getMaximumPoolSize());
+
+        double reads = routed("read");
+        assertEquals(1800, inventoryQueryService.getInventory("SKU-001").orElseThrow().getTotalQuantity());
+        assertEquals(reads + 1, routed("read"));
+
+        double writes = routed("write");
+        transferService.executeTransfer(TransferRequest.builder()
+                .sku("SKU-001").fromLocation("WAREHOUSE-A").toLocation("WAREHOUSE-B").quantity(10).build());
+        assertEquals(reads + 1, routed("read"));
+        assertTrue(routed("write") > writes);
+
+        readProperties.setLagQuery("SELECT 10");
+        try {
+            replicaLagMonitor.check();
+            assertFalse(replicaLagMonitor.isReplicaUsable());
+
+            writes = routed("write");
+            assertEquals(1800, inventoryQueryService.getInventory("SKU-001").orElseThrow().getTotalQuantity());
+            assertEquals(reads + 1, routed("read"));
+            assertTrue(routed("write") > writes);
+        } finally {
+            readProperties.setLagQuery(null);
+        }
+
+        replicaLagMonitor.check();
+        assertTrue(replicaLagMonitor.isReplicaUsable());
+        inventoryQueryService.getInventory("SKU-001");
+        assertEquals(reads + 2, routed("read"));
+    }
+
+    @Test
+    void shouldReloadEvictedEntriesFromThePrimary() {
+        cacheProperties.setEnabled(true);
+        try {
+            transferService.executeTransfer(TransferRequest.builder()
+                    .sku("SKU-003").fromLocation("WAREHOUSE-A").toLocation("WAREHOUSE-B").quantity(5).build());
+
+            double reads = routed("read");
+            double writes = routed("write");
+            inventoryQueryService.getInventory("SKU-003").orElseThrow();
+            assertEquals(reads, routed("read"));
+            assertEquals(writes + 1, routed("write"));
+        } finally {
+            cacheProperties.setEnabled(false);
+        }
+    }
+
+    private double routed(String pool) {
+        return meterRegistry.get("inventory.datasource.routed").tag("pool", pool).counter().count();
+    }
+}
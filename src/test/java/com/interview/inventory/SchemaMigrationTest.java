@@ -0,0 +1,49 @@
+package com.interview.inventory;
+
+import com.interview.inventory.dto.TransferRequest;
+import com.interview.inventory.service.TransferService;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Builds the schema with the Flyway migrations instead of Hibernate, and has
+ * Hibernate validate the entities against it. H2 has no vendor folder, so
+ * only the common migrations run.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migrationdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@ActiveProfiles("test")
+class SchemaMigrationTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Test
+    void shouldMatchTheEntitiesAfterMigrating() {
+        List<String> applied = Arrays.stream(flyway.info().applied())
+                .map(MigrationInfo::getVersion)
+                .map(Object::toString)
+                .toList();
+        assertEquals(List.of("1", "2", "4"), applied);
+        assertEquals(0, flyway.info().pending().length);
+
+        assertEquals("COMPLETED", transferService.executeTransfer(TransferRequest.builder()
+                .sku("SKU-001").fromLocation("WAREHOUSE-A").toLocation("WAREHOUSE-D").quantity(5).build())
+                .getStatus());
+    }
+}
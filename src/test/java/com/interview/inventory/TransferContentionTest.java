@@ -0,0 +1,111 @@
+package com.interview.inventory;
+
+import com.interview.inventory.dto.TransferRequest;
+import com.interview.inventory.dto.TransferResponse;
+import com.interview.inventory.repository.InventoryRepository;
+import com.interview.inventory.service.TransferService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:contentiondb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.datasource.hikari.maximum-pool-size=8",
+        "inventory.transfer.retry.max-attempts=20",
+        "inventory.transfer.retry.budget-burst=1000"
+})
+@ActiveProfiles("test")
+class TransferContentionTest {
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void shouldRetryConflictsAndLockHotSku() {
+        Integer totalBefore = inventoryRepository.getTotalQuantityBySku("SKU-001");
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<TransferResponse>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 200; i++) {
+                boolean outbound = i % 2 == 0;
+                futures.add(CompletableFuture.supplyAsync(() -> transferService.executeTransfer(TransferRequest.builder()
+                        .sku("SKU-001")
+                        .fromLocation(outbound ? "WAREHOUSE-A" : "WAREHOUSE-B")
+                        .toLocation(outbound ? "WAREHOUSE-B" : "WAREHOUSE-A")
+                        .quantity(1)
+                        .build()), callers));
+            }
+            futures.forEach(CompletableFuture::join);
+        } finally {
+            callers.shutdown();
+        }
+
+        long completed = futures.stream().map(CompletableFuture::join)
+                .filter(response -> "COMPLETED".equals(response.getStatus()))
+                .count();
+        assertEquals(200, completed);
+        assertEquals(totalBefore, inventoryRepository.getTotalQuantityBySku("SKU-001"));
+
+        double conflicts = meterRegistry.get("inventory.transfers.attempts")
+                .tags("strategy", "optimistic", "result", "conflict").counter().count();
+        double lockedCommits = meterRegistry.get("inventory.transfers.attempts")
+                .tags("strategy", "pessimistic", "result", "committed").counter().count();
+        assertTrue(conflicts > 0, "expected optimistic conflicts on a single hot SKU");
+        assertTrue(lockedCommits > 0, "expected the hot SKU to switch to pessimistic locking");
+    }
+
+    @Test
+    void shouldRetryWhenTwoTransfersCreateTheSameDestination() {
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 10; round++) {
+                String destination = "NEW-" + round;
+                CyclicBarrier start = new CyclicBarrier(2);
+                List<CompletableFuture<TransferResponse>> futures = new ArrayList<>();
+                for (String source : List.of("WAREHOUSE-A", "WAREHOUSE-B")) {
+                    futures.add(CompletableFuture.supplyAsync(() -> {
+                        await(start);
+                        return transferService.executeTransfer(TransferRequest.builder()
+                                .sku("SKU-002").fromLocation(source).toLocation(destination).quantity(3)
+                                .build());
+                    }, callers));
+                }
+
+                for (CompletableFuture<TransferResponse> future : futures) {
+                    assertEquals("COMPLETED", future.join().getStatus());
+                }
+                assertEquals(6, inventoryRepository.findBySkuAndLocation("SKU-002", destination)
+                        .orElseThrow().getQuantity());
+            }
+        } finally {
+            callers.shutdown();
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.interview.inventory;
+
+import com.interview.inventory.dto.TransferRequest;
+import com.interview.inventory.model.TransferLog;
+import com.interview.inventory.repository.TransferLogRepository;
+import com.interview.inventory.service.TransferLogRetentionService;
+import com.interview.inventory.service.TransferService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:historydb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "inventory.transfer-log.retention.action=drop",
+        "inventory.transfer-log.retention.batch-size=2"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TransferHistoryTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private TransferLogRepository transferLogRepository;
+
+    @Autowired
+    private TransferLogRetentionService retentionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldPageThroughHistoryNewestFirstWithoutGapsOrRepeats() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            transferService.executeTransfer(transfer("SKU-002", 1));
+        }
+        transferService.executeTransfer(transfer("SKU-002", 100_000));
+        transferService.executeTransfer(transfer("SKU-002", 100_000));
+
+        List<Integer> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            var request = get("/api/transfers").param("sku", "SKU-002").param("limit", "2");
+            if (cursor != null) {
+                request.param("before", cursor);
+            }
+            MvcResult page = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+            ids.addAll(JsonPath.read(page.getResponse().getContentAsString(), "$[*].id"));
+            cursor = page.getResponse().getHeader("X-Next-Cursor");
+        } while (cursor != null);
+
+        List<TransferLog> expected = transferLogRepository.findBySkuOrderByCreatedAtDesc("SKU-002").stream()
+                .sorted(Comparator.comparing(TransferLog::getCreatedAt).thenComparing(TransferLog::getId).reversed())
+                .toList();
+        assertEquals(7, ids.size());
+        assertEquals(expected.stream().map(log -> log.getId().intValue()).toList(), ids);
+
+        mockMvc.perform(get("/api/transfers").param("sku", "SKU-002").param("status", "FAILED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+        mockMvc.perform(get("/api/transfers").param("before", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldDeleteExpiredRowsFromUnpartitionedTable() {
+        for (int i = 0; i < 5; i++) {
+            transferService.executeTransfer(transfer("SKU-003", 1));
+        }
+        transferService.executeTransfer(transfer("SKU-001", 1));
+        jdbcTemplate.update("UPDATE transfer_log SET created_at = ? WHERE sku = 'SKU-003'",
+                LocalDateTime.now().minusDays(40));
+
+        assertEquals(5, retentionService.retireBefore(LocalDateTime.now().minusDays(30)));
+        assertTrue(transferLogRepository.findBySkuOrderByCreatedAtDesc("SKU-003").isEmpty());
+        assertEquals(1, transferLogRepository.findBySkuOrderByCreatedAtDesc("SKU-001").size());
+    }
+
+    private static TransferRequest transfer(String sku, int quantity) {
+        return TransferRequest.builder()
+                .sku(sku)
+                .fromLocation("WAREHOUSE-A")
+                .toLocation(sku.equals("SKU-003") ? "WAREHOUSE-C" : "WAREHOUSE-B")
+                .quantity(quantity)
+                .build();
+    }
+}
@@ -0,0 +1,102 @@
+package com.interview.inventory;
+
+import com.interview.inventory.dto.TransferRequest;
+import com.interview.inventory.dto.TransferResponse;
+import com.interview.inventory.model.TransferLog;
+import com.interview.inventory.repository.TransferLogRepository;
+import com.interview.inventory.service.TransferService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:auditdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "inventory.transfer.audit.mode=async",
+        "inventory.transfer.audit.flush-interval=10ms"
+})
+@ActiveProfiles("test")
+class TransferLogAppenderTest {
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private TransferLogRepository transferLogRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldWriteOneFinalRowPerTransferAfterCommit() throws InterruptedException {
+        long before = transferLogRepository.count();
+        List<TransferResponse> responses = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            responses.add(transferService.executeTransfer(TransferRequest.builder()
+                    .sku("SKU-002")
+                    .fromLocation(i % 2 == 0 ? "WAREHOUSE-A" : "WAREHOUSE-B")
+                    .toLocation(i % 2 == 0 ? "WAREHOUSE-B" : "WAREHOUSE-A")
+                    .quantity(1)
+                    .build()));
+        }
+        responses.add(transferService.executeTransfer(TransferRequest.builder()
+                .sku("SKU-002")
+                .fromLocation("WAREHOUSE-A")
+                .toLocation("WAREHOUSE-B")
+                .quantity(1_000_000)
+                .build()));
+
+        awaitCount(before + responses.size());
+
+        assertEquals(before + responses.size(), transferLogRepository.count());
+        assertTrue(transferLogRepository.findByStatus(TransferLog.TransferStatus.PENDING).isEmpty());
+        assertEquals(1, responses.stream().map(TransferResponse::getTransferId)
+                .map(id -> transferLogRepository.findById(id).orElseThrow())
+                .filter(row -> row.getStatus() == TransferLog.TransferStatus.FAILED)
+                .count());
+        for (TransferResponse response : responses) {
+            TransferLog row = transferLogRepository.findById(response.getTransferId()).orElseThrow();
+            assertEquals(response.getStatus(), row.getStatus().name());
+        }
+    }
+
+    @Test
+    void shouldKeepRowsWhoseWriteFailedAndWriteThemLater() throws InterruptedException {
+        long before = transferLogRepository.count();
+        List<TransferResponse> responses = new ArrayList<>();
+        jdbcTemplate.execute("ALTER TABLE transfer_log RENAME TO transfer_log_offline");
+        try {
+            for (int i = 0; i < 5; i++) {
+                responses.add(transferService.executeTransfer(TransferRequest.builder()
+                        .sku("SKU-003")
+                        .fromLocation("WAREHOUSE-A")
+                        .toLocation("WAREHOUSE-C")
+                        .quantity(1)
+                        .build()));
+            }
+            // Several flush intervals, so the appender fails at least once.
+            Thread.sleep(200);
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE transfer_log_offline RENAME TO transfer_log");
+        }
+
+        awaitCount(before + responses.size());
+        for (TransferResponse response : responses) {
+            assertEquals("COMPLETED", response.getStatus());
+            assertTrue(transferLogRepository.findById(response.getTransferId()).isPresent());
+        }
+    }
+
+    private void awaitCount(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (transferLogRepository.count() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
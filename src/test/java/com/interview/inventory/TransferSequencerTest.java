@@ -0,0 +1,91 @@
+package com.interview.inventory;
+
+import com.interview.inventory.dto.TransferRequest;
+import com.interview.inventory.dto.TransferResponse;
+import com.interview.inventory.repository.InventoryRepository;
+import com.interview.inventory.service.TransferSequencer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sequencerdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "inventory.transfer.sequencer.enabled=true",
+        "inventory.transfer.sequencer.lanes=2"
+})
+@ActiveProfiles("test")
+class TransferSequencerTest {
+
+    @Autowired
+    private TransferSequencer transferSequencer;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Test
+    void shouldCompleteEveryCallerAndConserveStockUnderOpposingMoves() {
+        Integer totalBefore = inventoryRepository.getTotalQuantityBySku("SKU-001");
+        int sourceBefore = inventoryRepository.findBySkuAndLocation("SKU-001", "WAREHOUSE-A").orElseThrow().getQuantity();
+
+        List<CompletableFuture<TransferResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            boolean outbound = i % 2 == 0;
+            futures.add(transferSequencer.submit(TransferRequest.builder()
+                    .sku("SKU-001")
+                    .fromLocation(outbound ? "WAREHOUSE-A" : "WAREHOUSE-B")
+                    .toLocation(outbound ? "WAREHOUSE-B" : "WAREHOUSE-A")
+                    .quantity(3)
+                    .build()));
+        }
+
+        List<TransferResponse> responses = futures.stream().map(CompletableFuture::join).toList();
+
+        assertTrue(responses.stream().allMatch(r -> "COMPLETED".equals(r.getStatus())));
+        assertEquals(200, responses.stream().map(TransferResponse::getTransferId).distinct().count());
+        assertEquals(totalBefore, inventoryRepository.getTotalQuantityBySku("SKU-001"));
+        assertEquals(sourceBefore,
+                inventoryRepository.findBySkuAndLocation("SKU-001", "WAREHOUSE-A").orElseThrow().getQuantity());
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldSettleEverySubmissionRacingShutdown() throws Exception {
+        ConcurrentLinkedQueue<CompletableFuture<TransferResponse>> futures = new ConcurrentLinkedQueue<>();
+        ExecutorService submitters = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < 4; i++) {
+                submitters.execute(() -> {
+                    CompletableFuture<TransferResponse> future;
+                    do {
+                        future = transferSequencer.submit(TransferRequest.builder()
+                                .sku("SKU-002").fromLocation("WAREHOUSE-A").toLocation("WAREHOUSE-B").quantity(1)
+                                .build());
+                        futures.add(future);
+                    } while (!future.isCompletedExceptionally());
+                });
+            }
+            TimeUnit.MILLISECONDS.sleep(100);
+            transferSequencer.shutdown();
+        } finally {
+            submitters.shutdown();
+            assertTrue(submitters.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .handle((ignored, failure) -> null)
+                .get(10, TimeUnit.SECONDS);
+        assertTrue(futures.stream().anyMatch(future -> !future.isCompletedExceptionally()));
+    }
+}
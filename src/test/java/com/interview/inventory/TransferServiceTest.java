@@ -1,11 +1,17 @@
 package com.interview.inventory;
 
+import com.interview.inventory.config.TransferProperties;
 import com.interview.inventory.dto.TransferRequest;
 import com.interview.inventory.dto.TransferResponse;
 import com.interview.inventory.model.Inventory;
 import com.interview.inventory.repository.InventoryRepository;
 import com.interview.inventory.repository.TransferLogRepository;
+import com.interview.inventory.dto.SkuTotalsReport;
+import com.interview.inventory.service.SkuTotalsService;
 import com.interview.inventory.service.TransferService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +19,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -29,6 +37,18 @@ class TransferServiceTest {
     @Autowired
     private TransferLogRepository transferLogRepository;
 
+    @Autowired
+    private TransferProperties transferProperties;
+
+    @Autowired
+    private SkuTotalsService skuTotalsService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @BeforeEach
     void setUp() {
         transferLogRepository.deleteAll();
@@ -47,6 +67,11 @@ class TransferServiceTest {
                 .build());
     }
 
+    @AfterEach
+    void restoreEngine() {
+        transferProperties.setEngine(TransferProperties.Engine.JPA);
+    }
+
     @Test
     void shouldTransferInventorySuccessfully() {
         TransferRequest request = TransferRequest.builder()
@@ -132,4 +157,114 @@ class TransferServiceTest {
 
         assertEquals(totalBefore, totalAfter, "Total quantity should remain constant after transfer");
     }
+
+    @Test
+    void atomicEngineShouldMoveStockAndCreateDestination() {
+        transferProperties.setEngine(TransferProperties.Engine.ATOMIC);
+
+        TransferResponse toExisting = transferService.executeTransfer(TransferRequest.builder()
+                .sku("TEST-SKU").fromLocation("LOC-A").toLocation("LOC-B").quantity(25).build());
+        TransferResponse toNew = transferService.executeTransfer(TransferRequest.builder()
+                .sku("TEST-SKU").fromLocation("LOC-A").toLocation("NEW-LOC").quantity(10).build());
+
+        assertEquals("COMPLETED", toExisting.getStatus());
+        assertEquals("COMPLETED", toNew.getStatus());
+
+        entityManager.clear();
+        assertEquals(65, inventoryRepository.findBySkuAndLocation("TEST-SKU", "LOC-A").orElseThrow().getQuantity());
+        assertEquals(75, inventoryRepository.findBySkuAndLocation("TEST-SKU", "LOC-B").orElseThrow().getQuantity());
+        assertEquals(10, inventoryRepository.findBySkuAndLocation("TEST-SKU", "NEW-LOC").orElseThrow().getQuantity());
+        assertEquals(150, inventoryRepository.getTotalQuantityBySku("TEST-SKU"));
+    }
+
+    @Test
+    void atomicEngineShouldRejectInsufficientStockWithoutWriting() {
+        transferProperties.setEngine(TransferProperties.Engine.ATOMIC);
+
+        TransferResponse insufficient = transferService.executeTransfer(TransferRequest.builder()
+                .sku("TEST-SKU").fromLocation("LOC-A").toLocation("LOC-B").quantity(200).build());
+        TransferResponse missing = transferService.executeTransfer(TransferRequest.builder()
+                .sku("TEST-SKU").fromLocation("NON-EXISTENT").toLocation("LOC-B").quantity(10).build());
+
+        assertEquals("FAILED", insufficient.getStatus());
+        assertTrue(insufficient.getMessage().contains("Insufficient stock. Available: 100"));
+        assertEquals("FAILED", missing.getStatus());
+        assertTrue(missing.getMessage().contains("No inventory found"));
+
+        entityManager.clear();
+        assertEquals(100, inventoryRepository.findBySkuAndLocation("TEST-SKU", "LOC-A").orElseThrow().getQuantity());
+        assertEquals(50, inventoryRepository.findBySkuAndLocation("TEST-SKU", "LOC-B").orElseThrow().getQuantity());
+    }
+
+    @Test
+    void batchShouldApplyItemsInOrderAndReportEachResult() {
+        List<TransferResponse> results = transferService.executeBatch(List.of(
+                TransferRequest.builder().sku("TEST-SKU").fromLocation("LOC-A").toLocation("LOC-B").quantity(80).build(),
+                TransferRequest.builder().sku("TEST-SKU").fromLocation("LOC-A").toLocation("LOC-B").quantity(30).build(),
+                TransferRequest.builder().sku("TEST-SKU").fromLocation("LOC-B").toLocation("NEW-LOC").quantity(100).build()));
+
+        assertEquals(3, results.size());
+        assertEquals("COMPLETED", results.get(0).getStatus());
+        assertEquals("FAILED", results.get(1).getStatus());
+        assertTrue(results.get(1).getMessage().contains("Available: 20"));
+        assertEquals("COMPLETED", results.get(2).getStatus());
+        assertNotNull(results.get(2).getTransferId());
+
+        assertEquals(20, inventoryRepository.findBySkuAndLocation("TEST-SKU", "LOC-A").orElseThrow().getQuantity());
+        assertEquals(30, inventoryRepository.findBySkuAndLocation("TEST-SKU", "LOC-B").orElseThrow().getQuantity());
+        assertEquals(100, inventoryRepository.findBySkuAndLocation("TEST-SKU", "NEW-LOC").orElseThrow().getQuantity());
+        assertEquals(150, inventoryRepository.getTotalQuantityBySku("TEST-SKU"));
+        assertEquals(3, transferLogRepository.count());
+    }
+
+    @Test
+    void batchShouldSplitIntoChunks() {
+        transferProperties.getBatch().setChunkSize(1);
+        try {
+            List<TransferResponse> results = transferService.executeBatch(List.of(
+                    TransferRequest.builder().sku("TEST-SKU").fromLocation("LOC-A").toLocation("LOC-B").quantity(10).build(),
+                    TransferRequest.builder().sku("TEST-SKU").fromLocation("LOC-B").toLocation("LOC-A").quantity(5).build()));
+
+            assertTrue(results.stream().allMatch(r -> "COMPLETED".equals(r.getStatus())));
+            assertEquals(95, inventoryRepository.findBySkuAndLocation("TEST-SKU", "LOC-A").orElseThrow().getQuantity());
+            assertEquals(55, inventoryRepository.findBySkuAndLocation("TEST-SKU", "LOC-B").orElseThrow().getQuantity());
+        } finally {
+            transferProperties.getBatch().setChunkSize(100);
+        }
+    }
+
+    @Test
+    void skuTotalsShouldStayValidAcrossTransfersAndFlagDrift() {
+        skuTotalsService.rebuild();
+
+        transferService.executeTransfer(TransferRequest.builder()
+                .sku("TEST-SKU").fromLocation("LOC-A").toLocation("NEW-LOC").quantity(40).build());
+        assertTrue(skuTotalsService.verify().getMismatches().isEmpty());
+
+        Inventory drifted = inventoryRepository.findBySkuAndLocation("TEST-SKU", "LOC-B").orElseThrow();
+        drifted.setQuantity(drifted.getQuantity() + 5);
+        inventoryRepository.saveAndFlush(drifted);
+
+        SkuTotalsReport report = skuTotalsService.verify();
+        assertEquals(1, report.getMismatches().size());
+        assertEquals(150L, report.getMismatches().get(0).getProjectedTotal());
+        assertEquals(155L, report.getMismatches().get(0).getActualTotal());
+    }
+
+    @Test
+    void shouldTimeTransferPhasesByOutcome() {
+        long completedBefore = meterRegistry.timer("inventory.transfer.duration", "outcome", "completed", "reason", "none").count();
+
+        transferService.executeTransfer(TransferRequest.builder()
+                .sku("TEST-SKU").fromLocation("LOC-A").toLocation("LOC-B").quantity(5).build());
+        transferService.executeTransfer(TransferRequest.builder()
+                .sku("TEST-SKU").fromLocation("LOC-A").toLocation("LOC-B").quantity(500).build());
+
+        assertEquals(completedBefore + 1,
+                meterRegistry.timer("inventory.transfer.duration", "outcome", "completed", "reason", "none").count());
+        assertTrue(meterRegistry.get("inventory.transfer.phase")
+                .tags("outcome", "failed", "reason", "insufficient_stock", "phase", "read").timer().count() > 0);
+        assertNotNull(meterRegistry.find("hibernate.statements").meter());
+        assertNotNull(meterRegistry.find("hikaricp.connections.acquire").timer());
+    }
 }